@@ -0,0 +1,341 @@
+package game;
+
+import java.awt.EventQueue;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * An instance passes the events of a game on to another listener on the event dispatch thread,
+ * so that the game need not wait for each event to be shown (for example, for the GUI to animate
+ * each move), and the listener can update Swing components directly. Events wait in a bounded
+ * ring buffer until they can be delivered, in the order they happened; what happens when the
+ * game gets so far ahead that the buffer is full depends on the Policy.
+ * <p>
+ * A move is delivered by {@code moved(Node, Runnable)}, and the next event waits until the
+ * listener says the move has been shown, so the dispatch thread is never blocked by an animation.
+ * <p>
+ * Moves and changes to the bonus, coins and time only ever replace what was shown before, so
+ * the listener can skip some of them and still end up showing the latest state. A skipped move
+ * is still delivered, by {@code passedThrough(List)} just before the next event, so only its
+ * animation is lost. Every other event (a new cavern, gold picked up, an error) is always
+ * delivered. {@code close()} waits until every waiting event has been delivered.
+ */
+public final class AsyncGameListener implements GameListener, AutoCloseable {
+    /**
+     * What to do with a new event when the game is ahead of the listener.
+     */
+    public enum Policy {
+        /**
+         * When the buffer is full, the game waits for room, so every event is delivered.
+         */
+        BLOCK,
+        /**
+         * When the buffer is full, the oldest waiting move or change to the bonus, coins or
+         * time that a later one of the same kind supersedes is dropped to make room, so the
+         * listener skips intermediate frames; if there is none, the game waits for room.
+         */
+        DROP,
+        /**
+         * A move or change to the bonus, coins or time replaces a waiting event of the same
+         * kind, unless some other event is between them, so the listener only ever has the
+         * latest state to show.
+         */
+        COALESCE
+    }
+
+    /**
+     * The kinds of event; those that are superseded by a later event of the same kind can be
+     * dropped or coalesced.
+     */
+    private enum Kind {
+        CAVERN(false), MOVE(true), BONUS(true), GOLD(false), COINS(true), TIME(true), ERROR(false);
+
+        private final boolean superseded;
+
+        Kind(boolean superseded) {
+            this.superseded = superseded;
+        }
+    }
+
+    /**
+     * An event waiting to be delivered: of kind kind, after the nodes passed through in moves
+     * that were skipped before it. A move is to the nodes moves, one after another; any other
+     * event is delivered by calling delivery on the listener.
+     */
+    private record Event(Kind kind, List<Node> passed, List<Node> moves, Consumer<GameListener> delivery) {
+        /**
+         * Return an event of kind kind, delivered by calling delivery on the listener.
+         */
+        static Event of(Kind kind, Consumer<GameListener> delivery) {
+            return new Event(kind, new ArrayList<>(0), List.of(), delivery);
+        }
+
+        /**
+         * Return a move to the nodes moves, one after another.
+         */
+        static Event move(List<Node> moves) {
+            return new Event(Kind.MOVE, new ArrayList<>(0), moves, null);
+        }
+
+        /**
+         * Return this event, delivered after the nodes passed through in skipped (and the moves
+         * skipped before it), since skipped will not be delivered itself.
+         */
+        Event after(Event skipped) {
+            List<Node> all = skipped.passed;
+            all.addAll(skipped.moves);
+            all.addAll(passed);
+            return new Event(kind, all, moves, delivery);
+        }
+    }
+
+    private final GameListener delegate;
+    private final Policy policy;
+    /**
+     * The waiting events are buffer[head], buffer[head + 1], ... (wrapping round), size of them.
+     */
+    private final Event[] buffer;
+    private int head;
+    private int size;
+    private boolean closed;
+    private boolean failed;
+    /**
+     * True iff events are being delivered on the event dispatch thread (or a move is being shown),
+     * so new events need not start delivery.
+     */
+    private boolean delivering;
+
+    /**
+     * Constructor: an instance delivering events to delegate, with room for capacity waiting
+     * events, and following policy when it is full.
+     * Throw an IllegalArgumentException if capacity is not positive.
+     */
+    public AsyncGameListener(GameListener delegate, int capacity, Policy policy) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("AsyncGameListener: capacity must be positive");
+        }
+        this.delegate = delegate;
+        this.policy = policy;
+        buffer = new Event[capacity];
+    }
+
+    @Override
+    public void cavernChanged(Cavern c, boolean lit, int timeRemaining) {
+        publish(Event.of(Kind.CAVERN, l -> l.cavernChanged(c, lit, timeRemaining)));
+    }
+
+    @Override
+    public void moved(Node n) {
+        publish(Event.move(List.of(n)));
+    }
+
+    @Override
+    public void movedAlong(List<Node> path) {
+        publish(Event.move(List.copyOf(path)));
+    }
+
+    @Override
+    public void bonusChanged(double bonus) {
+        publish(Event.of(Kind.BONUS, l -> l.bonusChanged(bonus)));
+    }
+
+    @Override
+    public void goldPickedUp(Node n) {
+        publish(Event.of(Kind.GOLD, l -> l.goldPickedUp(n)));
+    }
+
+    @Override
+    public void coinsChanged(int coins, int score) {
+        publish(Event.of(Kind.COINS, l -> l.coinsChanged(coins, score)));
+    }
+
+    @Override
+    public void timeChanged(int timeRemaining) {
+        publish(Event.of(Kind.TIME, l -> l.timeChanged(timeRemaining)));
+    }
+
+    @Override
+    public void error(String message) {
+        publish(Event.of(Kind.ERROR, l -> l.error(message)));
+    }
+
+    /**
+     * Wait until every waiting event has been delivered, and then stop accepting events.
+     * Closing a closed instance has no effect.
+     * Throw an IllegalStateException if called on the event dispatch thread, which delivers them.
+     */
+    @Override
+    public void close() {
+        if (EventQueue.isDispatchThread()) {
+            throw new IllegalStateException("AsyncGameListener: close would wait for its own thread");
+        }
+        synchronized (this) {
+            closed = true;
+            try {
+                while (delivering && !failed) {
+                    wait();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Add event to the buffer as the policy says, and start delivering it if need be.
+     * Throw an IllegalStateException if this instance has been closed.
+     */
+    private synchronized void publish(Event event) {
+        if (closed) {
+            throw new IllegalStateException("AsyncGameListener: listener has been closed");
+        }
+        if (policy == Policy.COALESCE && event.kind.superseded) {
+            // Look back over the waiting events that can be replaced, for one of the same kind.
+            for (int i = size - 1; i >= 0 && at(i).kind.superseded; i--) {
+                if (at(i).kind == event.kind) {
+                    set(i, event.after(at(i)));
+                    return;
+                }
+            }
+        }
+        if (policy == Policy.DROP && size == buffer.length) {
+            Event dropped = dropOldestSuperseded(event);
+            if (dropped != null) {
+                event = event.after(dropped);
+            }
+        }
+        try {
+            while (size == buffer.length && !failed) {
+                wait();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        if (failed) {
+            return;
+        }
+        set(size, event);
+        size++;
+        if (!delivering) {
+            delivering = true;
+            EventQueue.invokeLater(this::deliver);
+        }
+    }
+
+    /**
+     * Remove the oldest waiting event that is superseded by a later one of the same kind (waiting,
+     * or event, which is about to be added), if there is one, so that the latest of each kind is
+     * still delivered. The event after it is delivered after the nodes it passed through; if it
+     * was the last, it is returned so that event can be, and otherwise null is returned.
+     */
+    private Event dropOldestSuperseded(Event event) {
+        for (int i = 0; i < size; i++) {
+            if (at(i).kind.superseded && isSupersededAfter(i, event)) {
+                Event dropped = at(i);
+                for (int j = i; j < size - 1; j++) {
+                    set(j, at(j + 1));
+                }
+                size--;
+                set(size, null);
+                if (i < size) {
+                    set(i, at(i).after(dropped));
+                    return null;
+                }
+                return dropped;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Return true iff a waiting event after the i'th, or event, is of the same kind as the i'th.
+     */
+    private boolean isSupersededAfter(int i, Event event) {
+        Kind kind = at(i).kind;
+        for (int j = i + 1; j < size; j++) {
+            if (at(j).kind == kind) {
+                return true;
+            }
+        }
+        return event.kind == kind;
+    }
+
+    /**
+     * Return the i'th waiting event.
+     */
+    private Event at(int i) {
+        return buffer[(head + i) % buffer.length];
+    }
+
+    /**
+     * Make e the i'th waiting event.
+     */
+    private void set(int i, Event e) {
+        buffer[(head + i) % buffer.length] = e;
+    }
+
+    /**
+     * On the event dispatch thread, deliver waiting events to the delegate, in order, until there
+     * are none left or a move is being shown; once it has been, delivery carries on from the next.
+     * If the delegate throws an exception, no more events are delivered.
+     */
+    private void deliver() {
+        while (true) {
+            Event event;
+            synchronized (this) {
+                if (size == 0 || failed) {
+                    delivering = false;
+                    notifyAll();
+                    return;
+                }
+                event = at(0);
+                set(0, null);
+                head = (head + 1) % buffer.length;
+                size--;
+                notifyAll();
+            }
+            try {
+                if (!event.passed.isEmpty()) {
+                    delegate.passedThrough(event.passed);
+                }
+                if (event.kind == Kind.MOVE) {
+                    moveAlong(event.moves, 0);
+                    return;
+                }
+                event.delivery.accept(delegate);
+            } catch (RuntimeException e) {
+                fail();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * On the event dispatch thread, show the moves to path[i..], one after another, and then carry
+     * on delivering events.
+     */
+    private void moveAlong(List<Node> path, int i) {
+        if (i == path.size()) {
+            EventQueue.invokeLater(this::deliver);
+            return;
+        }
+        try {
+            delegate.moved(path.get(i), () -> EventQueue.invokeLater(() -> moveAlong(path, i + 1)));
+        } catch (RuntimeException e) {
+            fail();
+            throw e;
+        }
+    }
+
+    /**
+     * Stop delivering events, because the delegate has thrown an exception.
+     */
+    private synchronized void fail() {
+        failed = true;
+        delivering = false;
+        size = 0;
+        notifyAll();
+    }
+}
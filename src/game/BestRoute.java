@@ -0,0 +1,49 @@
+package game;
+
+import java.util.List;
+
+/**
+ * The sink used by {@code GameState.planAndFollow}, which keeps the route offered to it that
+ * collects the most gold and still reaches the exit in time.
+ * It is safe to offer routes from any thread.
+ */
+final class BestRoute implements RouteSink {
+    private final EscapeSimulation start;
+    private List<Node> best;
+    private int bestGold;
+    private boolean closed;
+
+    /**
+     * Constructor: a sink for routes that will be followed from start, which is not changed.
+     */
+    BestRoute(EscapeSimulation start) {
+        this.start = start;
+    }
+
+    /**
+     * Keep route if it reaches the exit in time and collects more gold than any route offered
+     * before it. Offering a route takes time proportional to its length.
+     * Throw an IllegalArgumentException if a node on route is not a neighbour of the one
+     * before it, and an IllegalStateException if this sink has been closed.
+     */
+    @Override
+    public synchronized void offer(List<Node> route) {
+        if (closed) {
+            throw new IllegalStateException("offer: planning is over");
+        }
+        EscapeSimulation end = start.fork().follow(route, true);
+        if (end.isAtExit() && (best == null || end.getGoldCollected() > bestGold)) {
+            best = List.copyOf(route);
+            bestGold = end.getGoldCollected();
+        }
+    }
+
+    /**
+     * Stop accepting routes, and return the best route offered, or null if none reached the
+     * exit in time.
+     */
+    synchronized List<Node> close() {
+        closed = true;
+        return best;
+    }
+}
@@ -1,28 +1,35 @@
 package game;
 
 import java.util.*;
-import java.util.function.Supplier;
+import java.util.function.IntSupplier;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 /**
  * An instance represents a Cavern that the explorer can navigate through.
  * The cavern is set up as a grid of Tile objects with a weighted graph of all non-floor tiles.
  * There is an entrance to the cavern and a target location (which may also be the entrance).
  */
-public class Cavern {
+public class Cavern implements CavernView {
 
     public static final int MAX_EDGE_WEIGHT = 15;
     public static final int MAX_GOLD_VALUE = 1000;
     public static final int TASTY_VALUE = 5000;
-    private static final double DENSITY = 0.6;
+    static final double DENSITY = 0.6;
     private static final double GOLD_PROBABILITY = 0.33;
+    private static final Direction[] DIRECTIONS = Direction.values();
+    private static final Metrics.Counter GROWN = Metrics.counter("cavern.grown");
+    private static final Metrics.Timer MIN_PATH = Metrics.timer("cavern.minPathLengthToTarget");
+    private static final Metrics.Counter MIN_PATH_SETTLED = Metrics.counter("cavern.minPathLengthToTarget.settled");
     private final int rows;
     private final int cols;
     private final Set<Node> graph;
     private final Node entrance;
     private final Node target;
     private final Node[][] tiles;
+    /**
+     * The id to give the next node created in this cavern
+     */
+    private long freshId;
 
     /**
      * Constructor: an instance of size (rws, cls) .
@@ -33,13 +40,44 @@ public class Cavern {
     private Cavern(int rws,
                    int cls,
                    Random rand,
-                   Supplier<Integer> edgeWeightGenerator,
-                   Supplier<Integer> goldGenerator,
+                   IntSupplier edgeWeightGenerator,
+                   IntSupplier goldGenerator,
                    Tile.Type targetType) {
+        this(rws, cls, rand, edgeWeightGenerator, goldGenerator, targetType, 0, -1, null);
+    }
+
+    /**
+     * Constructor: an instance of size (rws, cls), generated in a single pass.
+     * As above, but if {@code minTargetDist} is positive the target is chosen among the tiles
+     * at least that many steps from the entrance, and if {@code seedCell} is not negative the
+     * cavern is grown outwards from the cell with that index (see {@code cellOf}), which is
+     * guaranteed to be open floor, and the entrance is placed where that growth meets the
+     * edge of the grid.
+     * If {@code layout} is non-null, nothing is grown: the open tiles are those in layout
+     * (see {@code CavernGenerator}), and seedCell is ignored.
+     * Precondition: {@code seedCell} is negative or a cell on the grid and not on its edge,
+     * and {@code seedCell} is negative if {@code targetType} is not {@code Tile.Type.ENTRANCE}.
+     */
+    private Cavern(int rws,
+                   int cls,
+                   Random rand,
+                   IntSupplier edgeWeightGenerator,
+                   IntSupplier goldGenerator,
+                   Tile.Type targetType,
+                   int minTargetDist,
+                   int seedCell,
+                   BitSet layout) {
+        GROWN.increment();
         rows = rws;
         cols = cls;
 
-        graph = generateGraph(rand, targetType, goldGenerator);
+        if (layout != null) {
+            graph = graphFromLayout(rand, layout, targetType, goldGenerator, minTargetDist);
+        } else if (seedCell < 0) {
+            graph = generateGraph(rand, targetType, goldGenerator, minTargetDist);
+        } else {
+            graph = generateGraphFrom(rand, seedCell, goldGenerator);
+        }
 
         entrance = graph.stream().filter((n) -> n.getTile().getType() == Tile.Type.ENTRANCE).findAny().get();
 
@@ -55,7 +93,7 @@ public class Cavern {
         for (int i = 0; i < rows; i++) {
             for (int j = 0; j < cols; j++) {
                 if (tiles[i][j] == null) {
-                    tiles[i][j] = new Node(new Tile(i, j, 0, Tile.Type.WALL));
+                    tiles[i][j] = newNode(new Tile(i, j, 0, Tile.Type.WALL));
                 }
             }
         }
@@ -88,8 +126,28 @@ public class Cavern {
      * Use rand as a source of randomness for the cavern generation.
      */
     public static Cavern digExploreCavern(int rows, int cols, Random rand) {
+        return digExploreCavern(rows, cols, rand, GenerationMode.REJECTION);
+    }
+
+    /**
+     * As {@code digExploreCavern(rows, cols, rand)}, but using generation mode {@code mode}.
+     * With {@code GenerationMode.SINGLE_PASS} the orb is placed on a tile at least the minimum
+     * orb distance from the entrance, extending the cavern with a dead-end corridor if it has
+     * no tile that far away, so usually exactly one cavern is grown. In the rare cavern where
+     * no corridor can reach that far either, the cavern is rejected and grown again, as with
+     * {@code GenerationMode.REJECTION}, so the orb is always at least that far away.
+     */
+    public static Cavern digExploreCavern(int rows, int cols, Random rand, GenerationMode mode) {
         int minOrbDist = minOrbDistance(rows, cols);
 
+        if (mode == GenerationMode.SINGLE_PASS) {
+            Cavern cavern = new Cavern(rows, cols, rand, () -> 1, () -> 0, Tile.Type.ORB, minOrbDist, -1, null);
+            while (cavern.minPathLengthToTarget(cavern.getEntrance()) < minOrbDist) {
+                cavern = new Cavern(rows, cols, rand, () -> 1, () -> 0, Tile.Type.ORB, minOrbDist, -1, null);
+            }
+            return cavern;
+        }
+
         Cavern cavern = new Cavern(rows, cols, rand, () -> 1, () -> 0, Tile.Type.ORB);
         while (cavern.minPathLengthToTarget(cavern.getEntrance()) < minOrbDist) {
             cavern = new Cavern(rows, cols, rand, () -> 1, () -> 0, Tile.Type.ORB);
@@ -97,10 +155,21 @@ public class Cavern {
         return cavern;
     }
 
+    /**
+     * As {@code digExploreCavern(rows, cols, rand)}, but with the open tiles laid out by
+     * generator instead of grown. The orb is placed on a tile at least the minimum orb
+     * distance from the entrance, or on one of the farthest tiles if there is none that far.
+     */
+    public static Cavern digExploreCavern(int rows, int cols, Random rand, CavernGenerator generator) {
+        BitSet layout = generator.dig(rows, cols, rand);
+        return new Cavern(rows, cols, rand, () -> 1, () -> 0, Tile.Type.ORB,
+            minOrbDistance(rows, cols), -1, layout);
+    }
+
     /**
      * Return the minimum allowable path distance from the entrance to the orb.
      */
-    private static int minOrbDistance(int rows, int cols) {
+    static int minOrbDistance(int rows, int cols) {
         return (rows + cols) / 2;
     }
 
@@ -110,8 +179,24 @@ public class Cavern {
      * Use rand as a source of randomness for the cavern generation.
      */
     public static Cavern digEscapeCavern(int rows, int cols, int currentRow, int currentCol, Random rand) {
-        Supplier<Integer> edgeWeightGen = () -> rand.nextInt(MAX_EDGE_WEIGHT) + 1;
-        Supplier<Integer> goldGen = () -> Cavern.generateGoldValue(rand);
+        return digEscapeCavern(rows, cols, currentRow, currentCol, rand, GenerationMode.REJECTION);
+    }
+
+    /**
+     * As {@code digEscapeCavern(rows, cols, currentRow, currentCol, rand)}, but using generation
+     * mode {@code mode}. With {@code GenerationMode.SINGLE_PASS} exactly one cavern is grown,
+     * starting from (currentRow, currentCol).
+     * Precondition: (currentRow, currentCol) is not on the edge of the grid.
+     */
+    public static Cavern digEscapeCavern(int rows, int cols, int currentRow, int currentCol,
+                                         Random rand, GenerationMode mode) {
+        IntSupplier edgeWeightGen = () -> rand.nextInt(MAX_EDGE_WEIGHT) + 1;
+        IntSupplier goldGen = () -> Cavern.generateGoldValue(rand);
+        if (mode == GenerationMode.SINGLE_PASS) {
+            return new Cavern(rows, cols, rand, edgeWeightGen, goldGen, Tile.Type.ENTRANCE, 0,
+                currentRow * cols + currentCol, null);
+        }
+
         Cavern potentialCavern = new Cavern(rows, cols, rand, edgeWeightGen, goldGen, Tile.Type.ENTRANCE);
         while (potentialCavern.getTileAt(currentRow, currentCol).getType() != Tile.Type.FLOOR) {
             potentialCavern = new Cavern(rows, cols, rand, edgeWeightGen, goldGen, Tile.Type.ENTRANCE);
@@ -119,6 +204,61 @@ public class Cavern {
         return potentialCavern;
     }
 
+    /**
+     * As {@code digEscapeCavern(rows, cols, currentRow, currentCol, rand)}, but with the open
+     * tiles laid out by generator instead of grown. If the layout leaves (currentRow, currentCol)
+     * as a wall, the shortest straight-through path from it to an open tile is opened up.
+     * Precondition: (currentRow, currentCol) is not on the edge of the grid.
+     */
+    public static Cavern digEscapeCavern(int rows, int cols, int currentRow, int currentCol,
+                                         Random rand, CavernGenerator generator) {
+        IntSupplier edgeWeightGen = () -> rand.nextInt(MAX_EDGE_WEIGHT) + 1;
+        IntSupplier goldGen = () -> Cavern.generateGoldValue(rand);
+        BitSet layout = generator.dig(rows, cols, rand);
+        openPathFrom(layout, rows, cols, currentRow, currentCol);
+        return new Cavern(rows, cols, rand, edgeWeightGen, goldGen, Tile.Type.ENTRANCE, 0, -1, layout);
+    }
+
+    /**
+     * If (row, col) is not open in layout, open it and every tile on a shortest path from it
+     * (through tiles not on the edge of the grid) to the nearest open tile.
+     * Precondition: (row, col) is not on the edge of the grid, and some tile that is not on
+     * the edge of the grid is open.
+     */
+    private static void openPathFrom(BitSet layout, int rows, int cols, int row, int col) {
+        int start = row * cols + col;
+        if (layout.get(start)) {
+            return;
+        }
+
+        int[] previous = new int[rows * cols];
+        Arrays.fill(previous, -1);
+        int[] frontier = new int[rows * cols];
+        int head = 0;
+        int tail = 0;
+        previous[start] = start;
+        frontier[tail++] = start;
+        while (head < tail) {
+            int cell = frontier[head++];
+            if (layout.get(cell)) {
+                for (int c = previous[cell]; c != start; c = previous[c]) {
+                    layout.set(c);
+                }
+                layout.set(start);
+                return;
+            }
+            for (Direction dir : DIRECTIONS) {
+                int r = cell / cols + dir.getRowOffset();
+                int c = cell % cols + dir.getColumnOffset();
+                if (r > 0 && r < rows - 1 && c > 0 && c < cols - 1 && previous[r * cols + c] < 0) {
+                    previous[r * cols + c] = cell;
+                    frontier[tail++] = r * cols + c;
+                }
+            }
+        }
+        throw new IllegalArgumentException("openPathFrom: layout has no open tiles");
+    }
+
     /**
      * Return a randomly determined gold value for a given tile.
      */
@@ -183,23 +323,42 @@ public class Cavern {
             }
         }
 
+        long freshId = idToNode.keySet().stream().mapToLong(Long::longValue).max().orElse(-1) + 1;
         for (int i = 0; i < rows; i++) {
             for (int j = 0; j < cols; j++) {
                 if (tiles[i][j] == null) {
-                    tiles[i][j] = new Node(new Tile(i, j, 0, Tile.Type.WALL));
+                    tiles[i][j] = new Node(freshId++, new Tile(i, j, 0, Tile.Type.WALL));
                 }
             }
         }
         return new Cavern(new HashSet<>(idToNode.values()), tiles, idToNode.get(targetId));
     }
 
+    /**
+     * Return a new node for tile t, with an id not used by any other node of this cavern.
+     * Ids are handed out in the order nodes are created, so the same random values always
+     * give the same ids, however many other caverns exist.
+     */
+    private Node newNode(Tile t) {
+        return new Node(freshId++, t);
+    }
+
+    /**
+     * Return a node with the same id and tile as n, except that the tile has type type.
+     * Precondition: n has no edges yet.
+     */
+    private static Node withType(Node n, Tile.Type type) {
+        Tile t = n.getTile();
+        return new Node(n.getId(), new Tile(t.getRow(), t.getColumn(), t.getOriginalGold(), type));
+    }
+
     /**
      * Add edges to the grid of nodes, tiles, between adjacent non-wall tiles,
      * using edgeWeightGenerator to get edge weights.
      * Precondition: all elements of {@code tiles} are non-null and
      * the grid of nodes has no edges.
      */
-    private void createEdges(Node[][] tiles, Supplier<Integer> edgeWeightGenerator) {
+    private void createEdges(Node[][] tiles, IntSupplier edgeWeightGenerator) {
         for (int i = 0; i < tiles.length - 1; i++) {
             for (int j = 0; j < tiles[i].length - 1; j++) {
                 Node node = tiles[i][j];
@@ -207,101 +366,413 @@ public class Cavern {
                     continue;
                 }
 
-                final Point p = new Point(i, j);
-                Stream.of(Direction.SOUTH, Direction.EAST)
-                    .map(Direction::getPoint)
-                    .map(p::add)
-                    .map((q) -> tiles[q.row][q.col])
-                    .filter((m) -> m.getTile().getType() != Tile.Type.WALL)
-                    .forEach((m) -> {
-                        int weight = edgeWeightGenerator.get();
-                        node.addEdge(new Edge(node, m, weight));
-                        m.addEdge(new Edge(m, node, weight));
-                    });
+                // South first, then east: edge weights are drawn in this order.
+                connect(node, tiles[i + 1][j], edgeWeightGenerator);
+                connect(node, tiles[i][j + 1], edgeWeightGenerator);
             }
         }
     }
 
+    /**
+     * Add a pair of edges between node and m, with a weight from edgeWeightGenerator,
+     * unless m is a wall.
+     */
+    private static void connect(Node node, Node m, IntSupplier edgeWeightGenerator) {
+        if (m.getTile().getType() == Tile.Type.WALL) {
+            return;
+        }
+        int weight = edgeWeightGenerator.getAsInt();
+        node.addEdge(new Edge(node, m, weight));
+        m.addEdge(new Edge(m, node, weight));
+    }
+
     /**
      * Return true iff p is on the grid
      */
     private boolean isValid(Point p) {
-        return p.row > 0 && p.row < rows - 1 &&
-            p.col > 0 && p.col < cols - 1;
+        return isValid(p.row, p.col);
+    }
+
+    /**
+     * Return true iff (r, c) is on the grid (and not on its edge).
+     */
+    private boolean isValid(int r, int c) {
+        return r > 0 && r < rows - 1 &&
+            c > 0 && c < cols - 1;
+    }
+
+    /**
+     * Return the index of the cell (r, c) in row-major order.
+     * Cells are packed this way during generation so that sets of cells can be kept as
+     * BitSets and queues of cells as int arrays.
+     */
+    private int cellOf(int r, int c) {
+        return r * cols + c;
+    }
+
+    /**
+     * Return the cell index of node's tile (see {@code cellOf}).
+     */
+    private int cellOf(Node node) {
+        return cellOf(node.getTile().getRow(), node.getTile().getColumn());
+    }
+
+    /**
+     * Return the index of the cell next to cell in direction dir, or -1 if that cell is
+     * not on the grid (or is on its edge).
+     */
+    private int neighbourCell(int cell, Direction dir) {
+        int r = cell / cols + dir.dir.row;
+        int c = cell % cols + dir.dir.col;
+        return isValid(r, c) ? cellOf(r, c) : -1;
     }
 
     /**
      * Generate a new random graph that fits within the grid and return the set of nodes.
      * Use goldGenerator to generate gold.
      * If targetType is not ENTRANCE, make the target be some random node that is
-     * not the entrance.
+     * not the entrance and, if minTargetDist is positive, that is at least minTargetDist
+     * steps from the entrance (see {@code nodesFarFrom}).
      */
     private Set<Node> generateGraph(Random rand,
                                     Tile.Type targetType,
-                                    Supplier<Integer> goldGenerator) {
+                                    IntSupplier goldGenerator,
+                                    int minTargetDist) {
         List<Node> nodes = new ArrayList<>();
-
-        Set<Point> pointsSeen = new HashSet<>();
-        Set<Point> openPoints = new HashSet<>();
-        Queue<Node> frontier = new ArrayDeque<>();
+        BitSet openCells = new BitSet(rows * cols);
 
         Point entrancePoint = getEntrancePoint(rand);
-        Node entrance = new Node(new Tile(entrancePoint.row, entrancePoint.col, 0, Tile.Type.ENTRANCE));
-        nodes.add(entrance);
+        Node entrance = newNode(new Tile(entrancePoint.row, entrancePoint.col, 0, Tile.Type.ENTRANCE));
+        growGraph(rand, entrance, goldGenerator, nodes, openCells);
 
-        pointsSeen.add(entrancePoint);
-        openPoints.add(entrancePoint);
-        frontier.add(entrance);
-        while (!frontier.isEmpty()) {
-            Node node = frontier.remove();
-            Point p = new Point(node.getTile().getRow(), node.getTile().getColumn());
+        if (targetType != Tile.Type.ENTRANCE) {
+            int targetIdx;
+            if (minTargetDist <= 0) {
+                // Grab a random tile that's not the entrance and make it the target.
+                targetIdx = rand.nextInt(nodes.size() - 1) + 1;
+            } else {
+                List<Node> candidates = nodesFarFrom(rand, cellOf(entrance), nodes, openCells,
+                    goldGenerator, minTargetDist);
+                targetIdx = nodes.indexOf(candidates.get(rand.nextInt(candidates.size())));
+            }
+            nodes.set(targetIdx, withType(nodes.get(targetIdx), targetType));
+        }
+
+        return Collections.unmodifiableSet(new HashSet<>(nodes));
+    }
+
+    /**
+     * Generate a new random graph that fits within the grid, grown outwards from seedCell,
+     * and return the set of nodes. The node at seedCell is a floor tile, and the entrance is
+     * placed on the edge of the grid next to a random tile reached by the growth.
+     * Use goldGenerator to generate gold.
+     * Precondition: seedCell is a cell on the grid and not on its edge.
+     */
+    private Set<Node> generateGraphFrom(Random rand,
+                                        int seedCell,
+                                        IntSupplier goldGenerator) {
+        List<Node> nodes = new ArrayList<>();
+        BitSet openCells = new BitSet(rows * cols);
+
+        Node seed = newNode(new Tile(seedCell / cols, seedCell % cols, goldGenerator.getAsInt(), Tile.Type.FLOOR));
+        growGraph(rand, seed, goldGenerator, nodes, openCells);
+
+        // The entrance may go on any edge tile whose only on-grid neighbour is open.
+        List<Point> entranceCandidates = new ArrayList<>();
+        for (int r = 1; r < rows - 1; r++) {
+            if (openCells.get(cellOf(r, 1))) entranceCandidates.add(new Point(r, 0));
+            if (openCells.get(cellOf(r, cols - 2))) entranceCandidates.add(new Point(r, cols - 1));
+        }
+        for (int c = 1; c < cols - 1; c++) {
+            if (openCells.get(cellOf(1, c))) entranceCandidates.add(new Point(0, c));
+            if (openCells.get(cellOf(rows - 2, c))) entranceCandidates.add(new Point(rows - 1, c));
+        }
+
+        Point entrancePoint;
+        if (!entranceCandidates.isEmpty()) {
+            entrancePoint = entranceCandidates.get(rand.nextInt(entranceCandidates.size()));
+        } else {
+            entrancePoint = digCorridorToEdge(nodes, openCells, goldGenerator);
+        }
+        nodes.add(newNode(new Tile(entrancePoint.row, entrancePoint.col, 0, Tile.Type.ENTRANCE)));
+
+        return Collections.unmodifiableSet(new HashSet<>(nodes));
+    }
+
+    /**
+     * Randomly grow the cavern outwards from start (whose tile must already be open),
+     * adding every node created (start included, in order of creation) to nodes and every
+     * open cell to openCells. Use goldGenerator to generate gold.
+     * Cells are visited in breadth-first order, so the frontier is a plain array of cell
+     * indices: every cell enters it at most once.
+     */
+    private void growGraph(Random rand,
+                           Node start,
+                           IntSupplier goldGenerator,
+                           List<Node> nodes,
+                           BitSet openCells) {
+        BitSet cellsSeen = new BitSet(rows * cols);
+        int[] frontier = new int[rows * cols];
+        int head = 0;
+        int tail = 0;
+        int[] newExits = new int[DIRECTIONS.length];
+
+        int startCell = cellOf(start);
+        nodes.add(start);
+
+        cellsSeen.set(startCell);
+        openCells.set(startCell);
+        frontier[tail++] = startCell;
+        while (head < tail) {
+            int cell = frontier[head++];
 
             // We want to make sure there's a way out if we can get one.
             // This will prevent stupid degenerate graphs.
             int existingExits = 0;
-            List<Point> newExits = new ArrayList<>();
-            for (Direction dir : Direction.values()) {
-                Point newPt = dir.getPoint().add(p);
-                if (isValid(newPt)) {
-                    if (openPoints.contains(newPt)) {
+            int nExits = 0;
+            for (Direction dir : DIRECTIONS) {
+                int newCell = neighbourCell(cell, dir);
+                if (newCell >= 0) {
+                    if (openCells.get(newCell)) {
                         existingExits++;
-                    } else if (pointsSeen.add(newPt)) {
-                        newExits.add(newPt);
+                    } else if (!cellsSeen.get(newCell)) {
+                        cellsSeen.set(newCell);
+                        newExits[nExits++] = newCell;
                     }
                 }
             }
 
-            int nExits = newExits.size();
             if (nExits > 0) {
                 double modifiedDensity;
-                Point forcedExit;
+                int forcedExit;
                 // Modify the density function so that the expected number of open exits
                 // is the same even though we're forcing something to be open.
                 if (existingExits < 2) {
                     modifiedDensity = (nExits == 1 ? 0.0 : (nExits * DENSITY - 1) / (nExits - 1));
-                    forcedExit = newExits.get(rand.nextInt(newExits.size()));
+                    forcedExit = newExits[rand.nextInt(nExits)];
                 } else {
                     modifiedDensity = DENSITY;
-                    forcedExit = null;
+                    forcedExit = -1;
+                }
+                for (int i = 0; i < nExits; i++) {
+                    int q = newExits[i];
+                    if (q == forcedExit || rand.nextDouble() < modifiedDensity) {
+                        openCells.set(q);
+                        nodes.add(newNode(new Tile(q / cols, q % cols, goldGenerator.getAsInt(), Tile.Type.FLOOR)));
+                        frontier[tail++] = q;
+                    }
                 }
-                newExits.stream()
-                    .filter((q) -> q.equals(forcedExit) || rand.nextDouble() < modifiedDensity)
-                    .peek(openPoints::add)
-                    .map((q) -> new Node(new Tile(q.row, q.col, goldGenerator.get(), Tile.Type.FLOOR)))
-                    .peek(frontier::add)
-                    .forEach(nodes::add);
             }
         }
+    }
+
+    /**
+     * Return the nodes (other than the one at startCell) whose breadth-first distance from
+     * startCell, moving only between cells in openCells, is at least minDist. The result is
+     * in the order of nodes.
+     * If no node is that far away, first randomly dig dead-end corridors outwards from the
+     * farthest nodes (adding their nodes to nodes and their cells to openCells) until one
+     * reaches minDist, extending each only while it does not touch any other open cell;
+     * if minDist still cannot be reached, return the nodes farthest from startCell instead
+     * (so callers that need minDist must check the distance of the node they choose).
+     * Use goldGenerator to generate gold for the corridor.
+     * Precondition: nodes holds a node for each cell in openCells, and they are connected.
+     */
+    private List<Node> nodesFarFrom(Random rand,
+                                    int startCell,
+                                    List<Node> nodes,
+                                    BitSet openCells,
+                                    IntSupplier goldGenerator,
+                                    int minDist) {
+        int[] distances = distancesFrom(startCell, openCells);
+        int maxDist = 0;
+        for (int d : distances) {
+            maxDist = Math.max(maxDist, d);
+        }
+
+        if (maxDist < minDist) {
+            // Try digging from the farthest nodes first, since they need the shortest corridor.
+            List<Node> digFrom = new ArrayList<>(nodes);
+            digFrom.sort(Comparator.comparingInt((Node n) -> -distances[cellOf(n)]));
+            List<Integer> options = new ArrayList<>(DIRECTIONS.length);
+            for (Node n : digFrom) {
+                int cell = cellOf(n);
+                int d = distances[cell];
+                while (d < minDist) {
+                    options.clear();
+                    for (Direction dir : DIRECTIONS) {
+                        int q = neighbourCell(cell, dir);
+                        if (q >= 0 && !openCells.get(q) && onlyOpenNeighbourIs(q, cell, openCells)) {
+                            options.add(q);
+                        }
+                    }
+                    if (options.isEmpty()) {
+                        break;
+                    }
+                    cell = options.get(rand.nextInt(options.size()));
+                    openCells.set(cell);
+                    nodes.add(newNode(new Tile(cell / cols, cell % cols, goldGenerator.getAsInt(), Tile.Type.FLOOR)));
+                    distances[cell] = ++d;
+                }
+                maxDist = Math.max(maxDist, d);
+                if (maxDist >= minDist) {
+                    break;
+                }
+            }
+        }
+
+        int threshold = Math.min(minDist, maxDist);
+        List<Node> farNodes = new ArrayList<>();
+        for (Node n : nodes) {
+            int cell = cellOf(n);
+            if (cell != startCell && distances[cell] >= threshold) {
+                farNodes.add(n);
+            }
+        }
+        return farNodes;
+    }
+
+    /**
+     * Return an array holding, for each cell in openCells, its breadth-first distance from
+     * startCell moving only between cells in openCells, and -1 for every other cell.
+     * Precondition: startCell is in openCells.
+     */
+    private int[] distancesFrom(int startCell, BitSet openCells) {
+        // The start cell may be on the edge of the grid,
+        // so its neighbours are found without neighbourCell().
+        int[] distances = new int[rows * cols];
+        Arrays.fill(distances, -1);
+        int[] frontier = new int[rows * cols];
+        int head = 0;
+        int tail = 0;
+        distances[startCell] = 0;
+        frontier[tail++] = startCell;
+        while (head < tail) {
+            int cell = frontier[head++];
+            int d = distances[cell];
+            for (Direction dir : DIRECTIONS) {
+                int r = cell / cols + dir.dir.row;
+                int c = cell % cols + dir.dir.col;
+                if (r < 0 || r >= rows || c < 0 || c >= cols) {
+                    continue;
+                }
+                int q = cellOf(r, c);
+                if (openCells.get(q) && distances[q] < 0) {
+                    distances[q] = d + 1;
+                    frontier[tail++] = q;
+                }
+            }
+        }
+        return distances;
+    }
+
+    /**
+     * Return the set of nodes for the open tiles in layout (see {@code CavernGenerator}),
+     * created in row-major order. The open tile on the edge of the grid is the entrance.
+     * Use goldGenerator to generate gold.
+     * If targetType is not ENTRANCE, make the target be a random node that is at least
+     * minTargetDist steps from the entrance, or one of the farthest nodes if none is that far.
+     * Throw an IllegalArgumentException if layout does not have exactly one open tile on the
+     * edge of the grid, or if its open tiles are not connected.
+     */
+    private Set<Node> graphFromLayout(Random rand,
+                                      BitSet layout,
+                                      Tile.Type targetType,
+                                      IntSupplier goldGenerator,
+                                      int minTargetDist) {
+        List<Node> nodes = new ArrayList<>();
+        int entranceCell = -1;
+        for (int cell = layout.nextSetBit(0); cell >= 0; cell = layout.nextSetBit(cell + 1)) {
+            int r = cell / cols;
+            int c = cell % cols;
+            if (isValid(r, c)) {
+                nodes.add(newNode(new Tile(r, c, goldGenerator.getAsInt(), Tile.Type.FLOOR)));
+            } else if (entranceCell < 0) {
+                entranceCell = cell;
+                nodes.add(newNode(new Tile(r, c, 0, Tile.Type.ENTRANCE)));
+            } else {
+                throw new IllegalArgumentException("graphFromLayout: more than one open tile on the edge");
+            }
+        }
+        if (entranceCell < 0) {
+            throw new IllegalArgumentException("graphFromLayout: no open tile on the edge");
+        }
+
+        int[] distances = distancesFrom(entranceCell, layout);
+        int maxDist = 0;
+        for (Node n : nodes) {
+            int d = distances[cellOf(n)];
+            if (d < 0) {
+                throw new IllegalArgumentException("graphFromLayout: open tiles are not connected");
+            }
+            maxDist = Math.max(maxDist, d);
+        }
 
         if (targetType != Tile.Type.ENTRANCE) {
-            // Grab a random tile that's not the entrance and make it the target.
-            int targetIdx = rand.nextInt(nodes.size() - 1) + 1;
-            nodes.get(targetIdx).getTile().setType(targetType);
+            int threshold = Math.min(minTargetDist, maxDist);
+            List<Node> candidates = new ArrayList<>();
+            for (Node n : nodes) {
+                if (n.getTile().getType() == Tile.Type.FLOOR && distances[cellOf(n)] >= threshold) {
+                    candidates.add(n);
+                }
+            }
+            int targetIdx = nodes.indexOf(candidates.get(rand.nextInt(candidates.size())));
+            nodes.set(targetIdx, withType(nodes.get(targetIdx), targetType));
         }
 
         return Collections.unmodifiableSet(new HashSet<>(nodes));
     }
 
+    /**
+     * Return true iff cell is the only cell of openCells adjacent to q
+     * (ignoring the edge of the grid).
+     */
+    private boolean onlyOpenNeighbourIs(int q, int cell, BitSet openCells) {
+        for (Direction dir : DIRECTIONS) {
+            int r = neighbourCell(q, dir);
+            if (r >= 0 && r != cell && openCells.get(r)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Open a straight corridor of floor tiles from the open cell nearest the edge of the grid
+     * to that edge, adding the new nodes to nodes and their cells to openCells, and return
+     * the edge point where the corridor ends. Use goldGenerator to generate gold.
+     * Precondition: openCells is non-empty and nodes holds a node for each of its cells.
+     */
+    private Point digCorridorToEdge(List<Node> nodes, BitSet openCells, IntSupplier goldGenerator) {
+        Point nearest = null;
+        Direction toEdge = null;
+        int bestDist = Integer.MAX_VALUE;
+        for (Node n : nodes) {
+            Point p = new Point(n.getTile().getRow(), n.getTile().getColumn());
+            int[] dists = {p.row - 1, p.col - 1, rows - 2 - p.row, cols - 2 - p.col};
+            Direction[] dirs = {Direction.NORTH, Direction.WEST, Direction.SOUTH, Direction.EAST};
+            for (int i = 0; i < dists.length; i++) {
+                if (dists[i] < bestDist) {
+                    bestDist = dists[i];
+                    nearest = p;
+                    toEdge = dirs[i];
+                }
+            }
+        }
+
+        Point p = nearest;
+        Point next = toEdge.getPoint().add(p);
+        while (isValid(next)) {
+            p = next;
+            if (!openCells.get(cellOf(p.row, p.col))) {
+                openCells.set(cellOf(p.row, p.col));
+                nodes.add(newNode(new Tile(p.row, p.col, goldGenerator.getAsInt(), Tile.Type.FLOOR)));
+            }
+            next = toEdge.getPoint().add(p);
+        }
+        return next;
+    }
+
     /**
      * Randomly determine and return the entrance to the cavern
      * (the only non-wall tile along an edge of the grid).
@@ -323,6 +794,7 @@ public class Cavern {
     /**
      * Return the number of open floor tiles in this cavern (this is the size of the graph).
      */
+    @Override
     public int numOpenTiles() {
         return graph.size();
     }
@@ -330,6 +802,7 @@ public class Cavern {
     /**
      * Return the number of rows in the grid.
      */
+    @Override
     public int getRowCount() {
         return rows;
     }
@@ -337,6 +810,7 @@ public class Cavern {
     /**
      * Return the number of columns in the grid.
      */
+    @Override
     public int getColumnCount() {
         return cols;
     }
@@ -379,6 +853,48 @@ public class Cavern {
         return tiles[r][c];
     }
 
+    @Override
+    public Tile.Type getTileTypeAt(int r, int c) {
+        return tiles[r][c].getTile().getType();
+    }
+
+    @Override
+    public int getGoldAt(int r, int c) {
+        return tiles[r][c].getTile().getOriginalGold();
+    }
+
+    @Override
+    public int getEdgeWeight(int r, int c, Direction dir) {
+        int nr = r + dir.getRowOffset();
+        int nc = c + dir.getColumnOffset();
+        if (nr < 0 || nr >= rows || nc < 0 || nc >= cols) {
+            return 0;
+        }
+        Node node = tiles[r][c];
+        Node other = tiles[nr][nc];
+        return node.getNeighbours().contains(other) ? node.getEdge(other).length() : 0;
+    }
+
+    @Override
+    public int getEntranceRow() {
+        return entrance.getTile().getRow();
+    }
+
+    @Override
+    public int getEntranceColumn() {
+        return entrance.getTile().getColumn();
+    }
+
+    @Override
+    public int getTargetRow() {
+        return target.getTile().getRow();
+    }
+
+    @Override
+    public int getTargetColumn() {
+        return target.getTile().getColumn();
+    }
+
     /**
      * Package-private implementation of Dijkstra's algorithm that returns
      * only the minimum distance between the given node and the target node for
@@ -386,7 +902,8 @@ public class Cavern {
      * Precondition: {@code start} must be a node in this cavern.
      */
     int minPathLengthToTarget(Node start) {
-
+        long startTime = MIN_PATH.start();
+        int settled = 0;
         InternalMinHeap<Node> frontier = new InternalMinHeap<>();
 
         /** Contains an entry for each node in the Settled and Frontier sets. */
@@ -397,7 +914,10 @@ public class Cavern {
         /// invariant: as in lecture notes
         while (!frontier.isEmpty()) {
             Node f = frontier.poll();
+            settled++;
             if (f.equals(target)) {
+                MIN_PATH_SETTLED.add(settled);
+                MIN_PATH.stop(startTime);
                 return pathWeights.get(f.getId());
             }
 
@@ -428,7 +948,7 @@ public class Cavern {
         nodes.add(rows + ":" + cols + ",trgt:" + target.getId());
         for (Node n : graph) {
             Tile t = n.getTile();
-            String nodeStr = n.getId() + "," + t.getRow() + "," + t.getColumn() + "," + t.getGold() + "," + t.getType().name();
+            String nodeStr = n.getId() + "," + t.getRow() + "," + t.getColumn() + "," + t.getOriginalGold() + "," + t.getType().name();
 
             String edges = n.getExits().stream()
                 .map((e) -> e.getOther(n).getId() + "-" + e.length())
@@ -438,6 +958,17 @@ public class Cavern {
         return nodes;
     }
 
+    /**
+     * An enum representing how random caverns are generated.
+     * REJECTION grows whole caverns until one satisfies the placement constraints,
+     * so the number of attempts (and the random values drawn) varies from cavern to cavern.
+     * SINGLE_PASS grows exactly one cavern and places the orb or entrance so that the
+     * constraints hold. Caverns generated from the same seed differ between the two modes.
+     */
+    public enum GenerationMode {
+        REJECTION, SINGLE_PASS
+    }
+
     /**
      * An enum reprsenting a grid direction.
      */
@@ -459,6 +990,20 @@ public class Cavern {
         public Point getPoint() {
             return dir;
         }
+
+        /**
+         * Return the change in row when moving one tile in this direction.
+         */
+        public int getRowOffset() {
+            return dir.row;
+        }
+
+        /**
+         * Return the change in column when moving one tile in this direction.
+         */
+        public int getColumnOffset() {
+            return dir.col;
+        }
     }
 
     /**
@@ -492,7 +1037,7 @@ public class Cavern {
 
         @Override
         public int hashCode() {
-            return Objects.hash(row, col);
+            return 31 * row + col;
         }
     }
 }
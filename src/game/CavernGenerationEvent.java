@@ -0,0 +1,32 @@
+package game;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Java Flight Recorder event for digging the caverns of a game. Like every event of the game
+ * and the strategies, it is only recorded while a flight recording is running, and costs
+ * nothing otherwise.
+ */
+@Name("caverns.CavernGeneration")
+@Label("Cavern Generation")
+@Description("The caverns of a game being dug")
+@Category({"Caverns", "Game"})
+@StackTrace(false)
+final class CavernGenerationEvent extends jdk.jfr.Event {
+    @Label("Seed")
+    long seed;
+
+    @Label("Layout")
+    @Description("The generation mode, or the topology if the caverns were laid out by one")
+    String layout;
+
+    @Label("Rows")
+    int rows;
+
+    @Label("Columns")
+    int columns;
+}
@@ -0,0 +1,23 @@
+package game;
+
+import java.util.BitSet;
+import java.util.Random;
+
+/**
+ * A way of laying out the open tiles of a cavern.
+ * {@code Cavern.digExploreCavern} and {@code Cavern.digEscapeCavern} accept a generator in
+ * place of their usual random growth, and take care of gold, edge weights and the orb.
+ * See {@code CavernTopology} for the generators provided.
+ */
+@FunctionalInterface
+public interface CavernGenerator {
+    /**
+     * Return the open tiles of a new cavern of size (rows, cols): bit {@code r * cols + c}
+     * is set iff the tile at (r, c) is open. Use rand as the only source of randomness,
+     * so that the same random values always give the same layout.
+     * The layout must have exactly one open tile on the edge of the grid (the entrance), which
+     * is not a corner, and every open tile must be reachable from it.
+     * Precondition: rows >= 5 and cols >= 5.
+     */
+    BitSet dig(int rows, int cols, Random rand);
+}
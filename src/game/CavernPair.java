@@ -0,0 +1,57 @@
+package game;
+
+
+import java.util.Random;
+
+import static game.Constants.*;
+
+/**
+ * The two caverns of one game: the cavern explored to find the orb, and the cavern escaped
+ * from, starting where the orb was. Caverns never change once they are dug (the gold picked
+ * up in a game is kept by the game), so the pair can be dug once and then played any number
+ * of times, on any number of threads at once, by passing it to {@code GameState.playGame}.
+ */
+public record CavernPair(long seed, Cavern exploreCavern, Cavern escapeCavern) {
+    private static final Metrics.Timer DIG = Metrics.timer("cavern.dig");
+
+    /**
+     * Return the caverns of the game with seed seed. The caverns are laid out by generator,
+     * or grown using mode if generator is null.
+     */
+    @SuppressWarnings("try") // the span is only closed
+    public static CavernPair dig(long seed, Cavern.GenerationMode mode, CavernGenerator generator) {
+        long start = DIG.start();
+        CavernGenerationEvent event = FlightEvents.begin(CavernGenerationEvent::new);
+        Random rand = new Random(seed);
+        int ROWS = rand.nextInt(MAX_ROWS - MIN_ROWS + 1) + MIN_ROWS;
+        int COLS = rand.nextInt(MAX_COLS - MIN_COLS + 1) + MIN_COLS;
+        Cavern exploreCavern;
+        Cavern escapeCavern;
+        try (Tracer.Span span = Tracer.span("dig caverns")) {
+            if (generator == null) {
+                exploreCavern = Cavern.digExploreCavern(ROWS, COLS, rand, mode);
+            } else {
+                exploreCavern = Cavern.digExploreCavern(ROWS, COLS, rand, generator);
+            }
+            Tile orbTile = exploreCavern.getTarget().getTile();
+            if (generator == null) {
+                escapeCavern = Cavern.digEscapeCavern(ROWS, COLS, orbTile.getRow(), orbTile.getColumn(), rand, mode);
+            } else {
+                escapeCavern = Cavern.digEscapeCavern(ROWS, COLS, orbTile.getRow(), orbTile.getColumn(), rand,
+                    generator);
+            }
+        }
+        DIG.stop(start);
+        if (event != null) {
+            event.end();
+            if (event.shouldCommit()) {
+                event.seed = seed;
+                event.layout = generator == null ? mode.name() : generator.toString();
+                event.rows = ROWS;
+                event.columns = COLS;
+                event.commit();
+            }
+        }
+        return new CavernPair(seed, exploreCavern, escapeCavern);
+    }
+}
@@ -0,0 +1,222 @@
+package game;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Cavern layouts that are very different from the usual randomly grown caves, for measuring
+ * how strategies behave on awkward maps. Each is a {@code CavernGenerator}, and can be played
+ * by passing it to {@code GameState.runNewGame}.
+ */
+public enum CavernTopology implements CavernGenerator {
+    /**
+     * A perfect maze: a spanning tree of long, winding, one-tile-wide corridors,
+     * so there is exactly one path between any two tiles.
+     */
+    MAZE {
+        @Override
+        public BitSet dig(int rows, int cols, Random rand) {
+            BitSet open = new BitSet(rows * cols);
+            // Corridor tiles are at odd (row, column); the tiles between them are walls
+            // until the maze is carved through them.
+            int[] stack = new int[rows * cols];
+            int size = 0;
+            int start = cellOf(cols, 1 + 2 * rand.nextInt((rows - 1) / 2), 1 + 2 * rand.nextInt((cols - 1) / 2));
+            open.set(start);
+            stack[size++] = start;
+            int[] options = new int[4];
+            while (size > 0) {
+                int cell = stack[size - 1];
+                int nOptions = 0;
+                for (Cavern.Direction dir : Cavern.Direction.values()) {
+                    int r = cell / cols + 2 * dir.getRowOffset();
+                    int c = cell % cols + 2 * dir.getColumnOffset();
+                    if (isInterior(rows, cols, r, c) && !open.get(cellOf(cols, r, c))) {
+                        options[nOptions++] = cellOf(cols, r, c);
+                    }
+                }
+                if (nOptions == 0) {
+                    size--;
+                    continue;
+                }
+                int next = options[rand.nextInt(nOptions)];
+                open.set((cell + next) / 2); // the wall between them
+                open.set(next);
+                stack[size++] = next;
+            }
+            placeEntrance(open, rows, cols, rand);
+            return open;
+        }
+    },
+
+    /**
+     * Large open rooms divided by a few straight walls, each with a single doorway.
+     */
+    ROOMS {
+        /**
+         * Rooms narrower than this in both directions are not divided any further.
+         */
+        private static final int MIN_ROOM_SIZE = 8;
+
+        @Override
+        public BitSet dig(int rows, int cols, Random rand) {
+            BitSet open = new BitSet(rows * cols);
+            for (int r = 1; r < rows - 1; r++) {
+                open.set(cellOf(cols, r, 1), cellOf(cols, r, cols - 1));
+            }
+
+            // Rooms are bounded by odd rows and columns, walls are on even ones and doorways
+            // on odd ones, so a new wall can never block the doorway of an older one.
+            // Each room is held as {top, left, bottom, right}.
+            List<int[]> rooms = new ArrayList<>();
+            rooms.add(new int[]{1, 1, (rows - 2) - (rows % 2 == 0 ? 1 : 0), (cols - 2) - (cols % 2 == 0 ? 1 : 0)});
+            while (!rooms.isEmpty()) {
+                int[] room = rooms.remove(rooms.size() - 1);
+                int height = room[2] - room[0];
+                int width = room[3] - room[1];
+                if (height < MIN_ROOM_SIZE && width < MIN_ROOM_SIZE) {
+                    continue;
+                }
+                if (height >= width) {
+                    int wallRow = room[0] + 1 + 2 * rand.nextInt(height / 2);
+                    int doorCol = room[1] + 2 * rand.nextInt(width / 2 + 1);
+                    for (int c = room[1]; c <= room[3]; c++) {
+                        if (c != doorCol) open.clear(cellOf(cols, wallRow, c));
+                    }
+                    rooms.add(new int[]{room[0], room[1], wallRow - 1, room[3]});
+                    rooms.add(new int[]{wallRow + 1, room[1], room[2], room[3]});
+                } else {
+                    int wallCol = room[1] + 1 + 2 * rand.nextInt(width / 2);
+                    int doorRow = room[0] + 2 * rand.nextInt(height / 2 + 1);
+                    for (int r = room[0]; r <= room[2]; r++) {
+                        if (r != doorRow) open.clear(cellOf(cols, r, wallCol));
+                    }
+                    rooms.add(new int[]{room[0], room[1], room[2], wallCol - 1});
+                    rooms.add(new int[]{room[0], wallCol + 1, room[2], room[3]});
+                }
+            }
+            placeEntrance(open, rows, cols, rand);
+            return open;
+        }
+    },
+
+    /**
+     * A single corridor spiralling inwards from a corner of the grid, with the entrance at
+     * its outer end.
+     */
+    SPIRAL {
+        @Override
+        public BitSet dig(int rows, int cols, Random rand) {
+            BitSet open = new BitSet(rows * cols);
+            Cavern.Direction[] dirs = Cavern.Direction.values();
+            int[][] corners = {{1, 1}, {1, cols - 2}, {rows - 2, cols - 2}, {rows - 2, 1}};
+            int corner = rand.nextInt(corners.length);
+            boolean clockwise = rand.nextBoolean();
+            // Directions are in clockwise order, starting from NORTH; the corridor starts off
+            // along the edge of the grid, in the direction that keeps the grid on its inside.
+            int dir = clockwise ? (corner + 1) % 4 : (corner + 2) % 4;
+            int turn = clockwise ? 1 : 3;
+
+            int r = corners[corner][0];
+            int c = corners[corner][1];
+            open.set(cellOf(cols, r, c));
+            Cavern.Direction back = dirs[(dir + 2) % 4];
+            open.set(cellOf(cols, r + back.getRowOffset(), c + back.getColumnOffset()));
+
+            boolean turned = false;
+            while (true) {
+                int nr = r + dirs[dir].getRowOffset();
+                int nc = c + dirs[dir].getColumnOffset();
+                if (canExtend(open, rows, cols, r, c, nr, nc)) {
+                    open.set(cellOf(cols, nr, nc));
+                    r = nr;
+                    c = nc;
+                    turned = false;
+                } else if (!turned) {
+                    dir = (dir + turn) % 4;
+                    turned = true;
+                } else {
+                    break;
+                }
+            }
+            return open;
+        }
+    },
+
+    /**
+     * A corridor along one side of the grid with long dead-end corridors ("teeth") leading
+     * off it, so that most gold can only be reached by going somewhere and coming back.
+     */
+    COMB {
+        @Override
+        public BitSet dig(int rows, int cols, Random rand) {
+            BitSet open = new BitSet(rows * cols);
+            boolean spineAtTop = rand.nextBoolean();
+            int spineRow = spineAtTop ? 1 : rows - 2;
+            open.set(cellOf(cols, spineRow, 1), cellOf(cols, spineRow, cols - 1));
+
+            int maxLength = rows - 3;
+            for (int c = 1; c < cols - 1; c += 2) {
+                int length = maxLength / 2 + rand.nextInt(maxLength - maxLength / 2 + 1);
+                for (int i = 1; i <= length; i++) {
+                    open.set(cellOf(cols, spineAtTop ? spineRow + i : spineRow - i, c));
+                }
+            }
+
+            open.set(cellOf(cols, spineRow, rand.nextBoolean() ? 0 : cols - 1));
+            return open;
+        }
+    };
+
+    /**
+     * Return the index of the tile at (r, c) in a grid with cols columns.
+     */
+    private static int cellOf(int cols, int r, int c) {
+        return r * cols + c;
+    }
+
+    /**
+     * Return true iff (r, c) is on a grid of size (rows, cols) but not on its edge.
+     */
+    private static boolean isInterior(int rows, int cols, int r, int c) {
+        return r > 0 && r < rows - 1 && c > 0 && c < cols - 1;
+    }
+
+    /**
+     * Return true iff a corridor at (r, c) can be extended to (nr, nc) without touching any
+     * open tile other than (r, c), and without reaching the edge of the grid.
+     */
+    private static boolean canExtend(BitSet open, int rows, int cols, int r, int c, int nr, int nc) {
+        if (!isInterior(rows, cols, nr, nc) || open.get(cellOf(cols, nr, nc))) {
+            return false;
+        }
+        for (Cavern.Direction dir : Cavern.Direction.values()) {
+            int ar = nr + dir.getRowOffset();
+            int ac = nc + dir.getColumnOffset();
+            if ((ar != r || ac != c) && open.get(cellOf(cols, ar, ac))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Open a random tile on the edge of the grid (not a corner) that is next to an open tile,
+     * to be the entrance.
+     * Precondition: some tile next to the edge of the grid is open.
+     */
+    private static void placeEntrance(BitSet open, int rows, int cols, Random rand) {
+        List<Integer> candidates = new ArrayList<>();
+        for (int r = 1; r < rows - 1; r++) {
+            if (open.get(cellOf(cols, r, 1))) candidates.add(cellOf(cols, r, 0));
+            if (open.get(cellOf(cols, r, cols - 2))) candidates.add(cellOf(cols, r, cols - 1));
+        }
+        for (int c = 1; c < cols - 1; c++) {
+            if (open.get(cellOf(cols, 1, c))) candidates.add(cellOf(cols, 0, c));
+            if (open.get(cellOf(cols, rows - 2, c))) candidates.add(cellOf(cols, rows - 1, c));
+        }
+        open.set(candidates.get(rand.nextInt(candidates.size())));
+    }
+}
@@ -0,0 +1,62 @@
+package game;
+
+/**
+ * Read-only queries on the grid of a cavern, in terms of rows and columns rather than
+ * {@code Node}s, so that they can be answered by storage that holds no Node objects.
+ * Edges only ever join tiles that are next to each other on the grid.
+ */
+public interface CavernView {
+    /**
+     * Return the number of rows in the grid.
+     */
+    int getRowCount();
+
+    /**
+     * Return the number of columns in the grid.
+     */
+    int getColumnCount();
+
+    /**
+     * Return the number of open (non-wall) tiles in the grid.
+     */
+    int numOpenTiles();
+
+    /**
+     * Return the type of the tile at (r, c).
+     * Precondition: ({@code r}, {@code c}) must be in the grid.
+     */
+    Tile.Type getTileTypeAt(int r, int c);
+
+    /**
+     * Return the amount of gold on the tile at (r, c).
+     * Precondition: ({@code r}, {@code c}) must be in the grid.
+     */
+    int getGoldAt(int r, int c);
+
+    /**
+     * Return the weight of the edge from (r, c) to the tile next to it in direction dir,
+     * or 0 if there is no such edge.
+     * Precondition: ({@code r}, {@code c}) must be in the grid.
+     */
+    int getEdgeWeight(int r, int c, Cavern.Direction dir);
+
+    /**
+     * Return the row of the entrance.
+     */
+    int getEntranceRow();
+
+    /**
+     * Return the column of the entrance.
+     */
+    int getEntranceColumn();
+
+    /**
+     * Return the row of the target.
+     */
+    int getTargetRow();
+
+    /**
+     * Return the column of the target.
+     */
+    int getTargetColumn();
+}
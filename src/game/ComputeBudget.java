@@ -0,0 +1,35 @@
+package game;
+
+/**
+ * Limits on how long an explorer may compute in each phase of a game, so that one slow strategy
+ * cannot hold up a whole run. An explorer that goes over the limit for a phase is stopped, and
+ * fails that phase just as if it had thrown an exception.
+ * <p>
+ * A limit is in milliseconds of wall-clock time, or of the CPU time used by the strategy if
+ * cpuTime is true; a limit of 0 means there is no limit. Limits are checked every few
+ * milliseconds, so a phase may run a little over before it is stopped.
+ */
+public record ComputeBudget(long exploreMillis, long escapeMillis, boolean cpuTime) {
+    /**
+     * No limit on either phase. Games are played exactly as they were before budgets existed,
+     * on the thread that plays the game.
+     */
+    public static final ComputeBudget UNLIMITED = new ComputeBudget(0, 0, false);
+
+    /**
+     * Constructor: limits of exploreMillis and escapeMillis on the explore and escape phases.
+     * Throw an IllegalArgumentException if either is negative.
+     */
+    public ComputeBudget {
+        if (exploreMillis < 0 || escapeMillis < 0) {
+            throw new IllegalArgumentException("ComputeBudget: limits must not be negative");
+        }
+    }
+
+    /**
+     * Return true iff there is a limit on either phase.
+     */
+    public boolean isLimited() {
+        return exploreMillis > 0 || escapeMillis > 0;
+    }
+}
@@ -9,4 +9,6 @@ public final class Constants {
     static final double MIN_BONUS = 1.0;
     static final double EXTRA_TIME_FACTOR = 0.3;     //bigger is nicer - addition to total multiplier
     static final double NO_BONUS_LENGTH = 3;
+    static final int GUI_EVENT_CAPACITY = 256;       //events the GUI can fall behind by, when asynchronous
+    static final double PLANNING_SHARE = 0.75;       //share of an escape budget spent planning, if asked
 }
@@ -0,0 +1,149 @@
+package game;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * An instance is a what-if copy of the escape phase: it can be moved around the cavern and
+ * pick up gold, just as in the game, without affecting the game. Use
+ * {@code EscapeState.simulate()} to start one from the current state of the game.
+ * <p>
+ * Simulations are cheap to fork, so that many candidate routes can be tried from the same
+ * point: {@code fork()} takes constant time however much gold has been picked up, and the gold
+ * picked up is only copied when a fork picks up more.
+ * An instance must only be used by one thread at a time, but different forks may be used on
+ * different threads at once (see {@code simulateAll}).
+ */
+public final class EscapeSimulation {
+    private final Cavern cavern;
+    private final GoldTaken goldTaken;
+    private Node position;
+    private int timeRemaining;
+    private int goldCollected;
+
+    /**
+     * Constructor: a simulation in cavern, at position with timeRemaining left, having collected
+     * goldCollected gold from the tiles in goldTaken, which belongs to the simulation.
+     */
+    /* package */ EscapeSimulation(Cavern cavern, Node position, int timeRemaining, int goldCollected,
+                                   GoldTaken goldTaken) {
+        this.cavern = cavern;
+        this.position = position;
+        this.timeRemaining = timeRemaining;
+        this.goldCollected = goldCollected;
+        this.goldTaken = goldTaken;
+    }
+
+    /**
+     * Return a new simulation in the same state as this one, which changes independently of it.
+     */
+    public EscapeSimulation fork() {
+        return new EscapeSimulation(cavern, position, timeRemaining, goldCollected, goldTaken.fork());
+    }
+
+    /**
+     * Return a fork of start for each route in routes, which has followed that route (see
+     * {@code follow}), picking up gold along it if pickUpGold is true. The routes are followed
+     * in parallel. start is not changed.
+     */
+    public static List<EscapeSimulation> simulateAll(EscapeSimulation start, List<List<Node>> routes,
+                                                     boolean pickUpGold) {
+        List<EscapeSimulation> forks = new ArrayList<>(routes.size());
+        for (int i = 0; i < routes.size(); i++) {
+            forks.add(start.fork());
+        }
+        IntStream.range(0, routes.size()).parallel().forEach(i -> forks.get(i).follow(routes.get(i), pickUpGold));
+        return forks;
+    }
+
+    /**
+     * Return the node the simulation is at.
+     */
+    public Node getCurrentNode() {
+        return position;
+    }
+
+    /**
+     * Return the time remaining in the simulation.
+     */
+    public int getTimeRemaining() {
+        return timeRemaining;
+    }
+
+    /**
+     * Return the gold collected in the game and the simulation so far.
+     */
+    public int getGoldCollected() {
+        return goldCollected;
+    }
+
+    /**
+     * Return true iff the simulation is at the exit.
+     */
+    public boolean isAtExit() {
+        return position.equals(cavern.getTarget());
+    }
+
+    /**
+     * Return the amount of gold on n in the simulation.
+     */
+    public int getGold(Node n) {
+        return goldTaken.contains(cellOf(n)) ? 0 : n.getTile().getOriginalGold();
+    }
+
+    /**
+     * Move to n and return true, or return false without moving if there is not enough time
+     * left to reach n.
+     * Throw an IllegalArgumentException if n is not a neighbour of the current node.
+     */
+    public boolean moveTo(Node n) {
+        int distance = position.getEdge(n).length;
+        if (distance > timeRemaining) {
+            return false;
+        }
+        position = n;
+        timeRemaining -= distance;
+        return true;
+    }
+
+    /**
+     * Pick up the gold on the current node, if there is any, and return the amount picked up.
+     */
+    public int pickUpGold() {
+        int gold = getGold(position);
+        if (gold > 0) {
+            goldCollected += gold;
+            goldTaken.add(cellOf(position));
+        }
+        return gold;
+    }
+
+    /**
+     * Move along route, picking up the gold on each node reached if pickUpGold is true, and
+     * return this simulation. A route may start with the current node, which is not moved to
+     * (and whose gold is not picked up). Stop at the first node there is not enough time left
+     * to reach.
+     * Throw an IllegalArgumentException if a node on the route is not a neighbour of the
+     * one before it.
+     */
+    public EscapeSimulation follow(List<Node> route, boolean pickUpGold) {
+        int start = !route.isEmpty() && route.get(0).equals(position) ? 1 : 0;
+        for (Node n : route.subList(start, route.size())) {
+            if (!moveTo(n)) {
+                break;
+            }
+            if (pickUpGold) {
+                pickUpGold();
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Return the index of n's tile in goldTaken.
+     */
+    private int cellOf(Node n) {
+        return n.getTile().getRow() * cavern.getColumnCount() + n.getTile().getColumn();
+    }
+}
@@ -1,6 +1,8 @@
 package game;
 
 import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * The state of the game while escaping from the cavern.
@@ -36,6 +38,19 @@ public interface EscapeState {
      */
     void moveTo(Node n);
 
+    /**
+     * Move along path, one neighbour after another, as if by calling moveTo(Node) on each
+     * node in turn (path may start with your current location, which is skipped); if
+     * collectGold is true, pick up the gold on every node reached that still has some.
+     * The whole path is checked before you move, and the display is updated once at the end,
+     * so this is much cheaper than moving one node at a time.
+     * <p>
+     * Throw an IllegalArgumentException, without moving, if some node of path is not a
+     * neighbour of the one before it. If time runs out part way along, you stop on the last
+     * node you could reach and an OutOfTimeException is thrown, just as moveTo(Node) would.
+     */
+    void followPath(List<Node> path, boolean collectGold);
+
     /**
      * Picks up any gold on the current tile.
      * You must first check that there is gold before picking it up.
@@ -45,6 +60,38 @@ public interface EscapeState {
      */
     void pickUpGold();
 
+    /**
+     * Return the amount of gold on n now: the gold its tile started with, or 0 if you have
+     * picked it up already. (A tile's {@code getOriginalGold()} is the gold it started with.)
+     */
+    int getGold(Node n);
+
+    /**
+     * Return a simulation of the rest of the escape, starting from the current state, in which
+     * you can try out a route (or many, by forking it) without affecting the game.
+     * This takes constant time however far the escape has got.
+     */
+    EscapeSimulation simulate();
+
+    /**
+     * Plan an escape without moving, and then follow the best route planned. planner is called
+     * with a sink, to which it should offer every complete route to the exit it finds that is
+     * better than those before (offering the shortest route first is a good idea).
+     * If getPlanningMillis() is not 0, planner is stopped when that much time has passed,
+     * even if it has not returned. Then the route offered that collects the most gold and still
+     * reaches the exit in time is followed, as if by followPath(route, true).
+     * <p>
+     * Throw an IllegalStateException if no route that reaches the exit in time was offered,
+     * and anything planner throws (other than by being stopped).
+     */
+    void planAndFollow(Consumer<RouteSink> planner);
+
+    /**
+     * Return how long, in milliseconds, planAndFollow lets a planner plan before following the
+     * best route it has offered, or 0 if there is no limit.
+     */
+    long getPlanningMillis();
+
     /**
      * Return the time remaining to escape from the cavern.
      * This value changes with every call to moveTo(Node),
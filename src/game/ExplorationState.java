@@ -38,4 +38,13 @@ public interface ExplorationState {
      * Throw an IllegalArgumentException if id is not a neihgbor of your current location.
      */
     void moveTo(long id);
+
+    /**
+     * Move to each of the nodes specified by ids in turn, as if by calling moveTo(long) on
+     * each of them, but checking the whole route before moving and updating the display once
+     * at the end.
+     * Throw an IllegalArgumentException, without moving, if some id is not a neighbour of the
+     * node before it (the first must be a neighbour of your current location).
+     */
+    void moveAlong(long[] ids);
 }
@@ -0,0 +1,40 @@
+package game;
+
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+
+import java.util.function.Supplier;
+
+/**
+ * Starts the Java Flight Recorder events of the game and the strategies, so that each is only
+ * made while a flight recording may be running:
+ * <pre>
+ *     ShortestPathEvent event = FlightEvents.begin(ShortestPathEvent::new);
+ *     ... the work being recorded ...
+ *     if (event != null) {
+ *         event.end();
+ *         if (event.shouldCommit()) {
+ *             ... set the event's fields ...
+ *             event.commit();
+ *         }
+ *     }
+ * </pre>
+ */
+public final class FlightEvents {
+    private FlightEvents() {
+    }
+
+    /**
+     * Return a new event made by factory, already begun, or null if no flight recording has been
+     * started in this JVM. Making an event loads the flight recorder, which would cost every run
+     * time and memory, so none is made until a recording has loaded it.
+     */
+    public static <E extends Event> E begin(Supplier<E> factory) {
+        if (!FlightRecorder.isInitialized()) {
+            return null;
+        }
+        E event = factory.get();
+        event.begin();
+        return event;
+    }
+}
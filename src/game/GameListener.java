@@ -0,0 +1,91 @@
+package game;
+
+import java.util.List;
+
+/**
+ * An instance is told about everything that happens in a game as it is played, for example in
+ * order to display it. Every method does nothing by default, so an implementation need only
+ * override those for the events it cares about; {@code NONE} ignores them all, and costs a
+ * headless game nothing.
+ * <p>
+ * A method may block until the event has been shown (the GUI waits for each move to finish),
+ * and the game does not continue until it returns.
+ */
+public interface GameListener {
+    /**
+     * A listener that ignores every event.
+     */
+    GameListener NONE = new GameListener() {};
+
+    /**
+     * The game has moved to cavern c, which is lit iff the explorer is escaping, and in which
+     * timeRemaining steps are allowed (0 while exploring).
+     */
+    default void cavernChanged(Cavern c, boolean lit, int timeRemaining) {
+    }
+
+    /**
+     * The explorer has moved to n.
+     */
+    default void moved(Node n) {
+    }
+
+    /**
+     * The explorer has moved to n; call shown (on any thread) once the move has been shown.
+     * This lets an asynchronous listener wait for an animation without blocking its thread.
+     * By default, this calls moved(n) and then shown.
+     */
+    default void moved(Node n, Runnable shown) {
+        moved(n);
+        shown.run();
+    }
+
+    /**
+     * The explorer has passed through the nodes of path, one after another, in moves that are
+     * not being shown; only what they change (which tiles have been seen, where the explorer is)
+     * need be. By default, this is reported as a call to movedAlong(path).
+     */
+    default void passedThrough(List<Node> path) {
+        movedAlong(path);
+    }
+
+    /**
+     * The explorer has moved along path, one node after another, in a single call.
+     * By default, this is reported as a call to moved(Node) for each node.
+     */
+    default void movedAlong(List<Node> path) {
+        for (Node n : path) {
+            moved(n);
+        }
+    }
+
+    /**
+     * The bonus multiplier has changed to bonus.
+     */
+    default void bonusChanged(double bonus) {
+    }
+
+    /**
+     * The gold on n has been picked up.
+     */
+    default void goldPickedUp(Node n) {
+    }
+
+    /**
+     * The gold collected so far has changed to coins, giving a score of score.
+     */
+    default void coinsChanged(int coins, int score) {
+    }
+
+    /**
+     * The time remaining to escape has changed to timeRemaining.
+     */
+    default void timeChanged(int timeRemaining) {
+    }
+
+    /**
+     * Something has gone wrong with the game, as described by message.
+     */
+    default void error(String message) {
+    }
+}
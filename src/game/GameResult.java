@@ -0,0 +1,39 @@
+package game;
+
+import java.text.DecimalFormat;
+
+/**
+ * The outcome of one game, as returned by {@code GameState.playGame}.
+ * The compute times are CPU time used by the thread running the explorer, and allocatedBytes is
+ * the memory that thread allocated, while the explorer was exploring and escaping; each is -1
+ * if the JVM cannot measure it. exploreOverBudget and escapeOverBudget are true iff the explorer
+ * was stopped for going over its {@code ComputeBudget} in that phase. exploreAllocatedBytes and
+ * escapeAllocatedBytes split allocatedBytes between the phases, and are -1 for a phase that was
+ * not played.
+ */
+public record GameResult(long seed,
+                         int stepsTaken,
+                         int minSteps,
+                         int goldCollected,
+                         double bonusMultiplier,
+                         int score,
+                         boolean exploreSucceeded,
+                         boolean escapeSucceeded,
+                         long exploreCpuNanos,
+                         long escapeCpuNanos,
+                         long allocatedBytes,
+                         boolean exploreOverBudget,
+                         boolean escapeOverBudget,
+                         long exploreAllocatedBytes,
+                         long escapeAllocatedBytes) {
+    /**
+     * Return the lines reporting the gold, bonus multiplier and score of this game, as they
+     * are printed after each game.
+     */
+    public String summary() {
+        DecimalFormat df = new DecimalFormat("#.##");
+        return "Gold collected   : " + goldCollected + System.lineSeparator()
+            + "Bonus multiplier : " + df.format(bonusMultiplier) + System.lineSeparator()
+            + "Score            : " + score + System.lineSeparator();
+    }
+}
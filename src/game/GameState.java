@@ -3,27 +3,56 @@ package game;
 import gui.GUI;
 import student.Explorer;
 
+import java.io.BufferedOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.text.DecimalFormat;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
 
 import static game.Constants.*;
 
 public class GameState implements ExplorationState, EscapeState {
-
-    private static final Random rand;
-
-    static {
-        rand = new Random();
-    }
+    /**
+     * How often a CPU-time budget is checked while a phase runs
+     */
+    private static final long BUDGET_POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+    /**
+     * How long a phase that went over budget is given to stop once interrupted, before it is
+     * reported as still running
+     */
+    private static final long RUNAWAY_GRACE_MILLIS = 100;
+    /**
+     * The threads of phases or planners, in any game, that went over budget and had not stopped
+     * when last checked. They ignore interrupts and compete with later games for the CPU.
+     */
+    private static final Set<Thread> STILL_RUNNING = ConcurrentHashMap.newKeySet();
+    private static final Metrics.Timer EXPLORE_PHASE = Metrics.timer("game.explore");
+    private static final Metrics.Timer ESCAPE_PHASE = Metrics.timer("game.escape");
+    private static final Metrics.Counter EXPLORE_MOVES = Metrics.counter("game.exploreMoves");
+    private static final Metrics.Counter ESCAPE_MOVES = Metrics.counter("game.escapeMoves");
+    private static final Metrics.Counter GOLD_PICKED_UP = Metrics.counter("game.goldPickedUp");
 
     private final Cavern exploreCavern;
     private final Cavern escapeCavern;
     private final Explorer explorer;
-    private final Optional<GUI> gui;
+    private final GameListener listener;
+    private final ComputeBudget budget;
+    /**
+     * The tiles of the escape cavern whose gold has been picked up in this game,
+     * indexed by row * (number of columns) + column
+     */
+    private final GoldTaken goldTaken = new GoldTaken();
     private final long seed;
+    private final PrintStream err;
     private final int minTimeToExplore;
     private Node position;
     private int stepsTaken;
@@ -34,6 +63,33 @@ public class GameState implements ExplorationState, EscapeState {
     private boolean escapeSucceeded = false;
     private boolean exploreErrored = false;
     private boolean escapeErrored = false;
+    private long exploreCpuNanos = -1;
+    private long escapeCpuNanos = -1;
+    private long allocatedBytes = 0;
+    private long exploreAllocatedBytes = -1;
+    private long escapeAllocatedBytes = -1;
+    private boolean exploreOverBudget = false;
+    private boolean escapeOverBudget = false;
+    /**
+     * The compute time and memory used by planAndFollow's planner, when it runs on a thread of
+     * its own; counted as part of the escape
+     */
+    private long planningCpuNanos = 0;
+    private long planningAllocatedBytes = 0;
+    /**
+     * The threads of phases or planners that went over budget and may still be running;
+     * they may no longer change the game. A thread is added while holding stateLock.
+     */
+    private final Set<Thread> runaways = ConcurrentHashMap.newKeySet();
+    /**
+     * Held while the game is changed, after checking that the changing thread is not a runaway,
+     * and while a thread is made one, so that a runaway can't change the game once it is one
+     */
+    private final Object stateLock = new Object();
+    /**
+     * Records every move made, or null if the game is not being logged
+     */
+    private MoveLog.Recorder moves;
 
     public GameState(Path exploreCavernPath, Path escapeCavernPath) throws IOException {
         exploreCavern = Cavern.deserialize(Files.readAllLines(exploreCavernPath));
@@ -48,59 +104,229 @@ public class GameState implements ExplorationState, EscapeState {
         goldCollected = 0;
 
         seed = -1;
+        err = System.err;
+        budget = ComputeBudget.UNLIMITED;
 
         stage = Stage.EXPLORE;
-        gui = Optional.of(new GUI(exploreCavern, position.getTile().getRow(), position.getTile().getColumn(), 0));
+        listener = newGui(exploreCavern, position, 0, null);
     }
 
     /**
      * Constructor: a random instance with a GUI only if useGUI is true.
+     * The randomness is based on seed. The caverns are laid out by generator, or
+     * grown using mode if generator is null. The game is played by explorer, and anything that
+     * goes wrong is reported on err.
      */
-    private GameState(boolean useGui) {
-        this(rand.nextLong(), useGui);
+    private GameState(long seed, boolean useGui, Cavern.GenerationMode mode, CavernGenerator generator,
+                      Explorer explorer, PrintStream err) {
+        this(CavernPair.dig(seed, mode, generator), useGui, null, explorer, ComputeBudget.UNLIMITED, err);
     }
 
     /**
-     * Constructor: a random instance with a GUI only if useGUI is true.
-     * The randomness is based on seed.
+     * Constructor: an instance playing caverns, with a GUI only if useGUI is true.
+     * The GUI is updated asynchronously following events, or synchronously if events is null.
+     * The game is played by explorer within budget, and anything that goes wrong is reported on err.
      */
-    private GameState(long seed, boolean useGui) {
-        Random rand = new Random(seed);
-        int ROWS = rand.nextInt(MAX_ROWS - MIN_ROWS + 1) + MIN_ROWS;
-        int COLS = rand.nextInt(MAX_COLS - MIN_COLS + 1) + MIN_COLS;
-        exploreCavern = Cavern.digExploreCavern(ROWS, COLS, rand);
+    private GameState(CavernPair caverns, boolean useGui, AsyncGameListener.Policy events,
+                      Explorer explorer, ComputeBudget budget, PrintStream err) {
+        exploreCavern = caverns.exploreCavern();
+        escapeCavern = caverns.escapeCavern();
         minTimeToExplore = exploreCavern.minPathLengthToTarget(exploreCavern.getEntrance());
-        Tile orbTile = exploreCavern.getTarget().getTile();
-        escapeCavern = Cavern.digEscapeCavern(ROWS, COLS, orbTile.getRow(), orbTile.getColumn(), rand);
+        long seed = caverns.seed();
 
         position = exploreCavern.getEntrance();
         stepsTaken = 0;
         timeRemaining = Integer.MAX_VALUE;
         goldCollected = 0;
 
-        explorer = new Explorer();
+        this.explorer = explorer;
         stage = Stage.EXPLORE;
 
         this.seed = seed;
+        this.err = err;
+        this.budget = budget;
 
-        if (useGui) {
-            gui = Optional.of(new GUI(exploreCavern, position.getTile().getRow(),
-                position.getTile().getColumn(), seed));
-        } else {
-            gui = Optional.empty();
-        }
+        listener = useGui ? newGui(exploreCavern, position, seed, events) : GameListener.NONE;
+    }
+
+    /**
+     * Return a new GUI showing cavern with the explorer on position, for the game with seed seed,
+     * updated asynchronously following events, or synchronously if events is null.
+     * This is the only place the GUI is referred to, so headless games never load it (or AWT).
+     */
+    private static GameListener newGui(Cavern cavern, Node position, long seed,
+                                       AsyncGameListener.Policy events) {
+        GameListener gui = new GUI(cavern, position.getTile().getRow(), position.getTile().getColumn(), seed);
+        return events == null ? gui : new AsyncGameListener(gui, GUI_EVENT_CAPACITY, events);
     }
 
     public static int runNewGame(long seed, boolean useGui) {
-        GameState state;
-        if (seed != 0) {
-            state = new GameState(seed, useGui);
-        } else {
-            state = new GameState(useGui);
+        return runNewGame(seed, useGui, Cavern.GenerationMode.REJECTION);
+    }
+
+    /**
+     * Run a new game with a GUI only if useGui is true, generating its caverns using mode,
+     * and return the score. A seed of 0 means a random seed is used.
+     */
+    public static int runNewGame(long seed, boolean useGui, Cavern.GenerationMode mode) {
+        return runNewGame(seed, useGui, mode, null);
+    }
+
+    /**
+     * Run a new game with a GUI only if useGui is true, and return the score.
+     * The caverns are laid out by generator, or grown using mode if generator is null.
+     * A seed of 0 means a random seed is used.
+     */
+    public static int runNewGame(long seed, boolean useGui, Cavern.GenerationMode mode,
+                                 CavernGenerator generator) {
+        return runNewGame(seed, useGui, mode, generator, System.out, System.err);
+    }
+
+    /**
+     * As {@code runNewGame(seed, useGui, mode, generator)}, but reporting the results of the
+     * game on out and anything that goes wrong on err instead of the console.
+     * Games share no mutable state, so any number may run at once on different threads,
+     * as long as none of them uses a GUI.
+     */
+    public static int runNewGame(long seed, boolean useGui, Cavern.GenerationMode mode,
+                                 CavernGenerator generator, PrintStream out, PrintStream err) {
+        if (seed == 0) {
+            seed = ThreadLocalRandom.current().nextLong();
+        }
+        out.println("Seed : " + seed);
+        return report(playGame(seed, useGui, mode, generator, err), out);
+    }
+
+    /**
+     * Run a new game with a GUI that is updated asynchronously following events, so that the
+     * game runs at full speed however long the GUI takes to show it, and return the score.
+     * The caverns are laid out by generator, or grown using mode if generator is null.
+     * A seed of 0 means a random seed is used.
+     */
+    public static int runNewGame(long seed, Cavern.GenerationMode mode, CavernGenerator generator,
+                                 AsyncGameListener.Policy events) {
+        if (seed == 0) {
+            seed = ThreadLocalRandom.current().nextLong();
+        }
+        System.out.println("Seed : " + seed);
+        GameState state = new GameState(CavernPair.dig(seed, mode, generator), true, events,
+            new Explorer(), ComputeBudget.UNLIMITED, System.err);
+        state.run();
+        return report(state.getResult(), System.out);
+    }
+
+    /**
+     * Print the summary of result on out if the explore phase succeeded, and return its score.
+     */
+    private static int report(GameResult result, PrintStream out) {
+        if (result.exploreSucceeded()) {
+            out.print(result.summary());
+        }
+        return result.score();
+    }
+
+    /**
+     * Play a game with a GUI only if useGui is true, and return everything that is known about
+     * how it went. Nothing is printed unless something goes wrong, which is reported on err,
+     * so the caller decides how (and whether) to report the result.
+     * The caverns are laid out by generator, or grown using mode if generator is null.
+     * A seed of 0 means a random seed is used.
+     */
+    public static GameResult playGame(long seed, boolean useGui, Cavern.GenerationMode mode,
+                                      CavernGenerator generator, PrintStream err) {
+        return playGame(seed, useGui, mode, generator, new Explorer(), err);
+    }
+
+    /**
+     * As {@code playGame(seed, useGui, mode, generator, err)}, but played by explorer
+     * instead of an explorer with the default strategies.
+     */
+    public static GameResult playGame(long seed, boolean useGui, Cavern.GenerationMode mode,
+                                      CavernGenerator generator, Explorer explorer, PrintStream err) {
+        if (seed == 0) {
+            seed = ThreadLocalRandom.current().nextLong();
         }
-        System.out.println("Seed : " + state.seed);
+        GameState state = new GameState(seed, useGui, mode, generator, explorer, err);
         state.run();
-        return state.getScore();
+        return state.getResult();
+    }
+
+    /**
+     * Play a game without a GUI, with explorer kept within budget, and return everything that
+     * is known about how it went. Anything that goes wrong is reported on err.
+     * The caverns are laid out by generator, or grown using mode if generator is null.
+     * A seed of 0 means a random seed is used.
+     */
+    public static GameResult playGame(long seed, Cavern.GenerationMode mode, CavernGenerator generator,
+                                      Explorer explorer, ComputeBudget budget, PrintStream err) {
+        if (seed == 0) {
+            seed = ThreadLocalRandom.current().nextLong();
+        }
+        return playGame(CavernPair.dig(seed, mode, generator), explorer, budget, err);
+    }
+
+    /**
+     * As {@code playGame(seed, mode, generator, explorer, budget, err)}, but also writing a log
+     * of every move made to the file moveLog (see MoveLog), unless moveLog is null.
+     */
+    public static GameResult playGame(long seed, Cavern.GenerationMode mode, CavernGenerator generator,
+                                      Explorer explorer, ComputeBudget budget, PrintStream err, Path moveLog) {
+        if (seed == 0) {
+            seed = ThreadLocalRandom.current().nextLong();
+        }
+        return playGame(CavernPair.dig(seed, mode, generator), explorer, budget, err, moveLog);
+    }
+
+    /**
+     * Play caverns, without a GUI, with explorer and return everything that is known about how
+     * the game went. Anything that goes wrong is reported on err.
+     * caverns is not changed, so the same caverns can be played by any number of explorers,
+     * on any number of threads at once.
+     */
+    public static GameResult playGame(CavernPair caverns, Explorer explorer, PrintStream err) {
+        return playGame(caverns, explorer, ComputeBudget.UNLIMITED, err);
+    }
+
+    /**
+     * As {@code playGame(caverns, explorer, err)}, but keeping explorer within budget.
+     */
+    public static GameResult playGame(CavernPair caverns, Explorer explorer, ComputeBudget budget,
+                                      PrintStream err) {
+        return playGame(caverns, explorer, budget, err, null);
+    }
+
+    /**
+     * As {@code playGame(caverns, explorer, budget, err)}, but also writing a log of every move
+     * made to the file moveLog (see MoveLog), unless moveLog is null. If the log can't be
+     * written, that is reported on err.
+     */
+    public static GameResult playGame(CavernPair caverns, Explorer explorer, ComputeBudget budget,
+                                      PrintStream err, Path moveLog) {
+        GameState state = new GameState(caverns, false, null, explorer, budget, err);
+        if (moveLog != null) {
+            state.moves = new MoveLog.Recorder(caverns);
+        }
+        state.run();
+        if (moveLog != null) {
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(moveLog))) {
+                state.moves.toLog().writeTo(out);
+            } catch (IOException e) {
+                err.println("Couldn't write the move log to " + moveLog + ": " + e.getMessage());
+            }
+        }
+        return state.getResult();
+    }
+
+    /**
+     * Play caverns with explorer, with a GUI that is updated asynchronously following events,
+     * or synchronously if events is null, and return everything that is known about how the
+     * game went. Anything that goes wrong is reported on err.
+     */
+    public static GameResult playGame(CavernPair caverns, Explorer explorer, AsyncGameListener.Policy events,
+                                      PrintStream err) {
+        GameState state = new GameState(caverns, true, events, explorer, ComputeBudget.UNLIMITED, err);
+        state.run();
+        return state.getResult();
     }
 
     /**
@@ -108,36 +334,58 @@ public class GameState implements ExplorationState, EscapeState {
      */
     private void run() {
         // TODO: In the error cases we should really pop something up!
-        explore();
-        if (!exploreSucceeded) return;
-        escape();
+        try {
+            explore();
+            if (!exploreSucceeded) return;
+            escape();
+        } finally {
+            // Let an asynchronous GUI catch up with the end of the game.
+            if (listener instanceof AsyncGameListener async) {
+                async.close();
+            }
+        }
     }
 
+    @SuppressWarnings("try") // the span is only closed
     void explore() {
         stage = Stage.EXPLORE;
         stepsTaken = 0;
         exploreSucceeded = false;
         position = exploreCavern.getEntrance();
-        gui.ifPresent((g) -> g.setLighting(false));
-        gui.ifPresent((g) -> g.updateCavern(exploreCavern, 0));
-        gui.ifPresent((g) -> g.moveTo(position));
+        listener.cavernChanged(exploreCavern, false, 0);
+        listener.moved(position);
 
+        long start = EXPLORE_PHASE.start();
+        PhaseUsage usage;
+        try (Tracer.Span span = Tracer.span("explore")) {
+            usage = runPhase(() -> explorer.explore(this), budget.exploreMillis());
+        }
+        EXPLORE_PHASE.stop(start);
+        exploreCpuNanos = usage.cpuNanos();
+        exploreAllocatedBytes = usage.allocatedBytes();
+        addAllocatedBytes(exploreAllocatedBytes);
         try {
-            explorer.explore(this);
+            if (usage.thrown() != null) {
+                throw usage.thrown();
+            }
             if (position.equals(exploreCavern.getTarget())) {
                 exploreSucceeded = true;
             } else {
-                output(gui, "Your solution to explore returned at the wrong location.");
+                output("Your solution to explore returned at the wrong location.");
             }
+        } catch (OverBudgetException e) {
+            exploreOverBudget = true;
+            output("Your solution to explore went over its compute budget of " + budget.exploreMillis() + " ms.");
         } catch (Throwable t) {
-            output(gui, "Your code caused an error  during the explore phase. Please see console output.");
-            System.err.println("We will move on to the escape phase anyway, but your solution is not correct!");
-            System.err.println("Here is the error that occurred.");
-            t.printStackTrace();
+            output("Your code caused an error  during the explore phase. Please see console output.");
+            err.println("We will move on to the escape phase anyway, but your solution is not correct!");
+            err.println("Here is the error that occurred.");
+            t.printStackTrace(err);
             exploreErrored = true;
         }
     }
 
+    @SuppressWarnings("try") // the span is only closed
     void escape() {
         stage = Stage.ESCAPE;
         Tile orbTile = exploreCavern.getTarget().getTile();
@@ -146,32 +394,151 @@ public class GameState implements ExplorationState, EscapeState {
             timeRemaining = computeTimeToEscape();
         } else {
             timeRemaining = escapeCavern.minPathLengthToTarget(position);
-            gui.ifPresent((g) -> g.moveTo(position));
+            listener.moved(position);
+        }
+        if (moves != null) {
+            moves.escaping(position);
         }
 
-        gui.ifPresent((g) -> g.setLighting(true));
-        gui.ifPresent((g) -> g.updateCavern(escapeCavern, timeRemaining));
+        listener.cavernChanged(escapeCavern, true, timeRemaining);
 
+        long start = ESCAPE_PHASE.start();
+        PhaseUsage usage;
+        try (Tracer.Span span = Tracer.span("escape")) {
+            usage = runPhase(() -> explorer.escape(this), budget.escapeMillis());
+        }
+        ESCAPE_PHASE.stop(start);
+        escapeCpuNanos = ThreadUsage.sum(usage.cpuNanos(), planningCpuNanos);
+        escapeAllocatedBytes = ThreadUsage.sum(usage.allocatedBytes(), planningAllocatedBytes);
+        addAllocatedBytes(escapeAllocatedBytes);
         try {
-            explorer.escape(this);
+            if (usage.thrown() != null) {
+                throw usage.thrown();
+            }
             if (position.equals(escapeCavern.getTarget())) {
                 escapeSucceeded = true;
             }
         } catch (OutOfTimeException e) {
-            output(gui, "Your solution to escape ran out of steps before returning!");
+            output("Your solution to escape ran out of steps before returning!");
+        } catch (OverBudgetException e) {
+            escapeOverBudget = true;
+            output("Your solution to escape went over its compute budget of " + budget.escapeMillis() + " ms.");
         } catch (Throwable t) {
-            output(gui, "Your code caused an error during the escape phase. Please see console output.");
-            t.printStackTrace();
+            output("Your code caused an error during the escape phase. Please see console output.");
+            t.printStackTrace(err);
             escapeErrored = true;
         }
 
         if (!escapeSucceeded) {
-            output(gui, "Your solution to escape failed to end at the stairs. Your code is not correct!");
+            output("Your solution to escape failed to end at the stairs. Your code is not correct!");
+        }
+    }
+
+    /**
+     * Run phase, limited to limitMillis of compute time as measured by the budget (no limit if
+     * limitMillis is 0), and return the resources it used and what it threw.
+     * A limited phase runs on a thread of its own while this thread watches the budget. If the
+     * phase goes over, its thread is interrupted and left behind, and may not change the game
+     * any more, and the phase is reported as having thrown an OverBudgetException.
+     */
+    private PhaseUsage runPhase(Runnable phase, long limitMillis) {
+        if (limitMillis == 0) {
+            return measure(phase);
+        }
+
+        FutureTask<PhaseUsage> task = new FutureTask<>(() -> measure(phase));
+        Thread worker = new Thread(task, "explorer-" + seed);
+        worker.setDaemon(true);
+        long limitNanos = TimeUnit.MILLISECONDS.toNanos(limitMillis);
+        long start = System.nanoTime();
+        worker.start();
+        Throwable thrown = new OverBudgetException();
+        try {
+            while (true) {
+                long used = budget.cpuTime() ? ThreadUsage.cpuNanos(worker) : -1;
+                if (used < 0) {
+                    used = System.nanoTime() - start;
+                }
+                if (used >= limitNanos) {
+                    break;
+                }
+                long wait = budget.cpuTime() ? Math.min(limitNanos - used, BUDGET_POLL_NANOS) : limitNanos - used;
+                try {
+                    return task.get(wait, TimeUnit.NANOSECONDS);
+                } catch (TimeoutException e) {
+                    // Check the budget again.
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            thrown = e;
+        } catch (ExecutionException e) {
+            // measure() catches everything the phase throws, so this can't happen.
+            throw new IllegalStateException("runPhase: phase failed", e.getCause());
+        }
+
+        synchronized (stateLock) {
+            // Any change the worker was making is complete, and it can't make another.
+            runaways.add(worker);
+        }
+        PhaseUsage usage = new PhaseUsage(ThreadUsage.cpuNanos(worker), ThreadUsage.allocatedBytes(worker), thrown);
+        worker.interrupt();
+        reportIfStillRunning(worker);
+        return usage;
+    }
+
+    /**
+     * Give worker, a thread that went over budget and has been interrupted, a moment to stop;
+     * if it doesn't, report it and any others that are still running on err.
+     */
+    private void reportIfStillRunning(Thread worker) {
+        try {
+            worker.join(RUNAWAY_GRACE_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        STILL_RUNNING.removeIf(t -> !t.isAlive());
+        if (worker.isAlive()) {
+            STILL_RUNNING.add(worker);
+            err.println("Warning: " + worker.getName() + " went over its budget and ignores interrupts; "
+                + STILL_RUNNING.size() + " such thread(s) are still running and slowing later games.");
+        }
+    }
+
+    /**
+     * Return the number of threads, in any game, that went over budget and were still running
+     * when last checked.
+     */
+    static int stillRunningCount() {
+        STILL_RUNNING.removeIf(t -> !t.isAlive());
+        return STILL_RUNNING.size();
+    }
+
+    /**
+     * Run phase on this thread, and return the resources it used and what it threw.
+     */
+    private static PhaseUsage measure(Runnable phase) {
+        long startCpu = ThreadUsage.cpuNanos();
+        long startAllocated = ThreadUsage.allocatedBytes();
+        Throwable thrown = null;
+        try {
+            phase.run();
+        } catch (Throwable t) {
+            thrown = t;
+        }
+        return new PhaseUsage(ThreadUsage.difference(startCpu, ThreadUsage.cpuNanos()),
+            ThreadUsage.difference(startAllocated, ThreadUsage.allocatedBytes()), thrown);
+    }
+
+    /**
+     * Throw an OverBudgetException if this is the thread of a phase that went over budget, so
+     * that it stops as soon as it next asks anything of the game. A method that changes the game
+     * calls this again, and makes the change, while holding stateLock.
+     */
+    private void checkNotRunaway() {
+        if (!runaways.isEmpty() && runaways.contains(Thread.currentThread())) {
+            throw new OverBudgetException();
         }
-        System.out.println("Gold collected   : " + getGoldCollected());
-        DecimalFormat df = new DecimalFormat("#.##");
-        System.out.println("Bonus multiplier : " + df.format(computeBonusFactor()));
-        System.out.println("Score            : " + getScore());
     }
 
     /**
@@ -200,27 +567,84 @@ public class GameState implements ExplorationState, EscapeState {
      */
     @Override
     public void moveTo(long id) {
+        checkNotRunaway();
         if (stage != Stage.EXPLORE) {
             throw new IllegalStateException("moveTo(ID) can only be called while exploring!");
         }
 
         for (Node n : position.getNeighbours()) {
             if (n.getId() == id) {
-                position = n;
-                stepsTaken++;
-                gui.ifPresent((g) -> g.updateBonus(computeBonusFactor()));
-                gui.ifPresent((g) -> g.moveTo(n));
+                synchronized (stateLock) {
+                    checkNotRunaway();
+                    position = n;
+                    stepsTaken++;
+                    EXPLORE_MOVES.increment();
+                    if (moves != null) {
+                        moves.moved(n);
+                    }
+                }
+                listener.bonusChanged(computeBonusFactor());
+                listener.moved(n);
                 return;
             }
         }
         throw new IllegalArgumentException("moveTo: Node must be adjacent to position");
     }
 
+    /**
+     * See ExplorationState.moveAlong(long[]).
+     */
+    @Override
+    public void moveAlong(long[] ids) {
+        checkNotRunaway();
+        if (stage != Stage.EXPLORE) {
+            throw new IllegalStateException("moveAlong(long[]) can only be called while exploring!");
+        }
+
+        Node[] route = new Node[ids.length];
+        Node prev = position;
+        for (int i = 0; i < ids.length; i++) {
+            route[i] = neighbourWithId(prev, ids[i]);
+            prev = route[i];
+        }
+        if (route.length == 0) {
+            return;
+        }
+
+        synchronized (stateLock) {
+            checkNotRunaway();
+            position = prev;
+            stepsTaken += route.length;
+            EXPLORE_MOVES.add(route.length);
+            if (moves != null) {
+                for (Node n : route) {
+                    moves.moved(n);
+                }
+            }
+        }
+        listener.bonusChanged(computeBonusFactor());
+        listener.movedAlong(Arrays.asList(route));
+    }
+
+    /**
+     * Return the neighbour of n whose id is id.
+     * Throw an IllegalArgumentException if there is none.
+     */
+    private static Node neighbourWithId(Node n, long id) {
+        for (Node nb : n.getNeighbours()) {
+            if (nb.getId() == id) {
+                return nb;
+            }
+        }
+        throw new IllegalArgumentException("moveAlong: each Node must be adjacent to the one before it");
+    }
+
     /**
      * Returns the unique id of the current location.
      */
     @Override
     public long getCurrentLocation() {
+        checkNotRunaway();
         if (stage != Stage.EXPLORE) {
             throw new IllegalStateException("getLocation() can only be called while exploring!");
         }
@@ -234,6 +658,7 @@ public class GameState implements ExplorationState, EscapeState {
      */
     @Override
     public Collection<NodeStatus> getNeighbours() {
+        checkNotRunaway();
         if (stage != Stage.EXPLORE) {
             throw new IllegalStateException("getNeighbours() can only be called while exploring!");
         }
@@ -256,6 +681,7 @@ public class GameState implements ExplorationState, EscapeState {
      */
     @Override
     public int getDistanceToTarget() {
+        checkNotRunaway();
         if (stage != Stage.EXPLORE) {
             throw new IllegalStateException("getDistanceToTarget() can only be called while exploring!");
         }
@@ -265,6 +691,7 @@ public class GameState implements ExplorationState, EscapeState {
 
     @Override
     public Node getCurrentNode() {
+        checkNotRunaway();
         if (stage != Stage.ESCAPE) {
             throw new IllegalStateException("getCurrentNode: Error, " +
                 "current Node may not be accessed unless in ESCAPE");
@@ -274,6 +701,7 @@ public class GameState implements ExplorationState, EscapeState {
 
     @Override
     public Node getExit() {
+        checkNotRunaway();
         if (stage != Stage.ESCAPE) {
             throw new IllegalStateException("getEntrance: Error, " +
                 "current Node may not be accessed unless in ESCAPE");
@@ -283,6 +711,7 @@ public class GameState implements ExplorationState, EscapeState {
 
     @Override
     public Collection<Node> getVertices() {
+        checkNotRunaway();
         if (stage != Stage.ESCAPE) {
             throw new IllegalStateException("getVertices: Error, " +
                 "Vertices may not be accessed unless in ESCAPE");
@@ -300,6 +729,7 @@ public class GameState implements ExplorationState, EscapeState {
      */
     @Override
     public void moveTo(Node n) {
+        checkNotRunaway();
         if (stage != Stage.ESCAPE) {
             throw new IllegalStateException("moveTo(Node) can only be called when escaping!");
         }
@@ -309,10 +739,17 @@ public class GameState implements ExplorationState, EscapeState {
         }
 
         if (position.getNeighbours().contains(n)) {
-            position = n;
-            timeRemaining -= distance;
-            gui.ifPresent((g) -> g.updateTimeRemaining(timeRemaining));
-            gui.ifPresent((g) -> g.moveTo(n));
+            synchronized (stateLock) {
+                checkNotRunaway();
+                position = n;
+                timeRemaining -= distance;
+                ESCAPE_MOVES.increment();
+                if (moves != null) {
+                    moves.moved(n);
+                }
+            }
+            listener.timeChanged(timeRemaining);
+            listener.moved(n);
         } else {
             throw new IllegalArgumentException("moveTo: Node must be adjacent to position");
         }
@@ -320,23 +757,180 @@ public class GameState implements ExplorationState, EscapeState {
 
     @Override
     public void pickUpGold() {
+        checkNotRunaway();
         if (stage != Stage.ESCAPE) {
             throw new IllegalStateException("pickUpGold() can only be called while escaping!");
-        } else if (position.getTile().getGold() <= 0) {
+        } else if (getGold(position) <= 0) {
             throw new IllegalStateException("pickUpGold: Error, no gold on this tile");
         }
-        goldCollected += position.getTile().takeGold();
-        gui.ifPresent((g) -> g.updateCoins(goldCollected, getScore()));
+        synchronized (stateLock) {
+            checkNotRunaway();
+            goldCollected += getGold(position);
+            goldTaken.add(cellOf(position));
+            GOLD_PICKED_UP.increment();
+            if (moves != null) {
+                moves.pickedUp();
+            }
+        }
+        listener.goldPickedUp(position);
+        listener.coinsChanged(goldCollected, getScore());
+    }
+
+    /**
+     * See EscapeState.followPath(List, boolean).
+     */
+    @Override
+    public void followPath(List<Node> path, boolean collectGold) {
+        checkNotRunaway();
+        if (stage != Stage.ESCAPE) {
+            throw new IllegalStateException("followPath() can only be called when escaping!");
+        }
+
+        int first = !path.isEmpty() && path.get(0).equals(position) ? 1 : 0;
+        int[] distances = new int[path.size()];
+        Node prev = position;
+        for (int i = first; i < path.size(); i++) {
+            Node n = path.get(i);
+            if (!prev.getNeighbours().contains(n)) {
+                throw new IllegalArgumentException("followPath: each Node must be adjacent to the one before it");
+            }
+            distances[i] = prev.getEdge(n).length;
+            prev = n;
+        }
+
+        List<Node> goldNodes = new ArrayList<>();
+        int last = first;
+        try {
+            for (; last < path.size(); last++) {
+                if (timeRemaining - distances[last] < 0) {
+                    throw new OutOfTimeException();
+                }
+                synchronized (stateLock) {
+                    // Checked at every step, so a runaway stops part of the way along.
+                    checkNotRunaway();
+                    position = path.get(last);
+                    timeRemaining -= distances[last];
+                    if (moves != null) {
+                        moves.moved(position);
+                    }
+                    if (collectGold && getGold(position) > 0) {
+                        goldCollected += getGold(position);
+                        goldTaken.add(cellOf(position));
+                        goldNodes.add(position);
+                        if (moves != null) {
+                            moves.pickedUp();
+                        }
+                    }
+                }
+            }
+        } finally {
+            // One update for the whole path, however far along it we got.
+            ESCAPE_MOVES.add(last - first);
+            GOLD_PICKED_UP.add(goldNodes.size());
+            if (last > first) {
+                listener.movedAlong(path.subList(first, last));
+                goldNodes.forEach(listener::goldPickedUp);
+                listener.timeChanged(timeRemaining);
+                listener.coinsChanged(goldCollected, getScore());
+            }
+        }
+    }
+
+    /**
+     * See EscapeState.planAndFollow(Consumer).
+     */
+    @Override
+    @SuppressWarnings("try") // the span is only closed
+    public void planAndFollow(Consumer<RouteSink> planner) {
+        checkNotRunaway();
+        if (stage != Stage.ESCAPE) {
+            throw new IllegalStateException("planAndFollow() can only be called while escaping!");
+        }
+
+        BestRoute best = new BestRoute(simulate());
+        long limitMillis = getPlanningMillis();
+        PhaseUsage usage;
+        try (Tracer.Span span = Tracer.span("plan").arg("limitMillis", limitMillis)) {
+            usage = runPhase(() -> planner.accept(best), limitMillis);
+        }
+        List<Node> route = best.close();
+        if (limitMillis > 0) {
+            // The planner ran on a thread of its own, which the escape phase doesn't measure.
+            planningCpuNanos = ThreadUsage.sum(planningCpuNanos, usage.cpuNanos());
+            planningAllocatedBytes = ThreadUsage.sum(planningAllocatedBytes, usage.allocatedBytes());
+        }
+
+        Throwable thrown = usage.thrown();
+        if (thrown instanceof RuntimeException e && !(thrown instanceof OverBudgetException)) {
+            throw e;
+        } else if (thrown instanceof Error e) {
+            throw e;
+        } else if (thrown instanceof InterruptedException) {
+            throw new IllegalStateException("planAndFollow: interrupted while planning", thrown);
+        }
+        if (route == null) {
+            throw new IllegalStateException("planAndFollow: no route to the exit was offered in time");
+        }
+        followPath(route, true);
+    }
+
+    @Override
+    public long getPlanningMillis() {
+        checkNotRunaway();
+        long limit = budget.escapeMillis();
+        return limit == 0 ? 0 : Math.max(1, (long) (limit * PLANNING_SHARE));
+    }
+
+    @Override
+    public int getGold(Node n) {
+        checkNotRunaway();
+        if (stage != Stage.ESCAPE) {
+            throw new IllegalStateException("getGold() can only be called while escaping!");
+        }
+        return goldTaken.contains(cellOf(n)) ? 0 : n.getTile().getOriginalGold();
+    }
+
+    @Override
+    public EscapeSimulation simulate() {
+        checkNotRunaway();
+        if (stage != Stage.ESCAPE) {
+            throw new IllegalStateException("simulate() can only be called while escaping!");
+        }
+        return new EscapeSimulation(escapeCavern, position, timeRemaining, goldCollected, goldTaken.fork());
+    }
+
+    /**
+     * Return the index of n's tile in goldTaken.
+     */
+    private int cellOf(Node n) {
+        return n.getTile().getRow() * escapeCavern.getColumnCount() + n.getTile().getColumn();
     }
 
     @Override
     public int getTimeRemaining() {
+        checkNotRunaway();
         if (stage != Stage.ESCAPE) {
             throw new IllegalStateException("getTimeRemaining() can only be called while escaping!");
         }
         return timeRemaining;
     }
 
+    /**
+     * Add bytes to the memory allocated by the explorer, where -1 means it could not be measured.
+     */
+    private void addAllocatedBytes(long bytes) {
+        allocatedBytes = ThreadUsage.sum(allocatedBytes, bytes);
+    }
+
+    /**
+     * Return the result of this game so far.
+     */
+    GameResult getResult() {
+        return new GameResult(seed, stepsTaken, minTimeToExplore, goldCollected, computeBonusFactor(),
+            getScore(), exploreSucceeded, escapeSucceeded, exploreCpuNanos, escapeCpuNanos, allocatedBytes,
+            exploreOverBudget, escapeOverBudget, exploreAllocatedBytes, escapeAllocatedBytes);
+    }
+
     int getGoldCollected() {
         return goldCollected;
     }
@@ -366,9 +960,9 @@ public class GameState implements ExplorationState, EscapeState {
         return escapeErrored;
     }
 
-    private void output(Optional<GUI> gui, String s) {
-        System.err.println(s);
-        gui.ifPresent((g) -> g.displayError(s));
+    private void output(String s) {
+        err.println(s);
+        listener.error(s);
     }
 
     private enum Stage {
@@ -378,4 +972,18 @@ public class GameState implements ExplorationState, EscapeState {
     @SuppressWarnings("serial")
     private static class OutOfTimeException extends RuntimeException {
     }
+
+    /**
+     * Thrown when a phase goes over its compute budget
+     */
+    @SuppressWarnings("serial")
+    private static class OverBudgetException extends RuntimeException {
+    }
+
+    /**
+     * The CPU time and memory used by one phase of the game (each -1 if it could not be
+     * measured), and what it threw (null if nothing).
+     */
+    private record PhaseUsage(long cpuNanos, long allocatedBytes, Throwable thrown) {
+    }
 }
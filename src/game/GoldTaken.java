@@ -0,0 +1,58 @@
+package game;
+
+import java.util.BitSet;
+
+/**
+ * An instance records which tiles of a cavern have had their gold picked up in one game,
+ * by cell index (row * (number of columns) + column).
+ * A record can be forked in constant time: the fork and the original share their cells
+ * until one of them changes, which copies them first (copy-on-write).
+ */
+final class GoldTaken {
+    private BitSet cells;
+    /**
+     * True iff cells may also belong to another record, and so must be copied before changing
+     */
+    private boolean shared;
+
+    /**
+     * Constructor: a record in which no gold has been picked up.
+     */
+    GoldTaken() {
+        cells = new BitSet();
+    }
+
+    /**
+     * Constructor: a record sharing cells with another record.
+     */
+    private GoldTaken(BitSet cells) {
+        this.cells = cells;
+        shared = true;
+    }
+
+    /**
+     * Return true iff the gold on cell has been picked up.
+     */
+    boolean contains(int cell) {
+        return cells.get(cell);
+    }
+
+    /**
+     * Record that the gold on cell has been picked up.
+     */
+    void add(int cell) {
+        if (shared) {
+            cells = (BitSet) cells.clone();
+            shared = false;
+        }
+        cells.set(cell);
+    }
+
+    /**
+     * Return a record that starts out the same as this one, but changes independently of it.
+     */
+    GoldTaken fork() {
+        shared = true;
+        return new GoldTaken(cells);
+    }
+}
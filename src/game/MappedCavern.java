@@ -0,0 +1,504 @@
+package game;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * An instance is a cavern stored in a file rather than on the heap, for caverns too large to
+ * be held as a {@code Cavern} (e.g. 50,000 x 50,000 tiles). The file is memory-mapped, and
+ * only the parts of it that are actually read are paged in.
+ * <p>
+ * Caverns are grown in the same way as {@code Cavern.generateGraph}, with one entrance on the
+ * edge of the grid and an orb on some other open tile, and are rejected and grown again, as
+ * explore caverns are, until the orb is at least the minimum orb distance ((rows + cols) / 2
+ * steps) from the entrance. Only the layout and the edge weights are stored; there is no gold.
+ * The file holds, after a small header:
+ * 1. a bitmap with one bit per tile in row-major order, set iff the tile is open;
+ * 2. one byte per tile in row-major order, holding the weight of the edge to the tile to the
+ * south in its low four bits and of the edge to the tile to the east in its high four bits
+ * (0 if there is no such edge).
+ */
+public class MappedCavern implements CavernView, Closeable {
+    private static final int MAGIC = 0x54474d43; // "TGMC"
+    private static final int HEADER_SIZE = 64;
+
+    private final MappedPages pages;
+    private final int rows;
+    private final int cols;
+    private final int entranceRow;
+    private final int entranceCol;
+    private final int targetRow;
+    private final int targetCol;
+    private final int openCount;
+    private final long weightsOffset;
+
+    /**
+     * Constructor: an instance reading the cavern described by header from pages.
+     */
+    private MappedCavern(MappedPages pages, ByteBuffer header) {
+        this.pages = pages;
+        rows = header.getInt(4);
+        cols = header.getInt(8);
+        entranceRow = header.getInt(12);
+        entranceCol = header.getInt(16);
+        targetRow = header.getInt(20);
+        targetCol = header.getInt(24);
+        openCount = header.getInt(28);
+        weightsOffset = HEADER_SIZE + bitmapSize(rows, cols);
+    }
+
+    /**
+     * Generate a new random cavern of size (rows, cols) into file, replacing anything already
+     * there, and return it open for reading.
+     * If weighted is true, edge weights are random (as in an escape cavern), otherwise they are
+     * all 1 (as in an explore cavern). Use rand as a source of randomness for the generation.
+     * The random values are drawn as {@code Cavern} draws them, so an unweighted cavern is the
+     * explore cavern that {@code Cavern.digExploreCavern(rows, cols, rand)} would dig.
+     * Precondition: the grid is at least as large as a game's (8 x 12), so that the orb can be
+     * placed far enough from the entrance.
+     */
+    public static MappedCavern generate(Path file, int rows, int cols, Random rand, boolean weighted)
+        throws IOException {
+        long size = HEADER_SIZE + bitmapSize(rows, cols) + (long) rows * cols;
+        try (FileChannel channel = FileChannel.open(file, CREATE, TRUNCATE_EXISTING, READ, WRITE)) {
+            // Extend the (sparse) file to its full size, so that every byte starts as zero.
+            channel.write(ByteBuffer.allocate(1), size - 1);
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(0, MAGIC).putInt(4, rows).putInt(8, cols);
+            try (MappedPages writer = new MappedPages(channel, FileChannel.MapMode.READ_WRITE, size)) {
+                new Generator(writer, rows, cols, rand, weighted).generate(header);
+                writer.force();
+                channel.write(header, 0);
+            }
+        }
+        return open(file);
+    }
+
+    /**
+     * Open the cavern in file for reading.
+     * Precondition: {@code file} was written by {@code generate()}.
+     */
+    public static MappedCavern open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, READ);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        channel.read(header, 0);
+        if (header.getInt(0) != MAGIC) {
+            channel.close();
+            throw new IOException(file + " is not a mapped cavern");
+        }
+        int rows = header.getInt(4);
+        int cols = header.getInt(8);
+        long size = HEADER_SIZE + bitmapSize(rows, cols) + (long) rows * cols;
+        return new MappedCavern(new MappedPages(channel, FileChannel.MapMode.READ_ONLY, size), header);
+    }
+
+    /**
+     * Return the number of bytes needed for a bitmap of (rows, cols) tiles.
+     */
+    private static long bitmapSize(int rows, int cols) {
+        return ((long) rows * cols + 7) / 8;
+    }
+
+    @Override
+    public int getRowCount() {
+        return rows;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return cols;
+    }
+
+    @Override
+    public int getEntranceRow() {
+        return entranceRow;
+    }
+
+    @Override
+    public int getEntranceColumn() {
+        return entranceCol;
+    }
+
+    @Override
+    public int getTargetRow() {
+        return targetRow;
+    }
+
+    @Override
+    public int getTargetColumn() {
+        return targetCol;
+    }
+
+    /**
+     * Return true iff the tile at (r, c) is open (i.e. not a wall).
+     * Precondition: ({@code r}, {@code c}) must be in the grid.
+     */
+    public boolean isOpen(int r, int c) {
+        long cell = (long) r * cols + c;
+        return (pages.get(HEADER_SIZE + (cell >>> 3)) & (1 << (cell & 7))) != 0;
+    }
+
+    /**
+     * Return the number of open tiles (or Integer.MAX_VALUE, if there are more than that).
+     */
+    @Override
+    public int numOpenTiles() {
+        return openCount;
+    }
+
+    @Override
+    public Tile.Type getTileTypeAt(int r, int c) {
+        if (r == entranceRow && c == entranceCol) return Tile.Type.ENTRANCE;
+        if (r == targetRow && c == targetCol) return Tile.Type.ORB;
+        return isOpen(r, c) ? Tile.Type.FLOOR : Tile.Type.WALL;
+    }
+
+    /**
+     * Return 0: mapped caverns hold no gold.
+     */
+    @Override
+    public int getGoldAt(int r, int c) {
+        return 0;
+    }
+
+    @Override
+    public int getEdgeWeight(int r, int c, Cavern.Direction dir) {
+        return switch (dir) {
+            case SOUTH -> r < rows - 1 ? weights(r, c) & 0xf : 0;
+            case EAST -> c < cols - 1 ? (weights(r, c) >>> 4) & 0xf : 0;
+            case NORTH -> r > 0 ? weights(r - 1, c) & 0xf : 0;
+            case WEST -> c > 0 ? (weights(r, c - 1) >>> 4) & 0xf : 0;
+        };
+    }
+
+    /**
+     * Return the byte of edge weights stored for (r, c).
+     */
+    private int weights(int r, int c) {
+        return pages.get(weightsOffset + (long) r * cols + c);
+    }
+
+    /**
+     * Return the number of 1GB pages of the file that have been mapped so far.
+     */
+    public int mappedPageCount() {
+        return pages.mappedPageCount();
+    }
+
+    /**
+     * Close the file behind this cavern. It must not be used afterwards.
+     */
+    @Override
+    public void close() throws IOException {
+        pages.close();
+    }
+
+    /**
+     * An instance grows a single cavern into a writable mapped file.
+     * While growing, the byte for each tile in the edge weights area is used to mark the
+     * tiles that have been seen; every one of these bytes is overwritten once the edges
+     * are created.
+     */
+    private static class Generator {
+        /**
+         * The marks in the edge weights area of a tile seen while growing, of a tile reached
+         * while measuring the distance to the orb, and of a tile seen while finding the order
+         * in which tiles were opened
+         */
+        private static final byte SEEN = 1;
+        private static final byte REACHED = 2;
+        private static final byte ORDERED = 3;
+
+        private final MappedPages pages;
+        private final int rows;
+        private final int cols;
+        private final Random rand;
+        private final boolean weighted;
+        private final long weightsOffset;
+
+        /**
+         * Constructor: an instance writing a cavern of size (rows, cols) into pages.
+         */
+        private Generator(MappedPages pages, int rows, int cols, Random rand, boolean weighted) {
+            this.pages = pages;
+            this.rows = rows;
+            this.cols = cols;
+            this.rand = rand;
+            this.weighted = weighted;
+            weightsOffset = HEADER_SIZE + bitmapSize(rows, cols);
+        }
+
+        /**
+         * Grow the cavern and place the orb, starting again until the orb is far enough from the
+         * entrance, then create the edges, recording the entrance and orb positions in header.
+         */
+        private void generate(ByteBuffer header) {
+            int minOrbDist = Cavern.minOrbDistance(rows, cols);
+            long entrance;
+            long openCount;
+            long target;
+            while (true) {
+                entrance = getEntranceCell();
+                openCount = growFrom(entrance);
+
+                // Grab a random open tile that's not the entrance and make it the target,
+                // counting tiles in the order they were opened, as Cavern does.
+                long targetIdx = openCount - 1 <= Integer.MAX_VALUE
+                    ? rand.nextInt((int) (openCount - 1))
+                    : Math.floorMod(rand.nextLong(), openCount - 1);
+                target = openCell(entrance, targetIdx);
+                if (isAtLeast(minOrbDist, entrance, target)) {
+                    break;
+                }
+                pages.clear(HEADER_SIZE, weightsOffset + (long) rows * cols);
+            }
+            createEdges();
+
+            header.putInt(12, (int) (entrance / cols)).putInt(16, (int) (entrance % cols));
+            header.putInt(20, (int) (target / cols)).putInt(24, (int) (target % cols));
+            header.putInt(28, (int) Math.min(openCount, Integer.MAX_VALUE));
+        }
+
+        /**
+         * Randomly determine and return the cell of the entrance to the cavern
+         * (as in {@code Cavern.getEntrancePoint}).
+         */
+        private long getEntranceCell() {
+            return switch (rand.nextInt(4)) {
+                case 0 -> cellOf(rand.nextInt(rows - 2) + 1, 0);
+                case 1 -> cellOf(rand.nextInt(rows - 2) + 1, cols - 1);
+                case 2 -> cellOf(0, rand.nextInt(cols - 2) + 1);
+                case 3 -> cellOf(rows - 1, rand.nextInt(cols - 2) + 1);
+                default -> throw new IllegalStateException("Unexpected random value!");
+            };
+        }
+
+        /**
+         * Randomly grow the cavern outwards from start, as in {@code Cavern.growGraph},
+         * and return the number of open cells (start included).
+         */
+        private long growFrom(long start) {
+            LongQueue frontier = new LongQueue();
+            long[] newExits = new long[4];
+            long openCount = 1;
+
+            setSeen(start);
+            setOpen(start);
+            frontier.add(start);
+            while (!frontier.isEmpty()) {
+                long cell = frontier.remove();
+                int r = (int) (cell / cols);
+                int c = (int) (cell % cols);
+
+                int existingExits = 0;
+                int nExits = 0;
+                for (Cavern.Direction dir : Cavern.Direction.values()) {
+                    int nr = r + dir.getRowOffset();
+                    int nc = c + dir.getColumnOffset();
+                    if (nr > 0 && nr < rows - 1 && nc > 0 && nc < cols - 1) {
+                        long newCell = cellOf(nr, nc);
+                        if (isOpen(newCell)) {
+                            existingExits++;
+                        } else if (!isSeen(newCell)) {
+                            setSeen(newCell);
+                            newExits[nExits++] = newCell;
+                        }
+                    }
+                }
+
+                if (nExits > 0) {
+                    double modifiedDensity;
+                    long forcedExit;
+                    if (existingExits < 2) {
+                        modifiedDensity = (nExits == 1 ? 0.0 : (nExits * Cavern.DENSITY - 1) / (nExits - 1));
+                        forcedExit = newExits[rand.nextInt(nExits)];
+                    } else {
+                        modifiedDensity = Cavern.DENSITY;
+                        forcedExit = -1;
+                    }
+                    for (int i = 0; i < nExits; i++) {
+                        long q = newExits[i];
+                        if (q == forcedExit || rand.nextDouble() < modifiedDensity) {
+                            setOpen(q);
+                            openCount++;
+                            frontier.add(q);
+                        }
+                    }
+                }
+            }
+            return openCount;
+        }
+
+        /**
+         * Return the cell of the index'th open cell opened after entrance by {@code growFrom}
+         * (counting from 0), which is the node {@code Cavern.generateGraph} makes the target.
+         * Cells are opened when they are first seen, so the order is found by growing again
+         * from entrance through the open cells, without drawing any random values. The cells
+         * seen are marked in the edge weights area, which createEdges overwrites.
+         */
+        private long openCell(long entrance, long index) {
+            LongQueue frontier = new LongQueue();
+            long opened = 0;
+            setOrdered(entrance);
+            frontier.add(entrance);
+            while (!frontier.isEmpty()) {
+                long cell = frontier.remove();
+                int r = (int) (cell / cols);
+                int c = (int) (cell % cols);
+                for (Cavern.Direction dir : Cavern.Direction.values()) {
+                    int nr = r + dir.getRowOffset();
+                    int nc = c + dir.getColumnOffset();
+                    if (nr > 0 && nr < rows - 1 && nc > 0 && nc < cols - 1) {
+                        long newCell = cellOf(nr, nc);
+                        if (!isOrdered(newCell)) {
+                            setOrdered(newCell);
+                            if (isOpen(newCell)) {
+                                if (opened++ == index) {
+                                    return newCell;
+                                }
+                                frontier.add(newCell);
+                            }
+                        }
+                    }
+                }
+            }
+            throw new IllegalStateException("openCell: there are not " + (index + 1) + " open cells");
+        }
+
+        /**
+         * Return true iff every path from entrance to target through open cells takes at least
+         * distance steps. The cells searched are marked in the edge weights area, which
+         * createEdges overwrites.
+         */
+        private boolean isAtLeast(int distance, long entrance, long target) {
+            LongQueue level = new LongQueue();
+            setReached(entrance);
+            level.add(entrance);
+            for (int d = 0; d < distance && !level.isEmpty(); d++) {
+                LongQueue next = new LongQueue();
+                while (!level.isEmpty()) {
+                    long cell = level.remove();
+                    if (cell == target) {
+                        return false;
+                    }
+                    int r = (int) (cell / cols);
+                    int c = (int) (cell % cols);
+                    for (Cavern.Direction dir : Cavern.Direction.values()) {
+                        int nr = r + dir.getRowOffset();
+                        int nc = c + dir.getColumnOffset();
+                        if (nr >= 0 && nr < rows && nc >= 0 && nc < cols) {
+                            long newCell = cellOf(nr, nc);
+                            if (isOpen(newCell) && !isReached(newCell)) {
+                                setReached(newCell);
+                                next.add(newCell);
+                            }
+                        }
+                    }
+                }
+                level = next;
+            }
+            return true;
+        }
+
+        /**
+         * Write the edge weights of every cell, in the same order as {@code Cavern.createEdges}.
+         */
+        private void createEdges() {
+            for (int i = 0; i < rows; i++) {
+                for (int j = 0; j < cols; j++) {
+                    long cell = cellOf(i, j);
+                    int weights = 0;
+                    if (isOpen(cell) && i < rows - 1 && j < cols - 1) {
+                        if (isOpen(cell + cols)) weights |= nextWeight();
+                        if (isOpen(cell + 1)) weights |= nextWeight() << 4;
+                    }
+                    pages.put(weightsOffset + cell, (byte) weights);
+                }
+            }
+        }
+
+        /**
+         * Return the weight of the next edge.
+         */
+        private int nextWeight() {
+            return weighted ? rand.nextInt(Cavern.MAX_EDGE_WEIGHT) + 1 : 1;
+        }
+
+        private long cellOf(int r, int c) {
+            return (long) r * cols + c;
+        }
+
+        private boolean isOpen(long cell) {
+            return (pages.get(HEADER_SIZE + (cell >>> 3)) & (1 << (cell & 7))) != 0;
+        }
+
+        private void setOpen(long cell) {
+            long offset = HEADER_SIZE + (cell >>> 3);
+            pages.put(offset, (byte) (pages.get(offset) | (1 << (cell & 7))));
+        }
+
+        private boolean isSeen(long cell) {
+            return pages.get(weightsOffset + cell) != 0;
+        }
+
+        private void setSeen(long cell) {
+            pages.put(weightsOffset + cell, SEEN);
+        }
+
+        private boolean isReached(long cell) {
+            return pages.get(weightsOffset + cell) == REACHED;
+        }
+
+        private void setReached(long cell) {
+            pages.put(weightsOffset + cell, REACHED);
+        }
+
+        private boolean isOrdered(long cell) {
+            return pages.get(weightsOffset + cell) == ORDERED;
+        }
+
+        private void setOrdered(long cell) {
+            pages.put(weightsOffset + cell, ORDERED);
+        }
+    }
+
+    /**
+     * An instance is a FIFO queue of longs, held in a circular array that doubles in size
+     * when it fills up.
+     */
+    private static class LongQueue {
+        private long[] b = new long[1024];
+        private int head; // index of the first element
+        private int size; // number of elements in the queue
+
+        private boolean isEmpty() {
+            return size == 0;
+        }
+
+        private void add(long x) {
+            if (size == b.length) {
+                long[] bigger = Arrays.copyOf(b, 2 * b.length);
+                // Unwrap the elements that had wrapped around to the start.
+                System.arraycopy(b, 0, bigger, b.length, head);
+                b = bigger;
+            }
+            b[(head + size) & (b.length - 1)] = x;
+            size++;
+        }
+
+        private long remove() {
+            long x = b[head];
+            head = (head + 1) & (b.length - 1);
+            size--;
+            return x;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package game;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * An instance is a byte-addressable view of a (possibly very large) file, mapped into memory
+ * one page at a time the first time that page is touched.
+ * A single MappedByteBuffer cannot be larger than 2GB, so files larger than that are split
+ * into fixed-size pages, each of which is mapped separately.
+ */
+class MappedPages implements Closeable {
+    /**
+     * log2 of the page size: pages are 1GB.
+     */
+    private static final int PAGE_BITS = 30;
+    private static final long PAGE_MASK = (1L << PAGE_BITS) - 1;
+
+    private final FileChannel channel;
+    private final FileChannel.MapMode mode;
+    private final long size;
+    private final MappedByteBuffer[] pages;
+
+    /**
+     * Constructor: a view of the first size bytes of channel, mapped using mode.
+     * Precondition: the file behind {@code channel} is at least {@code size} bytes long.
+     */
+    MappedPages(FileChannel channel, FileChannel.MapMode mode, long size) {
+        this.channel = channel;
+        this.mode = mode;
+        this.size = size;
+        pages = new MappedByteBuffer[(int) ((size + PAGE_MASK) >>> PAGE_BITS)];
+    }
+
+    /**
+     * Return the byte at offset.
+     * Precondition: 0 <= offset < size.
+     */
+    byte get(long offset) {
+        return page(offset).get((int) (offset & PAGE_MASK));
+    }
+
+    /**
+     * Set the byte at offset to b.
+     * Precondition: 0 <= offset < size, and this view is writable.
+     */
+    void put(long offset, byte b) {
+        page(offset).put((int) (offset & PAGE_MASK), b);
+    }
+
+    /**
+     * Set every byte from offset from (inclusive) to offset to (exclusive) to 0.
+     * Precondition: 0 <= from <= to <= size, and this view is writable.
+     */
+    void clear(long from, long to) {
+        byte[] zeros = new byte[(int) Math.min(to - from, 1 << 16)];
+        long offset = from;
+        while (offset < to) {
+            int inPage = (int) (offset & PAGE_MASK);
+            int n = (int) Math.min(Math.min(to - offset, PAGE_MASK + 1 - inPage), zeros.length);
+            page(offset).put(inPage, zeros, 0, n);
+            offset += n;
+        }
+    }
+
+    /**
+     * Return the number of pages that are currently mapped.
+     */
+    int mappedPageCount() {
+        int count = 0;
+        for (MappedByteBuffer page : pages) {
+            if (page != null) count++;
+        }
+        return count;
+    }
+
+    /**
+     * Write any changes to mapped pages back to the file.
+     */
+    void force() {
+        for (MappedByteBuffer page : pages) {
+            if (page != null) page.force();
+        }
+    }
+
+    /**
+     * Return the page holding offset, mapping it first if necessary.
+     */
+    private MappedByteBuffer page(long offset) {
+        int index = (int) (offset >>> PAGE_BITS);
+        MappedByteBuffer page = pages[index];
+        if (page == null) {
+            long start = (long) index << PAGE_BITS;
+            try {
+                page = channel.map(mode, start, Math.min(1L << PAGE_BITS, size - start));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not map page " + index, e);
+            }
+            pages[index] = page;
+        }
+        return page;
+    }
+
+    /**
+     * Close the underlying file. Pages stay mapped until they are garbage collected,
+     * so this view must not be used afterwards.
+     */
+    @Override
+    public void close() throws IOException {
+        for (int i = 0; i < pages.length; i++) {
+            pages[i] = null;
+        }
+        channel.close();
+    }
+}
@@ -0,0 +1,145 @@
+package game;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A registry of counters and timers instrumenting the hot paths of the game and of the
+ * strategies, to show where the time in a run goes. A metric is made once, by name, and kept in
+ * a static field of the class it instruments:
+ * <pre>
+ *     private static final Metrics.Timer SEARCH = Metrics.timer("pathFinder.findShortestPath");
+ *     ...
+ *     long start = SEARCH.start();
+ *     ... the work being timed ...
+ *     SEARCH.stop(start);
+ * </pre>
+ * Metrics record nothing until {@code enable()} is called, and until then cost no more than
+ * reading a flag. Once enabled, they can be updated from any number of threads at once without
+ * locking, since each is held in {@code LongAdder}s.
+ */
+public final class Metrics {
+    private static final Map<String, Counter> counters = new ConcurrentHashMap<>();
+    private static final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private static volatile boolean enabled;
+
+    private Metrics() {
+    }
+
+    /**
+     * Start recording metrics. Call this before playing any games, so that none are recorded
+     * only in part.
+     */
+    public static void enable() {
+        enabled = true;
+    }
+
+    /**
+     * Return true iff metrics are being recorded.
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Return the counter called name, making it if there is none.
+     */
+    public static Counter counter(String name) {
+        return counters.computeIfAbsent(name, n -> new Counter());
+    }
+
+    /**
+     * Return the timer called name, making it if there is none.
+     */
+    public static Timer timer(String name) {
+        return timers.computeIfAbsent(name, n -> new Timer());
+    }
+
+    /**
+     * Set every metric back to zero.
+     */
+    public static void reset() {
+        counters.values().forEach(c -> c.total.reset());
+        timers.values().forEach(t -> {
+            t.count.reset();
+            t.nanos.reset();
+        });
+    }
+
+    /**
+     * Write every metric to the file path, in CSV format, one line per metric in order of name,
+     * with its count and, for a timer, the total time it measured in nanoseconds.
+     */
+    public static void dump(Path path) throws IOException {
+        Map<String, String> lines = new TreeMap<>();
+        counters.forEach((name, c) -> lines.put(name, name + ",counter," + c.total.sum() + ","));
+        timers.forEach((name, t) -> lines.put(name, name + ",timer," + t.count.sum() + "," + t.nanos.sum()));
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(path))) {
+            out.println("name,kind,count,nanos");
+            lines.values().forEach(out::println);
+        }
+    }
+
+    /**
+     * A count of events, such as moves made or nodes settled.
+     */
+    public static final class Counter {
+        private final LongAdder total = new LongAdder();
+
+        private Counter() {
+        }
+
+        /**
+         * Count one event.
+         */
+        public void increment() {
+            if (enabled) {
+                total.increment();
+            }
+        }
+
+        /**
+         * Count n events.
+         */
+        public void add(long n) {
+            if (enabled) {
+                total.add(n);
+            }
+        }
+    }
+
+    /**
+     * A count of calls to some piece of code, and the total time they took.
+     */
+    public static final class Timer {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+
+        private Timer() {
+        }
+
+        /**
+         * Return the time at which a call starts, to be passed to stop when it ends, or 0 if
+         * metrics are not being recorded.
+         */
+        public long start() {
+            return enabled ? System.nanoTime() : 0;
+        }
+
+        /**
+         * Record a call that started at start (as returned by {@code start()}) and ends now.
+         */
+        public void stop(long start) {
+            if (start != 0) {
+                count.increment();
+                nanos.add(System.nanoTime() - start);
+            }
+        }
+    }
+}
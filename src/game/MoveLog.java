@@ -0,0 +1,332 @@
+package game;
+
+import student.Explorer;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * An instance is a record of every move made in a game and every piece of gold picked up, in
+ * order, from which the game can be replayed exactly without running the strategies that played
+ * it: see {@code replayer}. Logs are recorded by {@code GameState.playGame} when asked.
+ * <p>
+ * A log is written in a compact binary form: a header with the game's seed and a fingerprint of
+ * each of its caverns, then the moves of each phase. A move is written as a variable-length
+ * integer, the zigzag-encoded difference between the index (row * columns + column) of the tile
+ * moved to and that of the tile moved from, which takes one byte for a move to the left or right
+ * and, in all but the widest caverns, for a move up or down. A difference of 0 means gold was
+ * picked up instead.
+ * <p>
+ * The caverns themselves are not in the log; they are dug again from the seed, and the
+ * fingerprints make sure they are the same as those the game was played in.
+ */
+public final class MoveLog {
+    /**
+     * The first bytes of every log: "CVML"
+     */
+    private static final int MAGIC = 0x43564d4c;
+    private static final int VERSION = 1;
+    /**
+     * The record of gold being picked up, in place of a move
+     */
+    private static final int PICK_UP = 0;
+
+    private final long seed;
+    private final long exploreFingerprint;
+    private final long escapeFingerprint;
+    /**
+     * The records of each phase, encoded as described above
+     */
+    private final byte[] exploreMoves;
+    private final byte[] escapeMoves;
+
+    /**
+     * Constructor: a log of the game with seed seed, in caverns with the given fingerprints,
+     * whose phases made the moves encoded in exploreMoves and escapeMoves, which belong to the log.
+     */
+    private MoveLog(long seed, long exploreFingerprint, long escapeFingerprint, byte[] exploreMoves,
+                    byte[] escapeMoves) {
+        this.seed = seed;
+        this.exploreFingerprint = exploreFingerprint;
+        this.escapeFingerprint = escapeFingerprint;
+        this.exploreMoves = exploreMoves;
+        this.escapeMoves = escapeMoves;
+    }
+
+    /**
+     * Return the seed of the game logged.
+     */
+    public long seed() {
+        return seed;
+    }
+
+    /**
+     * Return true iff caverns are the caverns the game logged was played in.
+     */
+    public boolean matches(CavernPair caverns) {
+        return caverns.seed() == seed && fingerprint(caverns.exploreCavern()) == exploreFingerprint
+            && fingerprint(caverns.escapeCavern()) == escapeFingerprint;
+    }
+
+    /**
+     * Return an explorer that makes exactly the moves logged, and picks up exactly the gold,
+     * when it plays caverns; for example, {@code GameState.playGame(caverns, log.replayer(caverns), err)}
+     * plays the game logged again. The explorer can play any number of games.
+     * Throw an IllegalArgumentException if caverns are not those the game was played in.
+     */
+    public Explorer replayer(CavernPair caverns) {
+        if (!matches(caverns)) {
+            throw new IllegalArgumentException("replayer: the log of game " + seed
+                + " was not recorded in these caverns; were they dug with the same mode or topology?");
+        }
+        Cavern explore = caverns.exploreCavern();
+        Cavern escape = caverns.escapeCavern();
+        return new Explorer(() -> state -> {
+            Moves moves = new Moves(exploreMoves, explore, explore.getEntrance());
+            while (moves.hasNext()) {
+                state.moveTo(moves.next().getId());
+            }
+        }, () -> state -> {
+            Moves moves = new Moves(escapeMoves, escape, state.getCurrentNode());
+            while (moves.hasNext()) {
+                Node n = moves.next();
+                if (n == null) {
+                    state.pickUpGold();
+                } else {
+                    state.moveTo(n);
+                }
+            }
+        });
+    }
+
+    /**
+     * Write this log to out.
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeByte(VERSION);
+        data.writeLong(seed);
+        data.writeLong(exploreFingerprint);
+        data.writeLong(escapeFingerprint);
+        data.writeInt(exploreMoves.length);
+        data.write(exploreMoves);
+        data.writeInt(escapeMoves.length);
+        data.write(escapeMoves);
+        data.flush();
+    }
+
+    /**
+     * Return the log written to in by {@code writeTo}.
+     * Throw an IOException if in does not hold a log this version can read.
+     */
+    public static MoveLog readFrom(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        try {
+            if (data.readInt() != MAGIC) {
+                throw new IOException("readFrom: not a move log");
+            }
+            int version = data.readUnsignedByte();
+            if (version != VERSION) {
+                throw new IOException("readFrom: can't read a version " + version + " move log");
+            }
+            long seed = data.readLong();
+            long exploreFingerprint = data.readLong();
+            long escapeFingerprint = data.readLong();
+            byte[] exploreMoves = readMoves(data);
+            byte[] escapeMoves = readMoves(data);
+            return new MoveLog(seed, exploreFingerprint, escapeFingerprint, exploreMoves, escapeMoves);
+        } catch (EOFException | NegativeArraySizeException e) {
+            throw new IOException("readFrom: move log is truncated", e);
+        }
+    }
+
+    /**
+     * Return the moves of a phase, as written by {@code writeTo}, read from data.
+     * Throw an EOFException if data ends before them.
+     */
+    private static byte[] readMoves(DataInputStream data) throws IOException {
+        int length = data.readInt();
+        // readNBytes only allocates as much as it reads, so a corrupt length can't exhaust memory.
+        byte[] moves = data.readNBytes(length);
+        if (moves.length != length) {
+            throw new EOFException("readFrom: the log ends part of the way through its moves");
+        }
+        return moves;
+    }
+
+    /**
+     * Return a hash of everything about cavern that can affect a game: its size, entrance and
+     * target, and the type, gold and edges of every tile.
+     */
+    static long fingerprint(CavernView cavern) {
+        // 64-bit FNV-1a, one int at a time
+        long hash = 0xcbf29ce484222325L;
+        int rows = cavern.getRowCount();
+        int cols = cavern.getColumnCount();
+        int[] header = {rows, cols, cavern.getEntranceRow(), cavern.getEntranceColumn(),
+            cavern.getTargetRow(), cavern.getTargetColumn()};
+        for (int x : header) {
+            hash = (hash ^ x) * 0x100000001b3L;
+        }
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                hash = (hash ^ cavern.getTileTypeAt(r, c).ordinal()) * 0x100000001b3L;
+                hash = (hash ^ cavern.getGoldAt(r, c)) * 0x100000001b3L;
+                hash = (hash ^ cavern.getEdgeWeight(r, c, Cavern.Direction.EAST)) * 0x100000001b3L;
+                hash = (hash ^ cavern.getEdgeWeight(r, c, Cavern.Direction.SOUTH)) * 0x100000001b3L;
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Return the index of n's tile in a cavern with cols columns.
+     */
+    private static int cellOf(Node n, int cols) {
+        return n.getTile().getRow() * cols + n.getTile().getColumn();
+    }
+
+    /**
+     * Records the moves of a game as it is played, and then makes its log. Only one thread may
+     * use an instance at a time.
+     */
+    static final class Recorder {
+        private final long seed;
+        private final Cavern explore;
+        private final Cavern escape;
+        private final Bytes exploreMoves = new Bytes();
+        private final Bytes escapeMoves = new Bytes();
+        /**
+         * The records being written, the cavern they are in, and the index of the last tile moved to
+         */
+        private Bytes moves = exploreMoves;
+        private int cols;
+        private int cell;
+
+        /**
+         * Constructor: a recorder of a game in caverns, which starts at the entrance of the
+         * cavern explored.
+         */
+        Recorder(CavernPair caverns) {
+            seed = caverns.seed();
+            explore = caverns.exploreCavern();
+            escape = caverns.escapeCavern();
+            cols = explore.getColumnCount();
+            cell = cellOf(explore.getEntrance(), cols);
+        }
+
+        /**
+         * Record that the escape phase has started at start, so that later moves are moves of
+         * the escape phase.
+         */
+        void escaping(Node start) {
+            moves = escapeMoves;
+            cols = escape.getColumnCount();
+            cell = cellOf(start, cols);
+        }
+
+        /**
+         * Record a move to n, which is next to the tile last moved to.
+         */
+        void moved(Node n) {
+            int next = cellOf(n, cols);
+            int delta = next - cell;
+            moves.writeVarint((delta << 1) ^ (delta >> 31));
+            cell = next;
+        }
+
+        /**
+         * Record that the gold on the tile last moved to was picked up.
+         */
+        void pickedUp() {
+            moves.writeVarint(PICK_UP);
+        }
+
+        /**
+         * Return the log of the moves recorded so far.
+         */
+        MoveLog toLog() {
+            return new MoveLog(seed, fingerprint(explore), fingerprint(escape), exploreMoves.toArray(),
+                escapeMoves.toArray());
+        }
+    }
+
+    /**
+     * A growable array of bytes, written as variable-length integers: seven bits to a byte,
+     * least significant first, with the top bit set on every byte but the last.
+     */
+    private static final class Bytes {
+        private byte[] bytes = new byte[64];
+        private int size;
+
+        void writeVarint(int value) {
+            if (size + 5 > bytes.length) {
+                bytes = Arrays.copyOf(bytes, bytes.length * 2);
+            }
+            while ((value & ~0x7f) != 0) {
+                bytes[size++] = (byte) ((value & 0x7f) | 0x80);
+                value >>>= 7;
+            }
+            bytes[size++] = (byte) value;
+        }
+
+        byte[] toArray() {
+            return Arrays.copyOf(bytes, size);
+        }
+    }
+
+    /**
+     * Reads the records of a phase back as the nodes moved to, starting from start in cavern,
+     * with null for gold being picked up.
+     */
+    private static final class Moves {
+        private final byte[] bytes;
+        private final Cavern cavern;
+        private final int cols;
+        private int position;
+        private int cell;
+
+        Moves(byte[] bytes, Cavern cavern, Node start) {
+            this.bytes = bytes;
+            this.cavern = cavern;
+            cols = cavern.getColumnCount();
+            cell = cellOf(start, cols);
+        }
+
+        boolean hasNext() {
+            return position < bytes.length;
+        }
+
+        /**
+         * Return the node moved to by the next record, or null if it is of gold being picked up.
+         * Throw an IllegalStateException if the record is corrupt.
+         */
+        Node next() {
+            int value = 0;
+            for (int shift = 0; ; shift += 7) {
+                if (position >= bytes.length || shift > 28) {
+                    throw new IllegalStateException("next: move log is corrupt");
+                }
+                byte b = bytes[position++];
+                value |= (b & 0x7f) << shift;
+                if (b >= 0) {
+                    break;
+                }
+            }
+            if (value == PICK_UP) {
+                return null;
+            }
+            cell += (value >>> 1) ^ -(value & 1);
+            if (cell < 0 || cell >= cavern.getRowCount() * cols) {
+                throw new IllegalStateException("next: move log is corrupt");
+            }
+            return cavern.getNodeAt(cell / cols, cell % cols);
+        }
+    }
+}
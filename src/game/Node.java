@@ -9,11 +9,6 @@ import java.util.Set;
  * An instance represents a node in the graph --the cavern.
  */
 public class Node {
-    /**
-     * The least positive fresh identifier available
-     */
-    private static long FRESH_ID = 0;
-
     /**
      * The unique numerical identifier of this Node
      */
@@ -32,16 +27,12 @@ public class Node {
      */
     private final Tile tile;
 
-    /* package */ Node(Tile t) {
-        this(FRESH_ID, t);
-    }
-
     /**
-     * Constructor: an instance with id givenId and tile t
+     * Constructor: an instance with id givenId and tile t.
+     * Ids need only be unique within one cavern (see {@code Cavern.newNode}).
      */
     /* package */ Node(long givenId, Tile t) {
         id = givenId;
-        FRESH_ID = Math.max(FRESH_ID, givenId + 1);
         edges = new HashSet<>();
         neighbours = new HashSet<>();
 
@@ -0,0 +1,164 @@
+package game;
+
+import java.nio.ByteBuffer;
+
+/**
+ * An instance is a copy of a cavern held in native memory outside the Java heap, so that
+ * many large caverns can be kept loaded without adding to the garbage collector's work.
+ * <p>
+ * Each tile takes four bytes, in row-major order: its type, the weights of its edges to the
+ * south (low four bits) and east (high four bits), and its gold.
+ * The memory is released by {@code close()}; the cavern cannot be queried after that. The native
+ * memory is returned once the buffer that held it is collected, so a query that another thread
+ * has already started when the cavern is closed still reads the cavern as it was.
+ */
+public class OffHeapCavern implements CavernView, AutoCloseable {
+    private static final int BYTES_PER_TILE = 4;
+    private static final int TYPE = 0;
+    private static final int WEIGHTS = 1;
+    private static final int GOLD = 2;
+    private static final Tile.Type[] TYPES = Tile.Type.values();
+
+    private final int rows;
+    private final int cols;
+    private final int openTiles;
+    private final int entranceRow;
+    private final int entranceCol;
+    private final int targetRow;
+    private final int targetCol;
+    /**
+     * The tiles, or null once this cavern has been closed
+     */
+    private volatile ByteBuffer tiles;
+
+    /**
+     * Constructor: an off-heap copy of cavern.
+     * Precondition: the grid has at most 2^29 tiles, each with at most Short.MAX_VALUE gold.
+     */
+    private OffHeapCavern(CavernView cavern) {
+        rows = cavern.getRowCount();
+        cols = cavern.getColumnCount();
+        openTiles = cavern.numOpenTiles();
+        entranceRow = cavern.getEntranceRow();
+        entranceCol = cavern.getEntranceColumn();
+        targetRow = cavern.getTargetRow();
+        targetCol = cavern.getTargetColumn();
+
+        tiles = ByteBuffer.allocateDirect(Math.multiplyExact(Math.multiplyExact(rows, cols), BYTES_PER_TILE));
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                int offset = offset(r, c);
+                int weights = cavern.getEdgeWeight(r, c, Cavern.Direction.SOUTH)
+                    | cavern.getEdgeWeight(r, c, Cavern.Direction.EAST) << 4;
+                tiles.put(offset + TYPE, (byte) cavern.getTileTypeAt(r, c).ordinal());
+                tiles.put(offset + WEIGHTS, (byte) weights);
+                tiles.putShort(offset + GOLD, (short) cavern.getGoldAt(r, c));
+            }
+        }
+    }
+
+    /**
+     * Return an off-heap copy of cavern (including the gold currently on each tile).
+     * Precondition: the grid has at most 2^29 tiles, each with at most Short.MAX_VALUE gold.
+     */
+    public static OffHeapCavern copyOf(CavernView cavern) {
+        return new OffHeapCavern(cavern);
+    }
+
+    @Override
+    public int getRowCount() {
+        return rows;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return cols;
+    }
+
+    @Override
+    public int numOpenTiles() {
+        return openTiles;
+    }
+
+    @Override
+    public Tile.Type getTileTypeAt(int r, int c) {
+        return TYPES[tiles().get(offset(r, c) + TYPE)];
+    }
+
+    @Override
+    public int getGoldAt(int r, int c) {
+        return tiles().getShort(offset(r, c) + GOLD);
+    }
+
+    @Override
+    public int getEdgeWeight(int r, int c, Cavern.Direction dir) {
+        return switch (dir) {
+            case SOUTH -> r < rows - 1 ? weights(r, c) & 0xf : 0;
+            case EAST -> c < cols - 1 ? (weights(r, c) >>> 4) & 0xf : 0;
+            case NORTH -> r > 0 ? weights(r - 1, c) & 0xf : 0;
+            case WEST -> c > 0 ? (weights(r, c - 1) >>> 4) & 0xf : 0;
+        };
+    }
+
+    @Override
+    public int getEntranceRow() {
+        return entranceRow;
+    }
+
+    @Override
+    public int getEntranceColumn() {
+        return entranceCol;
+    }
+
+    @Override
+    public int getTargetRow() {
+        return targetRow;
+    }
+
+    @Override
+    public int getTargetColumn() {
+        return targetCol;
+    }
+
+    /**
+     * Return true iff this cavern has been closed.
+     */
+    public boolean isClosed() {
+        return tiles == null;
+    }
+
+    /**
+     * Release the memory holding this cavern. Closing a closed cavern has no effect.
+     * The native memory is returned once the buffer that held it is collected.
+     */
+    @Override
+    public void close() {
+        tiles = null;
+    }
+
+    /**
+     * Return the byte of edge weights stored for (r, c).
+     */
+    private int weights(int r, int c) {
+        return tiles().get(offset(r, c) + WEIGHTS);
+    }
+
+    /**
+     * Return the offset in tiles of the first byte for (r, c).
+     */
+    private int offset(int r, int c) {
+        return (r * cols + c) * BYTES_PER_TILE;
+    }
+
+    /**
+     * Return the buffer holding the tiles.
+     * Throw an IllegalStateException if this cavern has been closed.
+     */
+    private ByteBuffer tiles() {
+        ByteBuffer b = tiles;
+        if (b == null) {
+            throw new IllegalStateException("OffHeapCavern: cavern has been closed");
+        }
+        return b;
+    }
+}
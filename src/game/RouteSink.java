@@ -0,0 +1,18 @@
+package game;
+
+import java.util.List;
+
+/**
+ * Somewhere to offer routes out of the cavern while planning an escape, so that the best route
+ * found so far can be followed if planning has to stop before it is finished.
+ * See {@code EscapeState.planAndFollow}.
+ */
+@FunctionalInterface
+public interface RouteSink {
+    /**
+     * Offer route, a complete route from your current location to the exit (which may start
+     * with your current location), as one that could be followed.
+     * Throw an IllegalStateException if planning is over.
+     */
+    void offer(List<Node> route);
+}
@@ -0,0 +1,66 @@
+package game;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Measurements of the resources used by a thread, for timing the explorer.
+ */
+final class ThreadUsage {
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private ThreadUsage() {
+    }
+
+    /**
+     * Return the CPU time used by the current thread so far, in nanoseconds,
+     * or -1 if the JVM cannot measure it.
+     */
+    static long cpuNanos() {
+        return THREADS.isCurrentThreadCpuTimeSupported() ? THREADS.getCurrentThreadCpuTime() : -1;
+    }
+
+    /**
+     * Return the number of bytes the current thread has allocated on the heap so far,
+     * or -1 if the JVM cannot measure it.
+     */
+    static long allocatedBytes() {
+        if (THREADS instanceof com.sun.management.ThreadMXBean t && t.isThreadAllocatedMemorySupported()) {
+            return t.getCurrentThreadAllocatedBytes();
+        }
+        return -1;
+    }
+
+    /**
+     * Return the CPU time used by thread so far, in nanoseconds, or -1 if thread is not alive
+     * or the JVM cannot measure it.
+     */
+    static long cpuNanos(Thread thread) {
+        return THREADS.isThreadCpuTimeSupported() ? THREADS.getThreadCpuTime(thread.getId()) : -1;
+    }
+
+    /**
+     * Return the number of bytes thread has allocated on the heap so far, or -1 if thread is
+     * not alive or the JVM cannot measure it.
+     */
+    static long allocatedBytes(Thread thread) {
+        if (THREADS instanceof com.sun.management.ThreadMXBean t && t.isThreadAllocatedMemorySupported()) {
+            return t.getThreadAllocatedBytes(thread.getId());
+        }
+        return -1;
+    }
+
+    /**
+     * Return a + b, or -1 if either could not be measured.
+     */
+    static long sum(long a, long b) {
+        return a < 0 || b < 0 ? -1 : a + b;
+    }
+
+    /**
+     * Return end - start, or -1 if either could not be measured.
+     */
+    static long difference(long start, long end) {
+        return start < 0 || end < 0 ? -1 : end - start;
+    }
+}
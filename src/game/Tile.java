@@ -7,14 +7,13 @@ public class Tile {
     private final int row;
     private final int col;
     /**
-     * Amount of gold on this Node
+     * Amount of gold on this Node at the start of a game
      */
     private final int gold;
     /**
      * The Type of Tile of this Node
      */
-    private Type type;
-    private boolean goldPickedUp;
+    private final Type type;
 
     /**
      * Constructor: a new Tile at (r, c), with g amount of gold, and Type t.
@@ -24,18 +23,11 @@ public class Tile {
         col = c;
         gold = g;
         type = t;
-        goldPickedUp = false;
     }
 
     /**
-     * Return the amount of gold on this Tile.
-     */
-    public int getGold() {
-        return (goldPickedUp ? 0 : gold);
-    }
-
-    /**
-     * Return the original amount of gold on this tile (even if picked up.)
+     * Return the original amount of gold on this tile. Picking up gold does not change this;
+     * use {@code EscapeState.getGold(Node)} for the gold still on it.
      */
     public int getOriginalGold() {
         return gold;
@@ -62,22 +54,6 @@ public class Tile {
         return type;
     }
 
-    /**
-     * Set the Type of this Tile to t.
-     */
-    /* package */ void setType(Type t) {
-        type = t;
-    }
-
-    /**
-     * Set the gold on this Node to 0 and returns the amount "picked up".
-     */
-    public int takeGold() {
-        final int result = getGold();
-        goldPickedUp = true;
-        return result;
-    }
-
     /**
      * An enum representing the different types of Tiles that may appear in a cavern.
      */
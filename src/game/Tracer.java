@@ -0,0 +1,183 @@
+package game;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * An instance records a timeline of the work done in one game, as nested spans, which can be
+ * written in the Chrome trace event format and opened in any trace viewer (such as Perfetto or
+ * chrome://tracing) to see which loop takes the time.
+ * <p>
+ * Code marks the work it does with a span, wherever it is:
+ * <pre>
+ *     try (Tracer.Span span = Tracer.span("diversions").arg("depth", d)) {
+ *         ... the work ...
+ *     }
+ * </pre>
+ * A span that is only closed, as here, makes {@code javac -Xlint} warn that the resource is never
+ * referenced in the try block, so methods that open one say {@code @SuppressWarnings("try")}.
+ * <p>
+ * A span is only recorded if it is opened while a tracer is recording on that thread (see
+ * {@code record}), or on a thread started while one was; otherwise it is a shared instance that
+ * does nothing, so spans cost next to nothing in games that are not traced.
+ */
+public final class Tracer {
+    /**
+     * The tracer recording on each thread, if any; inherited by the threads it starts, such as
+     * the thread a phase with a compute budget runs on
+     */
+    private static final InheritableThreadLocal<Tracer> current = new InheritableThreadLocal<>();
+    private static final Span NONE = new Span(null, null, 0);
+
+    private final int id;
+    private final String name;
+    private final long start = System.nanoTime();
+    /**
+     * The complete events recorded so far, in the Chrome trace event format, and the name of
+     * each thread they were recorded on, by id
+     */
+    private final List<String> events = new ArrayList<>();
+    private final Map<Long, String> threads = new LinkedHashMap<>();
+
+    /**
+     * Constructor: a tracer whose timeline is shown as a process with id id (which should be
+     * different for every tracer written to the same file), called name.
+     */
+    public Tracer(int id, String name) {
+        this.id = id;
+        this.name = name;
+    }
+
+    /**
+     * Return what work returns, recording the spans opened while it runs (on this thread, or
+     * on threads it starts) with tracer.
+     */
+    public static <T> T record(Tracer tracer, Supplier<T> work) {
+        Tracer previous = current.get();
+        current.set(tracer);
+        try {
+            return work.get();
+        } finally {
+            current.set(previous);
+        }
+    }
+
+    /**
+     * Return a span called name, starting now, which ends when it is closed.
+     */
+    public static Span span(String name) {
+        Tracer tracer = current.get();
+        return tracer == null ? NONE : new Span(tracer, name, System.nanoTime());
+    }
+
+    /**
+     * Record a complete event for the span called name, from startNanos to endNanos on the
+     * current thread, with the arguments args (a JSON object's members, or empty).
+     */
+    private synchronized void add(String name, long startNanos, long endNanos, String args) {
+        Thread thread = Thread.currentThread();
+        threads.putIfAbsent(thread.getId(), thread.getName());
+        events.add(String.format(Locale.ROOT, "{\"name\":\"%s\",\"ph\":\"X\",\"pid\":%d,\"tid\":%d,\"ts\":%.3f,\"dur\":%.3f,"
+                + "\"args\":{%s}}", quote(name), id, thread.getId(), (startNanos - start) / 1e3,
+            (endNanos - startNanos) / 1e3, args));
+    }
+
+    /**
+     * Write the timelines of tracers to the file path, in the Chrome trace event format, in
+     * order of id.
+     */
+    public static void write(Collection<Tracer> tracers, Path path) throws IOException {
+        List<Tracer> sorted = new ArrayList<>(tracers);
+        sorted.sort(Comparator.comparingInt(t -> t.id));
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(path))) {
+            out.println("{\"traceEvents\":[");
+            String separator = "";
+            for (Tracer tracer : sorted) {
+                synchronized (tracer) {
+                    out.printf("%s{\"name\":\"process_name\",\"ph\":\"M\",\"pid\":%d,\"args\":{\"name\":\"%s\"}}",
+                        separator, tracer.id, quote(tracer.name));
+                    separator = ",\n";
+                    for (Map.Entry<Long, String> thread : tracer.threads.entrySet()) {
+                        out.printf(",\n{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":%d,\"tid\":%d,"
+                            + "\"args\":{\"name\":\"%s\"}}", tracer.id, thread.getKey(), quote(thread.getValue()));
+                    }
+                    for (String event : tracer.events) {
+                        out.print(",\n" + event);
+                    }
+                }
+            }
+            out.println();
+            out.println("],\"displayTimeUnit\":\"ms\"}");
+        }
+    }
+
+    /**
+     * Return s with the characters that can't appear in a JSON string as they are escaped.
+     */
+    private static String quote(String s) {
+        StringBuilder quoted = new StringBuilder(s.length());
+        for (char c : s.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                quoted.append('\\').append(c);
+            } else if (c < ' ') {
+                quoted.append(String.format("\\u%04x", (int) c));
+            } else {
+                quoted.append(c);
+            }
+        }
+        return quoted.toString();
+    }
+
+    /**
+     * A piece of work on a timeline, from when it was made until it is closed.
+     */
+    public static final class Span implements AutoCloseable {
+        private final Tracer tracer;
+        private final String name;
+        private final long start;
+        private StringBuilder args;
+        private boolean closed;
+
+        private Span(Tracer tracer, String name, long start) {
+            this.tracer = tracer;
+            this.name = name;
+            this.start = start;
+        }
+
+        /**
+         * Record that the argument called key has value value in this span, and return this span.
+         */
+        public Span arg(String key, long value) {
+            if (tracer != null) {
+                if (args == null) {
+                    args = new StringBuilder();
+                } else {
+                    args.append(',');
+                }
+                args.append('"').append(quote(key)).append("\":").append(value);
+            }
+            return this;
+        }
+
+        /**
+         * End this span now. Closing it again has no effect.
+         */
+        @Override
+        public void close() {
+            if (tracer != null && !closed) {
+                closed = true;
+                tracer.add(name, start, System.nanoTime(), args == null ? "" : args.toString());
+            }
+        }
+    }
+}
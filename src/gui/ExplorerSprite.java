@@ -21,8 +21,7 @@ public class ExplorerSprite extends JPanel {
     private final Sprite sprite; // Sprite class to handle animating the explorer
     private final int tileWidth;
     private final int tileHeight;
-    private final BlockingQueue<MovePair> queuedMoves;// List of moves we need to make to get to the goal location
-    private final Semaphore blockUntilDone; // Allow our moveTo to block until complete.
+    private final BlockingQueue<QueuedMove> queuedMoves;// List of moves we need to make to get to the goal location
     private final double ANIMATION_FPS = 10; // Number of animation frames displayed per second
     private int row; // Explorer's row index (updates only once move completes)
     private int col; // Explorer's column index (updates only once move completes)
@@ -30,6 +29,12 @@ public class ExplorerSprite extends JPanel {
     private int posY; // y-coordinate(pixels)
     private Direction dir = NORTH; // Which direction is the explorer currently facing?
 
+    /**
+     * A move waiting to be animated: by move, to dst, after which done is run.
+     */
+    private record QueuedMove(MovePair move, Node dst, Runnable done) {
+    }
+
     /**
      * Constructor: an instance with player;'s starting position (startRow,
      * startCol).
@@ -44,8 +49,7 @@ public class ExplorerSprite extends JPanel {
         // Height (in pixels) if a single explorer image on the spritesheet
         int SPRITEHEIGHT = 36;
         sprite = new Sprite(SPRITESHEET, SPRITEWIDTH, SPRITEHEIGHT, 3);
-        queuedMoves = new SynchronousQueue<MovePair>();
-        blockUntilDone = new Semaphore(0);
+        queuedMoves = new SynchronousQueue<QueuedMove>();
 
         // Initialize our starting location
         row = startRow;
@@ -63,18 +67,20 @@ public class ExplorerSprite extends JPanel {
                 while (true) {
                     try {
                         int frames = GUI.getFramesPerMove();
-                        MovePair move = queuedMoves.take();
+                        QueuedMove queued = queuedMoves.take();
                         // Move to the goal
                         for (int i = 1; i <= frames; i++) {
                             long startTime = System.currentTimeMillis();
                             // Get the next move to make
-                            update(frames, i, move);
+                            update(frames, i, queued.move());
                             long lagTime = System.currentTimeMillis() - startTime;
                             if (lagTime < 1000 / GUI.getFramesPerSecond()) {
                                 Thread.sleep(1000 / GUI.getFramesPerSecond() - lagTime);
                             }
                         }
-                        blockUntilDone.release();
+                        row = queued.dst().getTile().getRow();
+                        col = queued.dst().getTile().getColumn();
+                        queued.done().run();
 
                     } catch (InterruptedException e) {
                         return;
@@ -147,16 +153,37 @@ public class ExplorerSprite extends JPanel {
      * throw an InterruptedException
      */
     public void moveTo(Node dst) throws InterruptedException {
+        Semaphore blockUntilDone = new Semaphore(0);
+        startMove(dst, blockUntilDone::release);
+        blockUntilDone.acquire();
+    }
+
+    /**
+     * Start moving the explorer from its current location to dst, and return without waiting;
+     * done is run on the animating thread once the move is complete.
+     * Precondition: dst is adjacent to the current location, and no move is being animated
+     * (so the animating thread takes this one at once).
+     */
+    public void startMove(Node dst, Runnable done) throws InterruptedException {
         dir = getDirection(row, col, dst.getTile().getRow(), dst.getTile().getColumn());
 
         // Determine sequence of moves to add to queue to get to goal
         int xDiff = (dst.getTile().getColumn() - col) * tileWidth;
         int yDiff = (dst.getTile().getRow() - row) * tileHeight;
-        queuedMoves.put(new MovePair(xDiff, yDiff));
+        queuedMoves.put(new QueuedMove(new MovePair(xDiff, yDiff), dst, done));
+    }
 
-        blockUntilDone.acquire();
+    /**
+     * Put the explorer on dst at once, without animating the move.
+     * Precondition: no move is being animated.
+     */
+    public void jumpTo(Node dst) {
+        dir = getDirection(row, col, dst.getTile().getRow(), dst.getTile().getColumn());
         row = dst.getTile().getRow();
         col = dst.getTile().getColumn();
+        posX = tileWidth * col;
+        posY = tileHeight * row;
+        repaint();
     }
 
     /**
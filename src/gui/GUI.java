@@ -1,6 +1,7 @@
 package gui;
 
 import game.Cavern;
+import game.GameListener;
 import game.Node;
 import game.Tile;
 
@@ -11,11 +12,12 @@ import java.awt.Point;
 import java.awt.event.ComponentEvent;
 import java.awt.event.ComponentListener;
 import java.awt.image.BufferedImage;
+import java.util.List;
 
 /**
- * An instance is a GUI for the game.
+ * An instance is a GUI for the game. It shows a game as it is played by listening to it.
  */
-public class GUI extends JFrame implements Constants {
+public class GUI extends JFrame implements Constants, GameListener {
 
     private static int framesPerSecond = 60;    // Framerate of game (fps)
     private static int framesPerMove = 25;      // How many frames does a single move take us?
@@ -126,6 +128,20 @@ public class GUI extends JFrame implements Constants {
         }
     }
 
+    /**
+     * Update the GUI to inform it that the gold on n was picked up.
+     */
+    public void pickUpGold(Node n) {
+        mazePanel.setGoldTaken(n.getTile().getRow(), n.getTile().getColumn());
+    }
+
+    /**
+     * Return the gold on n, as displayed by the GUI.
+     */
+    public int getGold(Node n) {
+        return mazePanel.getGold(n);
+    }
+
     /**
      * Update the bonus multiplier as displayed by the GUI by bonus
      */
@@ -205,4 +221,68 @@ public class GUI extends JFrame implements Constants {
             getY() + getHeight() / 2 - ERRORHEIGHT / 2));
         errorFrame.setVisible(true);
     }
+
+    @Override
+    public void cavernChanged(Cavern c, boolean lit, int timeRemaining) {
+        setLighting(lit);
+        updateCavern(c, timeRemaining);
+    }
+
+    @Override
+    public void moved(Node n) {
+        moveTo(n);
+    }
+
+    /**
+     * Start animating the move to n, and call shown once it is complete, without blocking.
+     * Precondition: the previous move has been shown.
+     */
+    @Override
+    public void moved(Node n, Runnable shown) {
+        try {
+            mazePanel.setVisited(n.getTile().getRow(), n.getTile().getColumn());
+            explorer.startMove(n, shown);
+        } catch (InterruptedException e) {
+            throw new RuntimeException("GUI moved : Interrupted while starting the move");
+        }
+    }
+
+    /**
+     * Mark the tiles of path as visited, and put the player on its last node, without animating.
+     */
+    @Override
+    public void passedThrough(List<Node> path) {
+        for (Node n : path) {
+            mazePanel.setVisited(n.getTile().getRow(), n.getTile().getColumn());
+        }
+        if (!path.isEmpty()) {
+            explorer.jumpTo(path.get(path.size() - 1));
+        }
+        mazePanel.repaint();
+    }
+
+    @Override
+    public void bonusChanged(double bonus) {
+        updateBonus(bonus);
+    }
+
+    @Override
+    public void goldPickedUp(Node n) {
+        pickUpGold(n);
+    }
+
+    @Override
+    public void coinsChanged(int coins, int score) {
+        updateCoins(coins, score);
+    }
+
+    @Override
+    public void timeChanged(int timeRemaining) {
+        updateTimeRemaining(timeRemaining);
+    }
+
+    @Override
+    public void error(String message) {
+        displayError(message);
+    }
 }
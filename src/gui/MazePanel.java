@@ -31,6 +31,7 @@ public class MazePanel extends JPanel {
     private final Sprite coinSheet;        //Image representing a coin spritesheet
     private final BufferedImage background;
     private final boolean[][] visited;         //Contains the nodes already visited
+    private boolean[][] goldTaken;             //Contains the nodes whose gold has been picked up
     private final Color darkness;                           //Color to place over unvisited paths
     int tileWidth;       //The width (in pixels) of a tile on the grid
     int tileHeight;      //The height (in pixels) of a tile on the grid
@@ -47,6 +48,7 @@ public class MazePanel extends JPanel {
     public MazePanel(Cavern cav, int screenWidth, int screenHeight, GUI gui) {
         cavern = cav;
         visited = new boolean[cavern.getRowCount()][cavern.getColumnCount()];
+        goldTaken = new boolean[cavern.getRowCount()][cavern.getColumnCount()];
 
         //Compute the dimensions of an individual tile
         tileWidth = (int) (screenWidth * 1.0 / cavern.getColumnCount());
@@ -90,6 +92,7 @@ public class MazePanel extends JPanel {
      */
     void setCavern(Cavern c) {
         cavern = c;
+        goldTaken = new boolean[cavern.getRowCount()][cavern.getColumnCount()];
         repaint();
     }
 
@@ -124,6 +127,20 @@ public class MazePanel extends JPanel {
         visited[row][col] = true;
     }
 
+    /**
+     * Update the GUI to inform it that the gold on tile (row, col) was picked up.
+     */
+    public void setGoldTaken(int row, int col) {
+        goldTaken[row][col] = true;
+    }
+
+    /**
+     * Return the gold on the tile of n, as far as the GUI knows.
+     */
+    public int getGold(Node n) {
+        return goldTaken[n.getTile().getRow()][n.getTile().getColumn()] ? 0 : n.getTile().getOriginalGold();
+    }
+
     /**
      * Return an image representing tile type type.
      */
@@ -146,7 +163,7 @@ public class MazePanel extends JPanel {
      * Return an icon for the gold on tile n, or null otherwise.
      */
     public BufferedImage getGoldIcon(Node n) {
-        double gold = n.getTile().getGold();
+        double gold = getGold(n);
         if (gold == Cavern.TASTY_VALUE) return tasty;
         gold *= ((double) COIN_SPRITES_PER_ROW * COIN_SPRITES_PER_COL) / Cavern.MAX_GOLD_VALUE;
         int spriteIndex = (int) gold;
@@ -185,7 +202,7 @@ public class MazePanel extends JPanel {
                             tileWidth, tileHeight, null);
                     }
                     //If there is a coin here, draw it
-                    if (cavern.getTileAt(row, col).getGold() > 0) {
+                    if (getGold(cavern.getNodeAt(row, col)) > 0) {
                         page.drawImage(getGoldIcon(cavern.getNodeAt(row, col)),
                             tileWidth * col, tileHeight * row,
                             tileWidth, tileHeight, null);
@@ -0,0 +1,196 @@
+package main;
+
+import game.Cavern;
+import game.CavernTopology;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Properties;
+
+/**
+ * The memory a game is expected to allocate in each phase, stored in a file so that later runs
+ * can be checked against it: a change that makes the strategies allocate more than the baseline
+ * allows (and so spend more time in garbage collection) fails the check like any other regression.
+ * <p>
+ * A baseline is the median bytes allocated per game in each phase, over the games of one sweep:
+ * its master seed, number of games, generation mode and topology are stored with it, and a run
+ * is only checked against it if it played the same sweep, so that both played the same maps.
+ * The median is used rather than the mean because a few games allocate far more than the rest,
+ * and how much more changes from run to run with what the JIT compiler has done by then.
+ * <p>
+ * The file is a properties file with the sweep, the medians, and the fraction by which a later
+ * run may exceed them (DEFAULT_TOLERANCE unless the file says otherwise). It can be edited by
+ * hand, for example to loosen the tolerance or to accept an increase that was intended.
+ */
+final class AllocationBaseline {
+    /**
+     * The fraction by which a run may exceed the baseline if the file doesn't give one.
+     * After warming up, the medians of five runs of each of four 50-game sweeps were never more
+     * than 1.5% apart (before warming up, up to 19% in the explore phase), so 10% leaves room
+     * for a different machine or JVM and still fails when allocation really grows.
+     */
+    static final double DEFAULT_TOLERANCE = 0.10;
+
+    private final long masterSeed;
+    private final long games;
+    private final String mode;
+    private final String topology;
+    private final double exploreBytes;
+    private final double escapeBytes;
+    private final double tolerance;
+
+    /**
+     * Constructor: a baseline of exploreBytes and escapeBytes allocated per game in each phase,
+     * measured over the sweep of games games from masterSeed, dug using mode and topology (the
+     * names of each, or "none" for no topology), which later runs may exceed by the fraction
+     * tolerance.
+     */
+    private AllocationBaseline(long masterSeed, long games, String mode, String topology, double exploreBytes,
+                               double escapeBytes, double tolerance) {
+        this.masterSeed = masterSeed;
+        this.games = games;
+        this.mode = mode;
+        this.topology = topology;
+        this.exploreBytes = exploreBytes;
+        this.escapeBytes = escapeBytes;
+        this.tolerance = tolerance;
+    }
+
+    /**
+     * Return the baseline measured by statistics, over the sweep from masterSeed whose caverns
+     * were dug using mode, or topology if it is not null, with the default tolerance.
+     */
+    static AllocationBaseline of(SweepStatistics statistics, long masterSeed, Cavern.GenerationMode mode,
+                                 CavernTopology topology) {
+        return new AllocationBaseline(masterSeed, statistics.count(), mode.name(),
+            topology == null ? "none" : topology.name(), statistics.medianExploreAllocatedBytes(),
+            statistics.medianEscapeAllocatedBytes(), DEFAULT_TOLERANCE);
+    }
+
+    /**
+     * Return the baseline stored in the file path, or nothing if there is no such file.
+     * Throw an IOException if it can't be read, or an IllegalArgumentException if it doesn't
+     * hold a baseline.
+     */
+    static Optional<AllocationBaseline> read(Path path) throws IOException {
+        Properties properties = new Properties();
+        try (Reader in = Files.newBufferedReader(path)) {
+            properties.load(in);
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(new AllocationBaseline(
+                Long.parseLong(required(properties, "masterSeed")),
+                Long.parseLong(required(properties, "games")),
+                required(properties, "mode"),
+                required(properties, "topology"),
+                Double.parseDouble(required(properties, "exploreBytesPerGame")),
+                Double.parseDouble(required(properties, "escapeBytesPerGame")),
+                Double.parseDouble(properties.getProperty("tolerance", String.valueOf(DEFAULT_TOLERANCE)))));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("read: " + path + " holds a value that is not a number", e);
+        }
+    }
+
+    /**
+     * Return the value of key in properties.
+     * Throw an IllegalArgumentException if there is none.
+     */
+    private static String required(Properties properties, String key) {
+        String value = properties.getProperty(key);
+        if (value == null) {
+            throw new IllegalArgumentException("read: the baseline has no " + key);
+        }
+        return value;
+    }
+
+    /**
+     * Write this baseline to the file path, replacing what is there.
+     */
+    void write(Path path) throws IOException {
+        try (Writer out = Files.newBufferedWriter(path)) {
+            out.write("# Median bytes allocated per game in each phase, checked by TXTmain -allocbaseline\n");
+            out.write("# A run is only checked if it plays the same sweep: the same master seed, games, mode and topology\n");
+            out.write("masterSeed=" + masterSeed + "\n");
+            out.write("games=" + games + "\n");
+            out.write("mode=" + mode + "\n");
+            out.write("topology=" + topology + "\n");
+            out.write(String.format(Locale.ROOT, "exploreBytesPerGame=%.0f%n", exploreBytes));
+            out.write(String.format(Locale.ROOT, "escapeBytesPerGame=%.0f%n", escapeBytes));
+            out.write(String.format(Locale.ROOT, "tolerance=%.2f%n", tolerance));
+        }
+    }
+
+    /**
+     * Return true iff allocation could be measured in both phases of the games this baseline
+     * was measured over.
+     */
+    boolean isMeasured() {
+        return !Double.isNaN(exploreBytes) && !Double.isNaN(escapeBytes);
+    }
+
+    /**
+     * Return a description of how the sweep run played differs from the sweep this baseline was
+     * measured over, or nothing if they are the same sweep, so that run can be checked against it.
+     */
+    Optional<String> sweepDifference(AllocationBaseline run) {
+        List<String> differences = new ArrayList<>();
+        if (run.masterSeed != masterSeed) {
+            differences.add("master seed " + run.masterSeed + " instead of " + masterSeed);
+        }
+        if (run.games != games) {
+            differences.add(run.games + " games instead of " + games);
+        }
+        if (!run.mode.equals(mode)) {
+            differences.add("mode " + run.mode + " instead of " + mode);
+        }
+        if (!run.topology.equals(topology)) {
+            differences.add("topology " + run.topology + " instead of " + topology);
+        }
+        return differences.isEmpty() ? Optional.empty() : Optional.of(String.join(", ", differences));
+    }
+
+    /**
+     * Return a description of each phase in which run allocated more per game than this
+     * baseline allows; the list is empty if run is within the baseline.
+     * Precondition: run played the same sweep as this baseline.
+     */
+    List<String> regressions(AllocationBaseline run) {
+        List<String> regressions = new ArrayList<>();
+        check(regressions, "explore", run.exploreBytes, exploreBytes);
+        check(regressions, "escape", run.escapeBytes, escapeBytes);
+        return regressions;
+    }
+
+    /**
+     * Add a description of the regression to regressions if bytes, allocated per game in
+     * the phase called phase, exceed baseline by more than the tolerance.
+     */
+    private void check(List<String> regressions, String phase, double bytes, double baseline) {
+        double limit = baseline * (1 + tolerance);
+        if (bytes > limit) {
+            regressions.add(String.format(Locale.ROOT,
+                "the %s phase allocated a median of %.0f bytes per game, %.1f%% more than the baseline of %.0f (limit %.0f)",
+                phase, bytes, 100 * (bytes / baseline - 1), baseline, limit));
+        }
+    }
+
+    /**
+     * Return a one-line summary of this baseline.
+     */
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT,
+            "median %.0f bytes per game exploring, %.0f escaping, over %d games from master seed %d (%s, topology %s)",
+            exploreBytes, escapeBytes, games, masterSeed, mode, topology);
+    }
+}
@@ -0,0 +1,169 @@
+package main;
+
+import game.Cavern;
+import game.CavernPair;
+import game.CavernTopology;
+import game.ComputeBudget;
+import game.GameResult;
+import game.GameState;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * An A/B comparison of two contestants, which play the same caverns until the difference
+ * between their scores is statistically significant or a maximum number of caverns is reached.
+ * <p>
+ * After each cavern the comparison checks a confidence sequence for the mean difference in
+ * score: an interval that contains the true mean difference at every cavern at once, with
+ * probability at least 1 - alpha. It can therefore be checked after every cavern without the
+ * false positives that repeatedly checking an ordinary confidence interval would cause.
+ * The interval is the two-sided normal mixture boundary of Howard et al. (2021), using the
+ * sample variance of the differences.
+ */
+class Comparison {
+    /**
+     * The fewest caverns played before stopping, so that the variance estimate is reasonable
+     */
+    private static final int MIN_CAVERNS = 30;
+    /**
+     * The number of caverns at which the confidence sequence is tightest
+     */
+    private static final double TUNING_CAVERNS = 100;
+
+    private final Contestant a;
+    private final Contestant b;
+    private final double alpha;
+    private final SweepStatistics statisticsA = new SweepStatistics();
+    private final SweepStatistics statisticsB = new SweepStatistics();
+    private long caverns;
+    private double meanDifference;
+    /**
+     * The sum of the squared differences between each score difference and their mean
+     */
+    private double sumSquaredDeviations;
+
+    /**
+     * Constructor: a comparison of a with b, at significance level alpha, before any games.
+     */
+    private Comparison(Contestant a, Contestant b, double alpha) {
+        this.a = a;
+        this.b = b;
+        this.alpha = alpha;
+    }
+
+    /**
+     * Play a and b on the caverns with each of seeds in turn, on threads threads, until one of
+     * them is significantly better at level alpha or every seed has been used. Return the
+     * comparison. The result does not depend on threads. Each game is kept within budget.
+     */
+    static Comparison run(Contestant a, Contestant b, double alpha, long[] seeds, int threads,
+                          Cavern.GenerationMode mode, CavernTopology topology, ComputeBudget budget) {
+        Comparison comparison = new Comparison(a, b, alpha);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        // Caverns are played a little ahead of the one being checked, and the results are
+        // checked in seed order, so the comparison stops at the same cavern however many
+        // threads there are.
+        Deque<Future<CavernOutput>> pending = new ArrayDeque<>();
+        int next = 0;
+        try {
+            while (!comparison.isDecided() && (next < seeds.length || !pending.isEmpty())) {
+                while (next < seeds.length && pending.size() < 2 * threads) {
+                    long seed = seeds[next++];
+                    pending.add(pool.submit(() -> {
+                        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+                        PrintStream err = new PrintStream(buffer, true);
+                        // Both play the one pair of caverns, which is only dug once
+                        CavernPair caverns = CavernPair.dig(seed, mode, topology);
+                        GameResult resultA = GameState.playGame(caverns, a.newExplorer(), budget, err);
+                        GameResult resultB = GameState.playGame(caverns, b.newExplorer(), budget, err);
+                        return new CavernOutput(resultA, resultB, buffer.toString());
+                    }));
+                }
+                CavernOutput output = pending.remove().get();
+                System.err.print(output.errors());
+                comparison.add(output.resultA(), output.resultB());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while running games", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("A game failed to run", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        return comparison;
+    }
+
+    /**
+     * Add the results of a and b on the same cavern.
+     */
+    private void add(GameResult resultA, GameResult resultB) {
+        statisticsA.add(resultA);
+        statisticsB.add(resultB);
+        caverns++;
+        double difference = resultA.score() - resultB.score();
+        double delta = difference - meanDifference;
+        meanDifference += delta / caverns;
+        sumSquaredDeviations += delta * (difference - meanDifference);
+    }
+
+    /**
+     * Return true iff enough caverns have been played to say which contestant is better.
+     */
+    private boolean isDecided() {
+        return caverns >= MIN_CAVERNS && Math.abs(meanDifference) > radius();
+    }
+
+    /**
+     * Return half the width of the confidence sequence for the mean difference in score,
+     * or infinity if fewer than two caverns have been played.
+     */
+    private double radius() {
+        if (caverns < 2) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double variance = sumSquaredDeviations / (caverns - 1);
+        if (variance == 0) {
+            return 0;
+        }
+        double intrinsicTime = caverns * variance;
+        double rho = TUNING_CAVERNS * variance;
+        return Math.sqrt((intrinsicTime + rho) * Math.log(4 * (intrinsicTime + rho) / (rho * alpha * alpha)))
+            / caverns;
+    }
+
+    /**
+     * Print the outcome of the comparison on out.
+     */
+    void print(PrintStream out) {
+        out.println("A : " + a.name());
+        statisticsA.print(out);
+        out.println();
+        out.println("B : " + b.name());
+        statisticsB.print(out);
+        out.println();
+        out.println("Caverns played   : " + caverns);
+        out.printf("Score A - B      : %.1f +/- %.1f (%.0f%% confidence)%n",
+            meanDifference, radius(), 100 * (1 - alpha));
+        if (!isDecided()) {
+            out.println("Result           : no significant difference");
+        } else if (meanDifference > 0) {
+            out.println("Result           : A is better");
+        } else {
+            out.println("Result           : B is better");
+        }
+    }
+
+    /**
+     * The results of a and b on one cavern, and any errors they printed.
+     */
+    private record CavernOutput(GameResult resultA, GameResult resultB, String errors) {
+    }
+}
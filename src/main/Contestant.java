@@ -0,0 +1,119 @@
+package main;
+
+import student.Explorer;
+import student.escape.EscapeStrategy;
+import student.escape.GetTopNCashWithDiversionsEscape;
+import student.explore.BasicFindBestNodeExplore;
+import student.explore.ExploreStrategy;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.ServiceLoader;
+import java.util.function.Supplier;
+
+/**
+ * A pair of strategies, one for each phase, to be played against other pairs.
+ * A pair is written on the command line as {@code <explore class>/<escape class>}. Either class
+ * may be left out to use the default strategy for that phase, and a class name without a
+ * package is looked up in {@code student.explore} or {@code student.escape}.
+ * <p>
+ * Strategies can also be discovered: each class named in a
+ * {@code META-INF/services/student.explore.ExploreStrategy} or
+ * {@code META-INF/services/student.escape.EscapeStrategy} file on the class path is a strategy
+ * for that phase (see {@code java.util.ServiceLoader}).
+ */
+record Contestant(String name, Supplier<ExploreStrategy> exploreStrategies,
+                  Supplier<EscapeStrategy> escapeStrategies) {
+
+    /**
+     * Return the contestant written as spec.
+     * Throw an IllegalArgumentException if a class cannot be found, is not a strategy for its
+     * phase, or has no public constructor without parameters.
+     */
+    static Contestant parse(String spec) {
+        return parse(spec, Contestant.class.getClassLoader());
+    }
+
+    /**
+     * As {@code parse(spec)}, but loading the strategy classes with loader, so that strategies
+     * compiled after the program started can be played by loading them with a new loader.
+     */
+    static Contestant parse(String spec, ClassLoader loader) {
+        int slash = spec.indexOf('/');
+        String explore = slash < 0 ? spec : spec.substring(0, slash);
+        String escape = slash < 0 ? "" : spec.substring(slash + 1);
+        if (explore.isEmpty()) {
+            explore = BasicFindBestNodeExplore.class.getSimpleName();
+        }
+        if (escape.isEmpty()) {
+            escape = GetTopNCashWithDiversionsEscape.class.getSimpleName();
+        }
+        return new Contestant(explore + "/" + escape,
+            constructorOf(explore, "student.explore", ExploreStrategy.class, loader),
+            constructorOf(escape, "student.escape", EscapeStrategy.class, loader));
+    }
+
+    /**
+     * Return a contestant for every pair of an explore strategy and an escape strategy that are
+     * registered as services, in the order they are registered.
+     */
+    static List<Contestant> discover() {
+        List<String> exploreClasses = ServiceLoader.load(ExploreStrategy.class).stream()
+            .map(p -> p.type().getName()).toList();
+        List<String> escapeClasses = ServiceLoader.load(EscapeStrategy.class).stream()
+            .map(p -> p.type().getName()).toList();
+        List<Contestant> contestants = new ArrayList<>();
+        for (String explore : exploreClasses) {
+            for (String escape : escapeClasses) {
+                contestants.add(parse(simpleName(explore, "student.explore") + "/"
+                    + simpleName(escape, "student.escape")));
+            }
+        }
+        return contestants;
+    }
+
+    /**
+     * Return className without its package if it is in defaultPackage, so it reads as it
+     * would be written on the command line.
+     */
+    private static String simpleName(String className, String defaultPackage) {
+        return className.startsWith(defaultPackage + ".") ? className.substring(defaultPackage.length() + 1) : className;
+    }
+
+    /**
+     * Return a new explorer that plays with this contestant's strategies.
+     */
+    Explorer newExplorer() {
+        return new Explorer(exploreStrategies, escapeStrategies);
+    }
+
+    /**
+     * Return a supplier of new instances of the class called className (in package
+     * defaultPackage if className has no package), loaded by loader, which must implement type.
+     */
+    private static <T> Supplier<T> constructorOf(String className, String defaultPackage, Class<T> type,
+                                                 ClassLoader loader) {
+        String qualifiedName = className.contains(".") ? className : defaultPackage + "." + className;
+        Constructor<? extends T> constructor;
+        try {
+            constructor = Class.forName(qualifiedName, true, loader).asSubclass(type).getConstructor();
+        } catch (ClassNotFoundException e) {
+            throw new IllegalArgumentException("No strategy called " + qualifiedName);
+        } catch (ClassCastException e) {
+            throw new IllegalArgumentException(qualifiedName + " is not a " + type.getSimpleName());
+        } catch (NoSuchMethodException e) {
+            throw new IllegalArgumentException(qualifiedName + " has no public constructor without parameters");
+        }
+        return () -> {
+            try {
+                return constructor.newInstance();
+            } catch (InvocationTargetException e) {
+                throw new IllegalStateException("Couldn't create " + qualifiedName, e.getCause());
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Couldn't create " + qualifiedName, e);
+            }
+        };
+    }
+}
@@ -0,0 +1,340 @@
+package main;
+
+import game.Cavern;
+import game.CavernTopology;
+import game.ComputeBudget;
+import game.GameResult;
+import game.GameState;
+import student.Explorer;
+import student.escape.AnytimeEscapeStrategy;
+import student.escape.EscapeStrategy;
+import student.explore.ExploreStrategy;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.net.MalformedURLException;
+import java.net.StandardProtocolFamily;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Run this program to keep a JVM running games on request, so that a short benchmarking run
+ * doesn't pay for starting the JVM and warming up the JIT compiler every time.
+ * <p>
+ * Requests are read one per line, from standard input or, with {@code -socket <path>}, from
+ * clients connecting to a Unix domain socket at path (one at a time). Each is answered by
+ * zero or more lines, and then a line starting with "ok" or "error".
+ * <ul>
+ * <li>{@code run <seeds> [<strategies>] [-g <mode>] [-t <topology>] [-b <ms>[,<ms>]]}: play a
+ * game on each seed, given as one seed or as a range {@code <first>..<last>}, with the strategies
+ * (written as for TXTmain's -c) and compute budget (as for TXTmain's -b or -bcpu), and stream a
+ * CSV row for each game as it finishes, preceded by anything the game wrote to its error stream
+ * (such as a strategy's exception), one line at a time, each starting with "# ". An option that
+ * is not valid is answered by "error" without playing any game.</li>
+ * <li>{@code reload}: load the strategies in the -r directory afresh, so that later runs play
+ * their latest compiled versions.</li>
+ * <li>{@code quit}: end this client's session (or the program, on standard input).</li>
+ * <li>{@code shutdown}: end the program.</li>
+ * </ul>
+ * With {@code -r <directory>}, strategy classes are loaded from directory (a class path
+ * directory, so {@code student.explore.MyExplore} is in {@code student/explore/MyExplore.class})
+ * by a class loader that {@code reload} replaces. Classes in the {@code student} packages are
+ * looked for in directory first, so a strategy is reloaded even if an older version of it is on
+ * the program's own class path; only the types the program plays strategies through (such as
+ * {@code ExploreStrategy}) always come from its class path.
+ */
+public class Daemon {
+    /**
+     * The options a run request may have, each followed by a value
+     */
+    private static final List<String> RUN_OPTIONS = List.of("-g", "-t", "-b", "-bcpu");
+    /**
+     * The start of each line a game writes to its error stream, as sent to the client
+     */
+    private static final String ERROR_PREFIX = "# ";
+
+    /**
+     * The directory of reloadable strategies, or null if there is none
+     */
+    private final Path strategies;
+    /**
+     * Loads the strategies played; replaced by reload
+     */
+    private ClassLoader loader;
+
+    /**
+     * Constructor: a daemon loading strategies from the directory strategies as well as from
+     * its own class path, or only from its class path if strategies is null.
+     */
+    private Daemon(Path strategies) {
+        this.strategies = strategies;
+        loader = strategies == null ? Daemon.class.getClassLoader() : newLoader(strategies);
+    }
+
+    /**
+     * The main program.
+     */
+    public static void main(String[] args) throws IOException {
+        List<String> argList = new ArrayList<>(Arrays.asList(args));
+        Optional<Path> strategies = pathArg(argList, "-r");
+        Optional<Path> socket = pathArg(argList, "-socket");
+        Daemon daemon = new Daemon(strategies.orElse(null));
+
+        if (socket.isEmpty()) {
+            daemon.serve(new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8)),
+                new PrintWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8)));
+            return;
+        }
+
+        try (ServerSocketChannel server = ServerSocketChannel.open(StandardProtocolFamily.UNIX)) {
+            server.bind(UnixDomainSocketAddress.of(socket.get()));
+            System.err.println("Listening on " + socket.get());
+            boolean shutdown = false;
+            while (!shutdown) {
+                try (SocketChannel client = server.accept()) {
+                    shutdown = daemon.serve(
+                        new BufferedReader(Channels.newReader(client, StandardCharsets.UTF_8)),
+                        new PrintWriter(Channels.newWriter(client, StandardCharsets.UTF_8)));
+                } catch (IOException e) {
+                    System.err.println("Lost client: " + e.getMessage());
+                }
+            }
+        } finally {
+            Files.deleteIfExists(socket.get());
+        }
+    }
+
+    /**
+     * Return the path following flag in args, if there is one.
+     */
+    private static Optional<Path> pathArg(List<String> args, String flag) {
+        int index = args.indexOf(flag);
+        if (index < 0) {
+            return Optional.empty();
+        }
+        if (index + 1 >= args.size()) {
+            System.err.println("Error, " + flag + " must be followed by a path");
+            return Optional.empty();
+        }
+        return Optional.of(Path.of(args.get(index + 1)));
+    }
+
+    /**
+     * Answer the requests read from in on out, until in ends or a client asks to quit or shut
+     * down, and return true iff the program should shut down.
+     */
+    private boolean serve(BufferedReader in, PrintWriter out) throws IOException {
+        String line;
+        while ((line = in.readLine()) != null) {
+            List<String> request = new ArrayList<>(Arrays.asList(line.trim().split("\\s+")));
+            try {
+                switch (request.get(0)) {
+                    case "" -> {
+                        continue;
+                    }
+                    case "run" -> run(request.subList(1, request.size()), out);
+                    case "reload" -> reload(out);
+                    case "quit" -> {
+                        out.println("ok");
+                        out.flush();
+                        return false;
+                    }
+                    case "shutdown" -> {
+                        out.println("ok");
+                        out.flush();
+                        return true;
+                    }
+                    default -> out.println("error Unknown request " + request.get(0)
+                        + "; expected run, reload, quit or shutdown");
+                }
+            } catch (IllegalArgumentException | IllegalStateException e) {
+                out.println("error " + e.getMessage());
+            }
+            out.flush();
+        }
+        return false;
+    }
+
+    /**
+     * Play the games asked for by args (the words of a run request after "run"), streaming a
+     * record of each to out, preceded by anything the game wrote to its error stream.
+     * Throw an IllegalArgumentException if args are not a valid run request.
+     */
+    private void run(List<String> args, PrintWriter out) throws IOException {
+        if (args.isEmpty()) {
+            throw new IllegalArgumentException("run must be followed by a seed or a range of seeds");
+        }
+        long[] seeds = parseSeeds(args.get(0));
+        boolean named = args.size() > 1 && !args.get(1).startsWith("-");
+        Map<String, String> options = parseOptions(args.subList(named ? 2 : 1, args.size()));
+        if (options.containsKey("-b") && options.containsKey("-bcpu")) {
+            throw new IllegalArgumentException("Give -b or -bcpu, not both");
+        }
+        Cavern.GenerationMode mode = options.containsKey("-g")
+            ? Utilities.parseGenerationMode(options.get("-g")) : Cavern.GenerationMode.REJECTION;
+        CavernTopology topology = options.containsKey("-t") ? Utilities.parseTopology(options.get("-t")) : null;
+        ComputeBudget budget = ComputeBudget.UNLIMITED;
+        for (String flag : List.of("-b", "-bcpu")) {
+            if (options.containsKey(flag)) {
+                budget = Utilities.parseBudget(flag, options.get(flag));
+            }
+        }
+        Contestant contestant = Contestant.parse(named ? args.get(1) : "/", loader);
+
+        SweepStatistics statistics = new SweepStatistics();
+        ResultWriter results = new ResultWriter(out, false);
+        results.flush();
+        for (long seed : seeds) {
+            ByteArrayOutputStream err = new ByteArrayOutputStream();
+            GameResult result = GameState.playGame(seed, mode, topology, contestant.newExplorer(), budget,
+                new PrintStream(err, true, StandardCharsets.UTF_8));
+            err.toString(StandardCharsets.UTF_8).lines().forEach(line -> out.println(ERROR_PREFIX + line));
+            results.write(result);
+            results.flush();
+            statistics.add(result);
+        }
+        out.printf("ok %d games played by %s, mean score %.2f%n", statistics.count(), contestant.name(),
+            statistics.meanScore());
+    }
+
+    /**
+     * Return the value given to each option in words, which must be pairs of an option of a run
+     * request and its value.
+     * Throw an IllegalArgumentException if they are not, or if an option is given twice.
+     */
+    private static Map<String, String> parseOptions(List<String> words) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < words.size(); i += 2) {
+            String flag = words.get(i);
+            if (!RUN_OPTIONS.contains(flag)) {
+                throw new IllegalArgumentException("Unknown option " + flag + "; expected one of " + RUN_OPTIONS);
+            }
+            if (i + 1 >= words.size()) {
+                throw new IllegalArgumentException(flag + " must be followed by a value");
+            }
+            if (options.put(flag, words.get(i + 1)) != null) {
+                throw new IllegalArgumentException(flag + " is given more than once");
+            }
+        }
+        return options;
+    }
+
+    /**
+     * Return the seeds written as spec: one seed, or {@code <first>..<last>} for every seed
+     * from first to last inclusive.
+     * Throw an IllegalArgumentException if spec is not like that, or includes seed 0 (which would
+     * ask for a random game).
+     */
+    private static long[] parseSeeds(String spec) {
+        int dots = spec.indexOf("..");
+        long first;
+        long last;
+        try {
+            first = Long.parseLong(dots < 0 ? spec : spec.substring(0, dots));
+            last = dots < 0 ? first : Long.parseLong(spec.substring(dots + 2));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Couldn't parse seeds " + spec);
+        }
+        if (last < first || last - first >= Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Seeds " + spec + " are not a valid range");
+        }
+        if (first <= 0 && last >= 0) {
+            throw new IllegalArgumentException("Seed 0 asks for a random game, so can't be run");
+        }
+        long[] seeds = new long[(int) (last - first + 1)];
+        for (int i = 0; i < seeds.length; i++) {
+            seeds[i] = first + i;
+        }
+        return seeds;
+    }
+
+    /**
+     * Replace the loader of strategies, so later runs play what is in the strategies directory now.
+     * Throw an IllegalStateException if there is no strategies directory.
+     */
+    private void reload(PrintWriter out) throws IOException {
+        if (strategies == null) {
+            throw new IllegalStateException("There is nothing to reload; start with -r <directory>");
+        }
+        ClassLoader old = loader;
+        loader = newLoader(strategies);
+        // Games already played hold no references to the old strategies, so they can go.
+        if (old instanceof URLClassLoader u) {
+            u.close();
+        }
+        out.println("ok reloaded " + strategies);
+    }
+
+    /**
+     * Return a new loader of classes from the directory strategies, and from the program's own
+     * class path.
+     */
+    private static ClassLoader newLoader(Path strategies) {
+        try {
+            return new StrategyLoader(strategies.toUri().toURL(), Daemon.class.getClassLoader());
+        } catch (MalformedURLException e) {
+            throw new IllegalArgumentException("Couldn't load strategies from " + strategies, e);
+        }
+    }
+
+    /**
+     * A class loader that loads the classes of the strategy packages from a directory before
+     * asking its parent, and every other class from its parent first as usual. The types the
+     * program plays strategies through are always loaded by the parent, so that the strategies
+     * it loads are still instances of them.
+     */
+    private static final class StrategyLoader extends URLClassLoader {
+        private static final String STRATEGY_PACKAGES = "student.";
+        private static final Set<String> SHARED = Set.of(Explorer.class.getName(), ExploreStrategy.class.getName(),
+            EscapeStrategy.class.getName(), AnytimeEscapeStrategy.class.getName());
+
+        /**
+         * Constructor: a loader of strategies from the class path directory at directory,
+         * and of everything else from parent.
+         */
+        StrategyLoader(URL directory, ClassLoader parent) {
+            super(new URL[]{directory}, parent);
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            if (!name.startsWith(STRATEGY_PACKAGES) || SHARED.contains(name)) {
+                return super.loadClass(name, resolve);
+            }
+            synchronized (getClassLoadingLock(name)) {
+                Class<?> c = findLoadedClass(name);
+                if (c == null) {
+                    try {
+                        c = findClass(name);
+                    } catch (ClassNotFoundException e) {
+                        // Not in the directory, so it can only be on the program's class path.
+                        c = getParent().loadClass(name);
+                    }
+                }
+                if (resolve) {
+                    resolveClass(c);
+                }
+                return c;
+            }
+        }
+    }
+}
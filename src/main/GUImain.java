@@ -1,5 +1,8 @@
 package main;
 
+import game.AsyncGameListener;
+import game.Cavern;
+import game.CavernTopology;
 import game.GameState;
 
 import java.util.Optional;
@@ -14,6 +17,13 @@ public class GUImain {
      */
     public static void main(String[] args) {
         Optional<Long> seed = Utilities.parseSeedArgs(args);
-        GameState.runNewGame((seed.isPresent() ? seed.get() : 0), true);
+        Cavern.GenerationMode mode = Utilities.parseGenerationModeArgs(args);
+        Optional<CavernTopology> topology = Utilities.parseTopologyArgs(args);
+        Optional<AsyncGameListener.Policy> events = Utilities.parseEventPolicyArgs(args);
+        if (events.isPresent()) {
+            GameState.runNewGame(seed.orElse(0L), mode, topology.orElse(null), events.get());
+        } else {
+            GameState.runNewGame((seed.isPresent() ? seed.get() : 0), true, mode, topology.orElse(null));
+        }
     }
 }
@@ -0,0 +1,237 @@
+package main;
+
+import game.Cavern;
+import game.CavernView;
+import game.MappedCavern;
+import game.OffHeapCavern;
+import student.PathFinder;
+import student.StudentNode;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+/**
+ * Run this program to dig a cavern too large to be held on the heap (such as 50,000 x 50,000
+ * tiles) into a memory-mapped file, and to measure how fast it can be queried and searched.
+ * <p>
+ * {@code LargeCavern <rows>x<cols> [-s <seed>] [-f <file>] [-weighted] [-queries <n>] [-path]
+ * [-offheap]}: the cavern is dug into file (a temporary file, deleted afterwards, if none is
+ * given), with edge weights as in an escape cavern if -weighted is given. Then n tiles (a million
+ * by default) chosen at random are queried, and, with -path, the team's {@code PathFinder} finds
+ * the shortest path from the entrance to the orb. The search keeps every tile it reaches on the
+ * heap, so -path needs a heap large enough for the tiles between the entrance and the orb.
+ * With -offheap, the cavern is then loaded into an {@code OffHeapCavern}, as a process keeping
+ * many caverns loaded would hold them, and the same queries and search are timed on that.
+ */
+public class LargeCavern {
+    /**
+     * The number of tiles queried if -queries is not given
+     */
+    private static final int DEFAULT_QUERIES = 1_000_000;
+    /**
+     * The most tiles an OffHeapCavern can hold
+     */
+    private static final long MAX_OFF_HEAP_TILES = 1L << 29;
+
+    /**
+     * The main program.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0 || !args[0].matches("\\d+x\\d+")) {
+            System.err.println("Error, the first argument must be the size of the cavern, as <rows>x<cols>");
+            return;
+        }
+        String[] size = args[0].split("x");
+        int rows;
+        int cols;
+        try {
+            rows = Integer.parseInt(size[0]);
+            cols = Integer.parseInt(size[1]);
+        } catch (NumberFormatException e) {
+            System.err.println("Error, " + args[0] + " is too large");
+            return;
+        }
+        if (rows < 8 || cols < 12) {
+            System.err.println("Error, a cavern must be at least 8x12");
+            return;
+        }
+        List<String> argList = new ArrayList<>(Arrays.asList(args));
+        long seed = Utilities.parseSeedArgs(args).orElseGet(() -> new Random().nextLong());
+        Optional<Path> named = fileArg(argList);
+        int queries = parseQueriesArgs(argList);
+        Path file = named.isPresent() ? named.get() : Files.createTempFile("cavern", ".map");
+
+        try {
+            System.out.println("Seed : " + seed);
+            long start = System.nanoTime();
+            try (MappedCavern cavern = MappedCavern.generate(file, rows, cols, new Random(seed),
+                argList.contains("-weighted"))) {
+                System.out.printf("Dug a %d x %d cavern with %d open tiles into %s (%d bytes) in %.1f ms%n",
+                    rows, cols, cavern.numOpenTiles(), file, Files.size(file), millisSince(start));
+                benchmark(cavern, seed, queries, argList.contains("-path"));
+                System.out.println(cavern.mappedPageCount() + " page(s) of the file mapped");
+                if (argList.contains("-offheap")) {
+                    benchmarkOffHeap(cavern, seed, queries, argList.contains("-path"));
+                }
+            }
+        } finally {
+            if (named.isEmpty()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    /**
+     * Query queries random tiles of cavern, chosen using seed, and find the shortest path from its
+     * entrance to its orb if path is true, printing how long each took.
+     */
+    private static void benchmark(CavernView cavern, long seed, int queries, boolean path) {
+        SplittableRandom rand = new SplittableRandom(seed);
+        int open = 0;
+        int edges = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < queries; i++) {
+            int r = rand.nextInt(cavern.getRowCount());
+            int c = rand.nextInt(cavern.getColumnCount());
+            if (cavern.getTileTypeAt(r, c).isOpen()) {
+                open++;
+                for (Cavern.Direction dir : Cavern.Direction.values()) {
+                    if (cavern.getEdgeWeight(r, c, dir) > 0) {
+                        edges++;
+                    }
+                }
+            }
+        }
+        double millis = millisSince(start);
+        System.out.printf("Queried %d random tiles (%d open, with %d edges) in %.1f ms (%.0f ns per tile)%n",
+            queries, open, edges, millis, queries == 0 ? 0 : millis * 1e6 / queries);
+
+        if (path) {
+            start = System.nanoTime();
+            List<TileNode> shortest = PathFinder.findShortestPath(
+                new TileNode(cavern, cavern.getEntranceRow(), cavern.getEntranceColumn()),
+                new TileNode(cavern, cavern.getTargetRow(), cavern.getTargetColumn()));
+            millis = millisSince(start);
+            int length = 0;
+            for (int i = 1; i < shortest.size(); i++) {
+                length += shortest.get(i - 1).lengthTo(shortest.get(i));
+            }
+            System.out.printf("Found the shortest path from the entrance to the orb (%d steps, length %d) in %.1f ms%n",
+                shortest.size() - 1, length, millis);
+        }
+    }
+
+    /**
+     * Load cavern into an OffHeapCavern and benchmark the copy as benchmark() does, unless it is
+     * too large to be held off the heap.
+     */
+    private static void benchmarkOffHeap(CavernView cavern, long seed, int queries, boolean path) {
+        if ((long) cavern.getRowCount() * cavern.getColumnCount() > MAX_OFF_HEAP_TILES) {
+            System.err.println("Error, a cavern of more than " + MAX_OFF_HEAP_TILES + " tiles can't be held off the heap");
+            return;
+        }
+        long start = System.nanoTime();
+        try (OffHeapCavern copy = OffHeapCavern.copyOf(cavern)) {
+            System.out.printf("Loaded the cavern off the heap in %.1f ms%n", millisSince(start));
+            benchmark(copy, seed, queries, path);
+        }
+    }
+
+    /**
+     * Return the milliseconds since the time start, as given by System.nanoTime().
+     */
+    private static double millisSince(long start) {
+        return (System.nanoTime() - start) / 1e6;
+    }
+
+    /**
+     * Return the file following -f in args, if there is one.
+     */
+    private static Optional<Path> fileArg(List<String> args) {
+        int index = args.indexOf("-f");
+        if (index < 0) {
+            return Optional.empty();
+        }
+        if (index + 1 >= args.size()) {
+            System.err.println("Error, -f must be followed by a file");
+            return Optional.empty();
+        }
+        return Optional.of(Path.of(args.get(index + 1)));
+    }
+
+    /**
+     * Return the number of tiles to query, given by -queries in args.
+     */
+    private static int parseQueriesArgs(List<String> args) {
+        int index = args.indexOf("-queries");
+        int queries = DEFAULT_QUERIES;
+        if (index >= 0) {
+            try {
+                queries = Math.max(Integer.parseInt(args.get(index + 1)), 0);
+            } catch (NumberFormatException | IndexOutOfBoundsException e) {
+                System.err.println("Error, -queries must be followed by a number of tiles");
+            }
+        }
+        return queries;
+    }
+
+    /**
+     * A tile of a CavernView, so that the team's PathFinder can search caverns that hold no
+     * Node objects. Two instances are equal if they are for the same tile of the same cavern.
+     */
+    private static final class TileNode extends StudentNode<TileNode> {
+        private final CavernView cavern;
+        private final int row;
+        private final int col;
+
+        /**
+         * Constructor: the tile at (row, col) of cavern.
+         */
+        TileNode(CavernView cavern, int row, int col) {
+            super((long) row * cavern.getColumnCount() + col);
+            this.cavern = cavern;
+            this.row = row;
+            this.col = col;
+        }
+
+        @Override
+        public Set<TileNode> neighbours() {
+            Set<TileNode> neighbours = new HashSet<>();
+            for (Cavern.Direction dir : Cavern.Direction.values()) {
+                if (cavern.getEdgeWeight(row, col, dir) > 0) {
+                    neighbours.add(new TileNode(cavern, row + dir.getRowOffset(), col + dir.getColumnOffset()));
+                }
+            }
+            return neighbours;
+        }
+
+        @Override
+        public int lengthTo(TileNode neighbour) {
+            for (Cavern.Direction dir : Cavern.Direction.values()) {
+                if (row + dir.getRowOffset() == neighbour.row && col + dir.getColumnOffset() == neighbour.col) {
+                    return cavern.getEdgeWeight(row, col, dir);
+                }
+            }
+            throw new IllegalArgumentException("lengthTo: " + neighbour.id() + " is not next to " + id());
+        }
+
+        @Override
+        public boolean equals(Object ob) {
+            return ob instanceof TileNode t && t.cavern == cavern && t.id() == id();
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(id());
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package main;
+
+import game.AsyncGameListener;
+import game.Cavern;
+import game.CavernPair;
+import game.CavernTopology;
+import game.ComputeBudget;
+import game.GameResult;
+import game.GameState;
+import game.MoveLog;
+import student.Explorer;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Run this program to replay a game logged by TXTmain's -l option, making exactly the moves that
+ * were made without running the strategies that made them, for example to profile the game
+ * itself or to watch a game that went wrong.
+ * <p>
+ * {@code Replay <log> [-g <mode>] [-t <topology>] [-n <times>] [-gui [-e <policy>]]}: the caverns
+ * are dug again from the seed in the log, so -g and -t must be as they were when it was recorded.
+ * Without -gui, the game is replayed headlessly, -n times (once by default), as fast as possible,
+ * and the time taken is reported. With -gui, it is shown in the GUI, as GUImain shows a game.
+ */
+public class Replay {
+    /**
+     * The main program.
+     */
+    public static void main(String[] args) {
+        if (args.length == 0 || args[0].startsWith("-")) {
+            System.err.println("Error, the first argument must be a move log");
+            return;
+        }
+        Path path = Path.of(args[0]);
+        MoveLog log;
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(path))) {
+            log = MoveLog.readFrom(in);
+        } catch (IOException e) {
+            System.err.println("Couldn't read " + path + ": " + e.getMessage());
+            return;
+        }
+
+        List<String> argList = new ArrayList<>(Arrays.asList(args));
+        Cavern.GenerationMode mode = Utilities.parseGenerationModeArgs(args);
+        Optional<CavernTopology> topology = Utilities.parseTopologyArgs(args);
+        CavernPair caverns = CavernPair.dig(log.seed(), mode, topology.orElse(null));
+        Explorer replayer;
+        try {
+            replayer = log.replayer(caverns);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Error, " + e.getMessage());
+            return;
+        }
+
+        System.out.println("Seed : " + log.seed());
+        if (argList.contains("-gui")) {
+            Optional<AsyncGameListener.Policy> events = Utilities.parseEventPolicyArgs(args);
+            report(GameState.playGame(caverns, replayer, events.orElse(null), System.err));
+            return;
+        }
+
+        int times = Utilities.parseRepeatArgs(args);
+        GameResult result = null;
+        long start = System.nanoTime();
+        for (int i = 0; i < times; i++) {
+            result = GameState.playGame(caverns, replayer, ComputeBudget.UNLIMITED, System.err);
+        }
+        double millis = (System.nanoTime() - start) / 1e6;
+        report(result);
+        System.out.printf("Replayed %d time%s in %.1f ms (%.3f ms per game)%n", times, times == 1 ? "" : "s",
+            millis, millis / times);
+    }
+
+    /**
+     * Print the summary of result, if the explore phase succeeded.
+     */
+    private static void report(GameResult result) {
+        if (result.exploreSucceeded()) {
+            System.out.print(result.summary());
+        }
+    }
+}
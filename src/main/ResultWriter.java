@@ -0,0 +1,94 @@
+package main;
+
+import game.GameResult;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Writes one record per game to a file, for analysing headless runs without scraping the
+ * console output. Files whose names end in ".jsonl" or ".json" get one JSON object per line;
+ * any other file gets CSV with a header row. Records can also be streamed to any writer.
+ */
+class ResultWriter implements Closeable {
+    private static final String[] COLUMNS = {"seed", "steps", "minSteps", "gold", "bonus", "score",
+        "exploreSucceeded", "escapeSucceeded", "exploreCpuNanos", "escapeCpuNanos", "allocatedBytes",
+        "exploreOverBudget", "escapeOverBudget", "exploreAllocatedBytes", "escapeAllocatedBytes"};
+
+    private final BufferedWriter writer;
+    private final boolean json;
+
+    /**
+     * Constructor: a writer of records to the file at path, which is replaced if it exists.
+     */
+    ResultWriter(Path path) throws IOException {
+        this(Files.newBufferedWriter(path, StandardCharsets.UTF_8), isJson(path));
+    }
+
+    /**
+     * Constructor: a writer of records to out, as JSON Lines if json is true and CSV otherwise.
+     */
+    ResultWriter(Writer out, boolean json) throws IOException {
+        this.json = json;
+        writer = out instanceof BufferedWriter b ? b : new BufferedWriter(out);
+        if (!json) {
+            writer.write(String.join(",", COLUMNS));
+            writer.newLine();
+        }
+    }
+
+    /**
+     * Return true iff records written to the file at path should be JSON Lines.
+     */
+    private static boolean isJson(Path path) {
+        String name = path.getFileName().toString();
+        return name.endsWith(".jsonl") || name.endsWith(".json");
+    }
+
+    /**
+     * Write the record for result.
+     */
+    void write(GameResult result) throws IOException {
+        Object[] values = {result.seed(), result.stepsTaken(), result.minSteps(), result.goldCollected(),
+            result.bonusMultiplier(), result.score(), result.exploreSucceeded(), result.escapeSucceeded(),
+            result.exploreCpuNanos(), result.escapeCpuNanos(), result.allocatedBytes(),
+            result.exploreOverBudget(), result.escapeOverBudget(), result.exploreAllocatedBytes(),
+            result.escapeAllocatedBytes()};
+        StringBuilder line = new StringBuilder();
+        if (json) {
+            line.append('{');
+            for (int i = 0; i < COLUMNS.length; i++) {
+                if (i > 0) line.append(',');
+                line.append('"').append(COLUMNS[i]).append("\":").append(values[i]);
+            }
+            line.append('}');
+        } else {
+            for (int i = 0; i < COLUMNS.length; i++) {
+                if (i > 0) line.append(',');
+                line.append(values[i]);
+            }
+        }
+        writer.write(line.toString());
+        writer.newLine();
+    }
+
+    /**
+     * Write out any buffered records.
+     */
+    void flush() throws IOException {
+        writer.flush();
+    }
+
+    /**
+     * Write out any buffered records and close the file.
+     */
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+}
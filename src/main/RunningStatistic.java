@@ -0,0 +1,154 @@
+package main;
+
+/**
+ * An instance summarises a stream of non-negative numbers in constant space: their count,
+ * mean, variance, minimum and maximum exactly, and their percentiles to within about 1%
+ * using a histogram with logarithmically sized buckets.
+ * An instance must only be used by one thread at a time; to summarise values produced on
+ * several threads, give each thread its own instance and merge them when the threads are done.
+ */
+class RunningStatistic {
+    /**
+     * Each power of two is split into 2^SUB_BUCKET_BITS buckets of equal width
+     */
+    private static final int SUB_BUCKET_BITS = 7;
+    /**
+     * The smallest and largest binary exponents with their own buckets; values outside this
+     * range are counted in the lowest or highest bucket.
+     */
+    private static final int MIN_EXPONENT = -20;
+    private static final int MAX_EXPONENT = 62;
+    private static final int BUCKETS = (MAX_EXPONENT - MIN_EXPONENT + 1) << SUB_BUCKET_BITS;
+
+    /**
+     * Bucket 0 holds 0 (and anything too small for the other buckets), and bucket BUCKETS + 1
+     * holds anything too large for them.
+     */
+    private final long[] histogram = new long[BUCKETS + 2];
+    private long count;
+    private double mean;
+    /**
+     * The sum of the squared differences between each value and the mean
+     */
+    private double sumSquaredDeviations;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    /**
+     * Add value to the stream.
+     * Precondition: value is not negative.
+     */
+    void add(double value) {
+        count++;
+        double delta = value - mean;
+        mean += delta / count;
+        sumSquaredDeviations += delta * (value - mean);
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+        histogram[bucketOf(value)]++;
+    }
+
+    /**
+     * Add all the values summarised by other to this stream. other is not changed.
+     */
+    void merge(RunningStatistic other) {
+        if (other.count == 0) {
+            return;
+        }
+        long total = count + other.count;
+        double delta = other.mean - mean;
+        sumSquaredDeviations += other.sumSquaredDeviations + delta * delta * count * other.count / total;
+        mean += delta * other.count / total;
+        count = total;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        for (int i = 0; i < histogram.length; i++) {
+            histogram[i] += other.histogram[i];
+        }
+    }
+
+    /**
+     * Return the number of values added.
+     */
+    long count() {
+        return count;
+    }
+
+    /**
+     * Return the mean of the values, or NaN if there are none.
+     */
+    double mean() {
+        return count == 0 ? Double.NaN : mean;
+    }
+
+    /**
+     * Return the sample standard deviation of the values, or NaN if there are fewer than two.
+     */
+    double standardDeviation() {
+        return count < 2 ? Double.NaN : Math.sqrt(sumSquaredDeviations / (count - 1));
+    }
+
+    /**
+     * Return the smallest value, or NaN if there are none.
+     */
+    double min() {
+        return count == 0 ? Double.NaN : min;
+    }
+
+    /**
+     * Return the largest value, or NaN if there are none.
+     */
+    double max() {
+        return count == 0 ? Double.NaN : max;
+    }
+
+    /**
+     * Return (approximately) the smallest value that at least fraction of the values are no
+     * greater than, or NaN if there are no values.
+     * Precondition: 0 <= fraction <= 1.
+     */
+    double percentile(double fraction) {
+        if (count == 0) {
+            return Double.NaN;
+        }
+        long rank = Math.max(1, (long) Math.ceil(fraction * count));
+        long seen = 0;
+        for (int i = 0; i < histogram.length; i++) {
+            seen += histogram[i];
+            if (seen >= rank) {
+                return Math.max(min, Math.min(max, midpointOf(i)));
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Return the index of the histogram bucket holding value.
+     */
+    /* package */ static int bucketOf(double value) {
+        if (value <= 0) {
+            return 0;
+        }
+        int exponent = Math.getExponent(value);
+        if (exponent < MIN_EXPONENT) {
+            return 0;
+        }
+        if (exponent > MAX_EXPONENT) {
+            return BUCKETS + 1;
+        }
+        int subBucket = (int) (Double.doubleToRawLongBits(value) >>> (52 - SUB_BUCKET_BITS)) & ((1 << SUB_BUCKET_BITS) - 1);
+        return 1 + ((exponent - MIN_EXPONENT) << SUB_BUCKET_BITS) + subBucket;
+    }
+
+    /**
+     * Return the value in the middle of the histogram bucket with index bucket.
+     */
+    /* package */ static double midpointOf(int bucket) {
+        if (bucket == 0) {
+            return 0;
+        }
+        int exponent = ((bucket - 1) >> SUB_BUCKET_BITS) + MIN_EXPONENT;
+        int subBucket = (bucket - 1) & ((1 << SUB_BUCKET_BITS) - 1);
+        return Math.scalb(1 + (subBucket + 0.5) / (1 << SUB_BUCKET_BITS), exponent);
+    }
+}
@@ -0,0 +1,148 @@
+package main;
+
+import game.GameResult;
+
+import java.io.PrintStream;
+
+/**
+ * Running statistics over the results of the games in a headless run.
+ * As with {@code RunningStatistic}, an instance must only be used by one thread at a time,
+ * and instances built on different threads are combined with {@code merge()}.
+ */
+class SweepStatistics {
+    private static final double NANOS_PER_MILLI = 1e6;
+    private static final double BYTES_PER_KIB = 1024;
+
+    private final RunningStatistic score = new RunningStatistic();
+    private final RunningStatistic gold = new RunningStatistic();
+    private final RunningStatistic bonus = new RunningStatistic();
+    private final RunningStatistic extraSteps = new RunningStatistic();
+    private final RunningStatistic exploreMillis = new RunningStatistic();
+    private final RunningStatistic escapeMillis = new RunningStatistic();
+    private final RunningStatistic exploreKib = new RunningStatistic();
+    private final RunningStatistic escapeKib = new RunningStatistic();
+    private long overBudget;
+
+    /**
+     * Add the result of one game.
+     */
+    void add(GameResult result) {
+        score.add(result.score());
+        gold.add(result.goldCollected());
+        bonus.add(result.bonusMultiplier());
+        extraSteps.add(Math.max(0, result.stepsTaken() - result.minSteps()));
+        if (result.exploreCpuNanos() >= 0) {
+            exploreMillis.add(result.exploreCpuNanos() / NANOS_PER_MILLI);
+        }
+        if (result.escapeCpuNanos() >= 0) {
+            escapeMillis.add(result.escapeCpuNanos() / NANOS_PER_MILLI);
+        }
+        if (result.exploreAllocatedBytes() >= 0) {
+            exploreKib.add(result.exploreAllocatedBytes() / BYTES_PER_KIB);
+        }
+        if (result.escapeAllocatedBytes() >= 0) {
+            escapeKib.add(result.escapeAllocatedBytes() / BYTES_PER_KIB);
+        }
+        if (result.exploreOverBudget() || result.escapeOverBudget()) {
+            overBudget++;
+        }
+    }
+
+    /**
+     * Add all the results in other. other is not changed.
+     */
+    void merge(SweepStatistics other) {
+        score.merge(other.score);
+        gold.merge(other.gold);
+        bonus.merge(other.bonus);
+        extraSteps.merge(other.extraSteps);
+        exploreMillis.merge(other.exploreMillis);
+        escapeMillis.merge(other.escapeMillis);
+        exploreKib.merge(other.exploreKib);
+        escapeKib.merge(other.escapeKib);
+        overBudget += other.overBudget;
+    }
+
+    /**
+     * Return the number of games added.
+     */
+    long count() {
+        return score.count();
+    }
+
+    /**
+     * Return the mean score of the games added, or NaN if there are none.
+     */
+    double meanScore() {
+        return score.mean();
+    }
+
+    /**
+     * Return the mean CPU time in milliseconds that a game's explore and escape phases took
+     * together, or NaN if it could not be measured.
+     */
+    double meanCpuMillis() {
+        return exploreMillis.mean() + escapeMillis.mean();
+    }
+
+    /**
+     * Return the mean number of bytes allocated in a game's explore phase, or NaN if it could
+     * not be measured.
+     */
+    double meanExploreAllocatedBytes() {
+        return exploreKib.mean() * BYTES_PER_KIB;
+    }
+
+    /**
+     * Return the mean number of bytes allocated in a game's escape phase, or NaN if it could
+     * not be measured.
+     */
+    double meanEscapeAllocatedBytes() {
+        return escapeKib.mean() * BYTES_PER_KIB;
+    }
+
+    /**
+     * Return the median number of bytes allocated in a game's explore phase, or NaN if it could
+     * not be measured.
+     */
+    double medianExploreAllocatedBytes() {
+        return exploreKib.percentile(0.5) * BYTES_PER_KIB;
+    }
+
+    /**
+     * Return the median number of bytes allocated in a game's escape phase, or NaN if it could
+     * not be measured.
+     */
+    double medianEscapeAllocatedBytes() {
+        return escapeKib.percentile(0.5) * BYTES_PER_KIB;
+    }
+
+    /**
+     * Print a table of the statistics on out, followed by the number of games that went over
+     * their compute budget, if any did.
+     */
+    void print(PrintStream out) {
+        out.printf("%-20s %10s %10s %10s %10s %10s %10s %10s%n",
+            "", "mean", "std dev", "min", "p50", "p90", "p99", "max");
+        printRow(out, "Score", score);
+        printRow(out, "Gold collected", gold);
+        printRow(out, "Bonus multiplier", bonus);
+        printRow(out, "Extra explore steps", extraSteps);
+        printRow(out, "Explore CPU (ms)", exploreMillis);
+        printRow(out, "Escape CPU (ms)", escapeMillis);
+        printRow(out, "Explore alloc (KiB)", exploreKib);
+        printRow(out, "Escape alloc (KiB)", escapeKib);
+        if (overBudget > 0) {
+            out.println("Over compute budget : " + overBudget + " of " + count() + " games");
+        }
+    }
+
+    /**
+     * Print the row of the table for stat, which is called name, on out.
+     */
+    private static void printRow(PrintStream out, String name, RunningStatistic stat) {
+        out.printf("%-20s %10.2f %10.2f %10.2f %10.2f %10.2f %10.2f %10.2f%n", name, stat.mean(),
+            stat.standardDeviation(), stat.min(), stat.percentile(0.5), stat.percentile(0.9),
+            stat.percentile(0.99), stat.max());
+    }
+}
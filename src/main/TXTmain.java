@@ -1,17 +1,56 @@
 package main;
 
+import game.Cavern;
+import game.CavernTopology;
+import game.ComputeBudget;
+import game.GameResult;
 import game.GameState;
+import game.Metrics;
+import game.Tracer;
+import student.Explorer;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.Queue;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 /**
  * Runs the program via the text (console) interface.
  */
 public class TXTmain {
+    /**
+     * The most caverns played by a comparison (-c) if -n is not given
+     */
+    private static final int DEFAULT_COMPARISON_CAVERNS = 1000;
+    /**
+     * The number of caverns played in a tournament (-tournament) if -n is not given
+     */
+    private static final int DEFAULT_TOURNAMENT_CAVERNS = 100;
+    /**
+     * The number of unmeasured games played before a sweep whose allocation is checked (-allocbaseline)
+     */
+    private static final int WARM_UP_GAMES = 30;
+    /**
+     * The id of the last game traced, so that each game traced is shown as a process of its own
+     */
+    private static final AtomicInteger traceIds = new AtomicInteger();
+
     public static void main(String[] args) {
         List<String> argList = new ArrayList<>(Arrays.asList(args));
         int repeatNumberIndex = argList.indexOf("-n");
@@ -23,17 +62,311 @@ public class TXTmain {
                 System.err.println("Couldn't parse argument for -n option");
             }
         }
+        Optional<List<Contestant>> comparison = Utilities.parseComparisonArgs(args);
+        if (comparison.isPresent() && repeatNumberIndex < 0) {
+            numTimesToRun = DEFAULT_COMPARISON_CAVERNS;
+        }
+        Optional<List<Contestant>> tournament = Utilities.parseTournamentArgs(args);
+        if (tournament.isPresent() && repeatNumberIndex < 0) {
+            numTimesToRun = DEFAULT_TOURNAMENT_CAVERNS;
+        }
         Optional<Long> seed = Utilities.parseSeedArgs(args);
+        Optional<Long> masterSeed = Utilities.parseMasterSeedArgs(args);
+        Cavern.GenerationMode mode = Utilities.parseGenerationModeArgs(args);
+        Optional<CavernTopology> topology = Utilities.parseTopologyArgs(args);
+        int threads = Math.min(Utilities.parseThreadArgs(args), numTimesToRun);
+        Optional<Path> resultsPath = Utilities.parseResultsArgs(args);
+        ComputeBudget budget = Utilities.parseBudgetArgs(args);
+        Path moveLogs = Utilities.parseMoveLogArgs(args).orElse(null);
+        boolean quiet = argList.contains("-q");
+        Optional<Path> metricsPath = Utilities.parseMetricsArgs(args);
+        Optional<Path> tracePath = Utilities.parseTraceArgs(args);
+        Optional<Path> baselinePath = Utilities.parseAllocationBaselineArgs(args);
+        Optional<Long> traceSeed = Utilities.parseTraceSeedArgs(args);
+        Queue<Tracer> traces = tracePath.isPresent() ? new ConcurrentLinkedQueue<>() : null;
+        if (baselinePath.isPresent() && (masterSeed.isEmpty() || seed.isPresent())) {
+            System.err.println("Error, -allocbaseline needs -m <master seed> (and not -s), so that every check "
+                + "plays the same maps");
+            System.exit(1);
+        }
+        if (baselinePath.isPresent() && (comparison.isPresent() || tournament.isPresent())) {
+            String other = comparison.isPresent() ? "-c" : "-tournament";
+            System.err.println("Error, -allocbaseline can't be combined with " + other
+                + ": it only checks a sweep of the team's own strategies");
+            System.exit(1);
+        }
+
+        long[] seeds = new long[numTimesToRun];
+        if (seed.isPresent()) {
+            Arrays.fill(seeds, seed.get());
+        } else {
+            long master = masterSeed.orElseGet(() -> ThreadLocalRandom.current().nextLong());
+            System.out.println("Master seed : " + master);
+            System.out.println();
+            seeds = gameSeeds(master, numTimesToRun);
+        }
+        // Only one seed is traced, so that a long sweep doesn't keep a timeline of every game.
+        long tracedSeed = traceSeed.orElse(seeds[0]);
+        if (baselinePath.isPresent()) {
+            warmUp(seeds, mode, topology.orElse(null), budget);
+        }
+        if (metricsPath.isPresent()) {
+            Metrics.enable();
+        }
+
+        if (comparison.isPresent()) {
+            double alpha = Utilities.parseSignificanceArgs(args);
+            List<Contestant> contestants = comparison.get();
+            Comparison.run(contestants.get(0), contestants.get(1), alpha, seeds, threads, mode,
+                topology.orElse(null), budget).print(System.out);
+            dumpMetrics(metricsPath);
+            return;
+        }
+        if (tournament.isPresent()) {
+            Tournament.run(tournament.get(), seeds, threads, mode, topology.orElse(null), budget)
+                .print(System.out);
+            dumpMetrics(metricsPath);
+            return;
+        }
 
         int totalScore = 0;
+        SweepStatistics statistics = new SweepStatistics();
 
-        for (int i = 0; i < numTimesToRun; i++) {
-            totalScore += GameState.runNewGame((seed.isPresent() ? seed.get() : 0), false);
-            System.out.println();
+        if (moveLogs != null) {
+            try {
+                Files.createDirectories(moveLogs);
+            } catch (IOException e) {
+                System.err.println("Couldn't create " + moveLogs + " for move logs: " + e.getMessage());
+                moveLogs = null;
+            }
+        }
+
+        try (ResultWriter results = resultsPath.isPresent() ? new ResultWriter(resultsPath.get()) : null) {
+            if (threads == 1) {
+                for (long gameSeed : seeds) {
+                    GameResult result = runGame(gameSeed, mode, topology.orElse(null), budget, moveLogs, traces,
+                        tracedSeed, quiet, System.out, System.err);
+                    if (results != null) results.write(result);
+                    statistics.add(result);
+                    totalScore += result.score();
+                }
+            } else {
+                totalScore = runConcurrently(seeds, threads, mode, topology.orElse(null), budget, moveLogs,
+                    traces, tracedSeed, quiet, results, statistics);
+            }
+        } catch (IOException e) {
+            System.err.println("Couldn't write results to " + resultsPath.get() + ": " + e.getMessage());
         }
 
         if (totalScore != 0) {
             System.out.println("Average score : " + totalScore / numTimesToRun);
         }
+        if (statistics.count() > 1) {
+            System.out.println();
+            statistics.print(System.out);
+        }
+        if (traces != null && traces.isEmpty()) {
+            System.err.println("Error, seed " + tracedSeed + " was not played, so there is no trace to write");
+        } else if (traces != null) {
+            try {
+                Tracer.write(traces, tracePath.get());
+            } catch (IOException e) {
+                System.err.println("Couldn't write the trace to " + tracePath.get() + ": " + e.getMessage());
+            }
+        }
+        dumpMetrics(metricsPath);
+        if (baselinePath.isPresent() && !checkAllocation(baselinePath.get(), statistics, masterSeed.get(), mode,
+            topology.orElse(null))) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Play WARM_UP_GAMES games with seeds, from the first (and round again if there are fewer),
+     * without keeping their results, so that the JIT compiler has compiled the strategies before
+     * their allocation is measured: until it has, a game allocates more, by an amount that varies.
+     */
+    private static void warmUp(long[] seeds, Cavern.GenerationMode mode, CavernTopology topology,
+                               ComputeBudget budget) {
+        PrintStream ignored = new PrintStream(OutputStream.nullOutputStream());
+        for (int i = 0; i < WARM_UP_GAMES; i++) {
+            GameState.playGame(seeds[i % seeds.length], mode, topology, new Explorer(), budget, ignored);
+        }
+    }
+
+    /**
+     * Check the memory allocated per game in statistics, over the sweep from masterSeed whose
+     * caverns were dug using mode or topology, against the baseline stored in the file path,
+     * and return false iff it is over the baseline, was measured over a different sweep, or
+     * can't be read.
+     * If there is no such file, store the allocation in statistics there as the baseline for
+     * later runs.
+     */
+    private static boolean checkAllocation(Path path, SweepStatistics statistics, long masterSeed,
+                                           Cavern.GenerationMode mode, CavernTopology topology) {
+        AllocationBaseline run = AllocationBaseline.of(statistics, masterSeed, mode, topology);
+        if (!run.isMeasured()) {
+            System.err.println("Couldn't check allocation against " + path + ": this JVM can't measure it");
+            return true;
+        }
+        try {
+            Optional<AllocationBaseline> baseline = AllocationBaseline.read(path);
+            if (baseline.isEmpty()) {
+                run.write(path);
+                System.out.println("Allocation baseline written to " + path + " : " + run);
+                return true;
+            }
+            Optional<String> difference = baseline.get().sweepDifference(run);
+            if (difference.isPresent()) {
+                System.err.println("Couldn't check allocation against " + path + ": this run played "
+                    + difference.get() + ", so its maps were not the same; delete the file to make a new baseline");
+                return false;
+            }
+            List<String> regressions = baseline.get().regressions(run);
+            if (regressions.isEmpty()) {
+                System.out.println("Allocation within baseline : " + run);
+                return true;
+            }
+            for (String regression : regressions) {
+                System.err.println("Allocation regression: " + regression);
+            }
+            return false;
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Couldn't check allocation against " + path + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Write the metrics recorded during the run to path, if there is one.
+     */
+    private static void dumpMetrics(Optional<Path> path) {
+        if (path.isPresent()) {
+            try {
+                Metrics.dump(path.get());
+            } catch (IOException e) {
+                System.err.println("Couldn't write metrics to " + path.get() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Return the seeds of count games in a sweep with master seed master.
+     * Each game's seed is drawn from its own stream split off from master, so the same master
+     * seed always gives the same games, in the same order, however they are run.
+     * No seed is 0, since that would ask for a random game.
+     */
+    private static long[] gameSeeds(long master, int count) {
+        SplittableRandom streams = new SplittableRandom(master);
+        long[] seeds = new long[count];
+        for (int i = 0; i < count; i++) {
+            SplittableRandom stream = streams.split();
+            do {
+                seeds[i] = stream.nextLong();
+            } while (seeds[i] == 0);
+        }
+        return seeds;
+    }
+
+    /**
+     * Run a game with seed seed (a random one if seed is 0), keeping the explorer within budget,
+     * and return its result. Unless moveLogs is null, log the game's moves to {@code <seed>.moves}
+     * in the directory moveLogs, and unless traces is null, add a timeline of the game to traces
+     * if seed is tracedSeed.
+     * Report the seed and result on out unless quiet is true, and anything that goes wrong on err.
+     */
+    private static GameResult runGame(long seed, Cavern.GenerationMode mode, CavernTopology topology,
+                                      ComputeBudget budget, Path moveLogs, Queue<Tracer> traces,
+                                      long tracedSeed, boolean quiet, PrintStream out, PrintStream err) {
+        boolean traced = traces != null && seed == tracedSeed;
+        if (seed == 0) {
+            seed = ThreadLocalRandom.current().nextLong();
+        }
+        if (!quiet) {
+            out.println("Seed : " + seed);
+        }
+        Path moveLog = moveLogs == null ? null : moveLogs.resolve(seed + ".moves");
+        long gameSeed = seed;
+        Supplier<GameResult> game = () -> GameState.playGame(gameSeed, mode, topology, new Explorer(), budget, err,
+            moveLog);
+        GameResult result;
+        if (!traced) {
+            result = game.get();
+        } else {
+            Tracer tracer = new Tracer(traceIds.incrementAndGet(), "Seed " + seed);
+            traces.add(tracer);
+            result = Tracer.record(tracer, game);
+        }
+        if (!quiet) {
+            if (result.exploreSucceeded()) {
+                out.print(result.summary());
+            }
+            out.println();
+        }
+        return result;
+    }
+
+    /**
+     * Run a game with each of seeds on threads threads, and return the total of their scores.
+     * Each game's output and errors are collected as it runs and printed in one piece, to
+     * standard output and standard error, in the order of seeds, so the console looks just as
+     * it does when the games are run one after another.
+     * The results are written to results in the same order, unless it is null, and added to
+     * statistics. Each thread keeps statistics of its own games, which are merged into
+     * statistics once all the games are over, so the threads never wait for each other.
+     */
+    private static int runConcurrently(long[] seeds, int threads, Cavern.GenerationMode mode,
+                                       CavernTopology topology, ComputeBudget budget, Path moveLogs,
+                                       Queue<Tracer> traces, long tracedSeed, boolean quiet,
+                                       ResultWriter results, SweepStatistics statistics) throws IOException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        Queue<SweepStatistics> threadStatistics = new ConcurrentLinkedQueue<>();
+        ThreadLocal<SweepStatistics> localStatistics = ThreadLocal.withInitial(() -> {
+            SweepStatistics s = new SweepStatistics();
+            threadStatistics.add(s);
+            return s;
+        });
+        try {
+            List<Future<GameOutput>> games = new ArrayList<>();
+            for (long seed : seeds) {
+                games.add(pool.submit(() -> {
+                    ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+                    ByteArrayOutputStream errBuffer = new ByteArrayOutputStream();
+                    GameResult result = runGame(seed, mode, topology, budget, moveLogs, traces, tracedSeed, quiet,
+                        new PrintStream(buffer, true), new PrintStream(errBuffer, true));
+                    localStatistics.get().add(result);
+                    return new GameOutput(result, buffer.toString(), errBuffer.toString());
+                }));
+            }
+
+            int totalScore = 0;
+            for (Future<GameOutput> game : games) {
+                GameOutput result = game.get();
+                System.out.print(result.text());
+                System.out.flush();
+                System.err.print(result.errors());
+                System.err.flush();
+                if (results != null) results.write(result.result());
+                totalScore += result.result().score();
+            }
+            // Every game is over, so no thread is still adding to its statistics.
+            for (SweepStatistics s : threadStatistics) {
+                statistics.merge(s);
+            }
+            return totalScore;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while running games", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("A game failed to run", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * The result of a game, everything it printed, and any errors it printed.
+     */
+    private record GameOutput(GameResult result, String text, String errors) {
     }
 }
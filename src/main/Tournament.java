@@ -0,0 +1,120 @@
+package main;
+
+import game.Cavern;
+import game.CavernPair;
+import game.CavernTopology;
+import game.ComputeBudget;
+import game.GameResult;
+import game.GameState;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * A tournament between any number of contestants, which all play the same caverns.
+ * Each pair of caverns is dug once and then played by every contestant, each with its own
+ * copy of the gold, so the cost of digging is shared between the contestants.
+ */
+class Tournament {
+    private final List<Contestant> contestants;
+    private final List<SweepStatistics> statistics = new ArrayList<>();
+
+    /**
+     * Constructor: a tournament between contestants, before any games.
+     */
+    private Tournament(List<Contestant> contestants) {
+        this.contestants = contestants;
+        for (int i = 0; i < contestants.size(); i++) {
+            statistics.add(new SweepStatistics());
+        }
+    }
+
+    /**
+     * Play every contestant on the caverns with each of seeds, on threads threads, and return
+     * the tournament. Digging the caverns and each contestant's game on them are separate
+     * tasks, so all contestants can play the same caverns at once. Each game is kept within budget.
+     */
+    static Tournament run(List<Contestant> contestants, long[] seeds, int threads,
+                          Cavern.GenerationMode mode, CavernTopology topology, ComputeBudget budget) {
+        Tournament tournament = new Tournament(contestants);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        // Only a few caverns are dug ahead of the ones being played, so that the caverns of a
+        // long tournament are not all in memory at once.
+        Deque<List<CompletableFuture<GameOutput>>> pending = new ArrayDeque<>();
+        int next = 0;
+        try {
+            while (next < seeds.length || !pending.isEmpty()) {
+                while (next < seeds.length && pending.size() < 2 * threads) {
+                    long seed = seeds[next++];
+                    CompletableFuture<CavernPair> caverns =
+                        CompletableFuture.supplyAsync(() -> CavernPair.dig(seed, mode, topology), pool);
+                    List<CompletableFuture<GameOutput>> games = new ArrayList<>();
+                    for (Contestant contestant : contestants) {
+                        games.add(caverns.thenApplyAsync(c -> play(c, contestant, budget), pool));
+                    }
+                    pending.add(games);
+                }
+                List<CompletableFuture<GameOutput>> games = pending.remove();
+                for (int i = 0; i < games.size(); i++) {
+                    GameOutput output = games.get(i).join();
+                    System.err.print(output.errors());
+                    tournament.statistics.get(i).add(output.result());
+                }
+            }
+        } catch (CompletionException e) {
+            throw new IllegalStateException("A game failed to run", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        return tournament;
+    }
+
+    /**
+     * Play caverns with contestant within budget, and return the result and anything printed
+     * about errors.
+     */
+    private static GameOutput play(CavernPair caverns, Contestant contestant, ComputeBudget budget) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        PrintStream err = new PrintStream(buffer, true);
+        GameResult result = GameState.playGame(caverns, contestant.newExplorer(), budget, err);
+        return new GameOutput(result, buffer.toString());
+    }
+
+    /**
+     * Print the standings, best mean score first, followed by each contestant's statistics.
+     */
+    void print(PrintStream out) {
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < contestants.size(); i++) {
+            order.add(i);
+        }
+        order.sort(Comparator.comparingDouble((Integer i) -> statistics.get(i).meanScore()).reversed());
+
+        out.printf("%-4s %-60s %12s %12s%n", "Rank", "Contestant", "Mean score", "CPU (ms)");
+        for (int rank = 0; rank < order.size(); rank++) {
+            int i = order.get(rank);
+            out.printf("%-4d %-60s %12.2f %12.2f%n", rank + 1, contestants.get(i).name(),
+                statistics.get(i).meanScore(), statistics.get(i).meanCpuMillis());
+        }
+        for (int i : order) {
+            out.println();
+            out.println(contestants.get(i).name());
+            statistics.get(i).print(out);
+        }
+    }
+
+    /**
+     * The result of a game and anything it printed about errors.
+     */
+    private record GameOutput(GameResult result, String errors) {
+    }
+}
@@ -1,5 +1,12 @@
 package main;
 
+import game.AsyncGameListener;
+import game.Cavern;
+import game.ComputeBudget;
+import game.CavernTopology;
+
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -24,4 +31,298 @@ public class Utilities {
         }
         return seed;
     }
+
+    static Optional<Long> parseMasterSeedArgs(String... args) {
+        List<String> argList = new ArrayList<>(Arrays.asList(args));
+        int masterSeedIndex = argList.indexOf("-m");
+        Optional<Long> masterSeed = Optional.empty();
+        if (masterSeedIndex >= 0) {
+            try {
+                masterSeed = Optional.of(Long.parseLong(argList.get(masterSeedIndex + 1)));
+            } catch (NumberFormatException e) {
+                System.err.println("Error, -m must be followed by a numerical seed");
+            } catch (IndexOutOfBoundsException e) {
+                System.err.println("Error, -m must be followed by a seed");
+            }
+        }
+        return masterSeed;
+    }
+
+    static Cavern.GenerationMode parseGenerationModeArgs(String... args) {
+        List<String> argList = new ArrayList<>(Arrays.asList(args));
+        int modeIndex = argList.indexOf("-g");
+        Cavern.GenerationMode mode = Cavern.GenerationMode.REJECTION;
+        if (modeIndex >= 0) {
+            try {
+                mode = parseGenerationMode(argList.get(modeIndex + 1));
+            } catch (IllegalArgumentException e) {
+                System.err.println("Error, " + e.getMessage());
+            } catch (IndexOutOfBoundsException e) {
+                System.err.println("Error, -g must be followed by a generation mode");
+            }
+        }
+        return mode;
+    }
+
+    static Cavern.GenerationMode parseGenerationMode(String value) {
+        try {
+            return Cavern.GenerationMode.valueOf(value.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("-g must be followed by one of "
+                + Arrays.toString(Cavern.GenerationMode.values()));
+        }
+    }
+
+    static Optional<CavernTopology> parseTopologyArgs(String... args) {
+        List<String> argList = new ArrayList<>(Arrays.asList(args));
+        int topologyIndex = argList.indexOf("-t");
+        Optional<CavernTopology> topology = Optional.empty();
+        if (topologyIndex >= 0) {
+            try {
+                topology = Optional.of(parseTopology(argList.get(topologyIndex + 1)));
+            } catch (IllegalArgumentException e) {
+                System.err.println("Error, " + e.getMessage());
+            } catch (IndexOutOfBoundsException e) {
+                System.err.println("Error, -t must be followed by a topology");
+            }
+        }
+        return topology;
+    }
+
+    static CavernTopology parseTopology(String value) {
+        try {
+            return CavernTopology.valueOf(value.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("-t must be followed by one of "
+                + Arrays.toString(CavernTopology.values()));
+        }
+    }
+
+    static Optional<AsyncGameListener.Policy> parseEventPolicyArgs(String... args) {
+        List<String> argList = new ArrayList<>(Arrays.asList(args));
+        int policyIndex = argList.indexOf("-e");
+        Optional<AsyncGameListener.Policy> policy = Optional.empty();
+        if (policyIndex >= 0) {
+            try {
+                policy = Optional.of(AsyncGameListener.Policy.valueOf(argList.get(policyIndex + 1).toUpperCase()));
+            } catch (IllegalArgumentException e) {
+                System.err.println("Error, -e must be followed by one of "
+                    + Arrays.toString(AsyncGameListener.Policy.values()));
+            } catch (IndexOutOfBoundsException e) {
+                System.err.println("Error, -e must be followed by an event policy");
+            }
+        }
+        return policy;
+    }
+
+    static int parseThreadArgs(String... args) {
+        List<String> argList = new ArrayList<>(Arrays.asList(args));
+        int threadsIndex = argList.indexOf("-j");
+        int threads = 1;
+        if (threadsIndex >= 0) {
+            try {
+                threads = Math.max(Integer.parseInt(argList.get(threadsIndex + 1)), 1);
+            } catch (NumberFormatException | IndexOutOfBoundsException e) {
+                System.err.println("Error, -j must be followed by a number of threads");
+            }
+        }
+        return threads;
+    }
+
+    static int parseRepeatArgs(String... args) {
+        List<String> argList = new ArrayList<>(Arrays.asList(args));
+        int repeatIndex = argList.indexOf("-n");
+        int times = 1;
+        if (repeatIndex >= 0) {
+            try {
+                times = Math.max(Integer.parseInt(argList.get(repeatIndex + 1)), 1);
+            } catch (NumberFormatException | IndexOutOfBoundsException e) {
+                System.err.println("Error, -n must be followed by a number of times");
+            }
+        }
+        return times;
+    }
+
+    static Optional<Path> parseResultsArgs(String... args) {
+        List<String> argList = new ArrayList<>(Arrays.asList(args));
+        int resultsIndex = argList.indexOf("-o");
+        Optional<Path> results = Optional.empty();
+        if (resultsIndex >= 0) {
+            try {
+                results = Optional.of(Path.of(argList.get(resultsIndex + 1)));
+            } catch (InvalidPathException e) {
+                System.err.println("Error, -o must be followed by a valid file name");
+            } catch (IndexOutOfBoundsException e) {
+                System.err.println("Error, -o must be followed by a file name");
+            }
+        }
+        return results;
+    }
+
+    static Optional<Path> parseMoveLogArgs(String... args) {
+        List<String> argList = new ArrayList<>(Arrays.asList(args));
+        int logIndex = argList.indexOf("-l");
+        Optional<Path> logs = Optional.empty();
+        if (logIndex >= 0) {
+            try {
+                logs = Optional.of(Path.of(argList.get(logIndex + 1)));
+            } catch (InvalidPathException e) {
+                System.err.println("Error, -l must be followed by a valid directory name");
+            } catch (IndexOutOfBoundsException e) {
+                System.err.println("Error, -l must be followed by a directory name");
+            }
+        }
+        return logs;
+    }
+
+    static Optional<Path> parseMetricsArgs(String... args) {
+        List<String> argList = new ArrayList<>(Arrays.asList(args));
+        int metricsIndex = argList.indexOf("-metrics");
+        Optional<Path> metrics = Optional.empty();
+        if (metricsIndex >= 0) {
+            try {
+                metrics = Optional.of(Path.of(argList.get(metricsIndex + 1)));
+            } catch (InvalidPathException e) {
+                System.err.println("Error, -metrics must be followed by a valid file name");
+            } catch (IndexOutOfBoundsException e) {
+                System.err.println("Error, -metrics must be followed by a file name");
+            }
+        }
+        return metrics;
+    }
+
+    static Optional<Path> parseTraceArgs(String... args) {
+        List<String> argList = new ArrayList<>(Arrays.asList(args));
+        int traceIndex = argList.indexOf("-trace");
+        Optional<Path> trace = Optional.empty();
+        if (traceIndex >= 0) {
+            try {
+                trace = Optional.of(Path.of(argList.get(traceIndex + 1)));
+            } catch (InvalidPathException e) {
+                System.err.println("Error, -trace must be followed by a valid file name");
+            } catch (IndexOutOfBoundsException e) {
+                System.err.println("Error, -trace must be followed by a file name");
+            }
+        }
+        return trace;
+    }
+
+    static Optional<Long> parseTraceSeedArgs(String... args) {
+        List<String> argList = new ArrayList<>(Arrays.asList(args));
+        int traceIndex = argList.indexOf("-trace");
+        Optional<Long> seed = Optional.empty();
+        if (traceIndex >= 0 && traceIndex + 2 < argList.size()) {
+            try {
+                seed = Optional.of(Long.parseLong(argList.get(traceIndex + 2)));
+            } catch (NumberFormatException e) {
+                // The file name is followed by another option, not a seed.
+            }
+        }
+        return seed;
+    }
+
+    static Optional<Path> parseAllocationBaselineArgs(String... args) {
+        List<String> argList = new ArrayList<>(Arrays.asList(args));
+        int baselineIndex = argList.indexOf("-allocbaseline");
+        Optional<Path> baseline = Optional.empty();
+        if (baselineIndex >= 0) {
+            try {
+                baseline = Optional.of(Path.of(argList.get(baselineIndex + 1)));
+            } catch (InvalidPathException e) {
+                System.err.println("Error, -allocbaseline must be followed by a valid file name");
+            } catch (IndexOutOfBoundsException e) {
+                System.err.println("Error, -allocbaseline must be followed by a file name");
+            }
+        }
+        return baseline;
+    }
+
+    static Optional<List<Contestant>> parseComparisonArgs(String... args) {
+        List<String> argList = new ArrayList<>(Arrays.asList(args));
+        int comparisonIndex = argList.indexOf("-c");
+        Optional<List<Contestant>> contestants = Optional.empty();
+        if (comparisonIndex >= 0) {
+            try {
+                contestants = Optional.of(List.of(Contestant.parse(argList.get(comparisonIndex + 1)),
+                    Contestant.parse(argList.get(comparisonIndex + 2))));
+            } catch (IllegalArgumentException e) {
+                System.err.println("Error, " + e.getMessage());
+            } catch (IndexOutOfBoundsException e) {
+                System.err.println("Error, -c must be followed by two pairs of strategies");
+            }
+        }
+        return contestants;
+    }
+
+    static ComputeBudget parseBudgetArgs(String... args) {
+        List<String> argList = new ArrayList<>(Arrays.asList(args));
+        boolean cpuTime = !argList.contains("-b") && argList.contains("-bcpu");
+        String flag = cpuTime ? "-bcpu" : "-b";
+        int budgetIndex = argList.indexOf(flag);
+        ComputeBudget budget = ComputeBudget.UNLIMITED;
+        if (budgetIndex >= 0) {
+            try {
+                budget = parseBudget(flag, argList.get(budgetIndex + 1));
+            } catch (IllegalArgumentException e) {
+                System.err.println("Error, " + e.getMessage());
+            } catch (IndexOutOfBoundsException e) {
+                System.err.println("Error, " + flag + " must be followed by a number of milliseconds, "
+                    + "or two separated by a comma");
+            }
+        }
+        return budget;
+    }
+
+    static ComputeBudget parseBudget(String flag, String value) {
+        try {
+            String[] limits = value.split(",", 2);
+            long explore = Long.parseLong(limits[0]);
+            long escape = limits.length > 1 ? Long.parseLong(limits[1]) : explore;
+            return new ComputeBudget(explore, escape, flag.equals("-bcpu"));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(flag + " must be followed by a number of milliseconds, "
+                + "or two separated by a comma, none of them negative");
+        }
+    }
+
+    static double parseSignificanceArgs(String... args) {
+        List<String> argList = new ArrayList<>(Arrays.asList(args));
+        int significanceIndex = argList.indexOf("-a");
+        double significance = 0.05;
+        if (significanceIndex >= 0) {
+            try {
+                double value = Double.parseDouble(argList.get(significanceIndex + 1));
+                if (value > 0 && value < 1) {
+                    significance = value;
+                } else {
+                    System.err.println("Error, -a must be followed by a number between 0 and 1");
+                }
+            } catch (NumberFormatException | IndexOutOfBoundsException e) {
+                System.err.println("Error, -a must be followed by a significance level");
+            }
+        }
+        return significance;
+    }
+
+    static Optional<List<Contestant>> parseTournamentArgs(String... args) {
+        List<String> argList = new ArrayList<>(Arrays.asList(args));
+        int tournamentIndex = argList.indexOf("-tournament");
+        Optional<List<Contestant>> contestants = Optional.empty();
+        if (tournamentIndex >= 0) {
+            if (tournamentIndex + 1 < argList.size() && !argList.get(tournamentIndex + 1).startsWith("-")) {
+                try {
+                    List<Contestant> parsed = new ArrayList<>();
+                    for (String spec : argList.get(tournamentIndex + 1).split(",")) {
+                        parsed.add(Contestant.parse(spec));
+                    }
+                    contestants = Optional.of(parsed);
+                } catch (IllegalArgumentException e) {
+                    System.err.println("Error, " + e.getMessage());
+                }
+            } else {
+                contestants = Optional.of(Contestant.discover());
+            }
+        }
+        return contestants;
+    }
 }
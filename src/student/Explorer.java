@@ -1,17 +1,47 @@
 package student;
 
 import game.*;
+import student.escape.AnytimeEscapeStrategy;
 import student.escape.EscapeStrategy;
 import student.escape.GetTopNCashWithDiversionsEscape;
 import student.explore.BasicFindBestNodeExplore;
 import student.explore.ExploreStrategy;
 
+import java.util.function.Supplier;
+
 /**
  * Class for the player to call the <code>escape()</code> and <code>explore()</code> methods.
  * The class is very lightweight, and only sets up individual <code>EscapeStrategy</code> and
  * <code>ExploreStrategy</code> instances, and executes them.
  */
 public class Explorer {
+    /**
+     * Makes the strategy for each call of <code>explore()</code>
+     */
+    private final Supplier<? extends ExploreStrategy> exploreStrategies;
+    /**
+     * Makes the strategy for each call of <code>escape()</code>
+     */
+    private final Supplier<? extends EscapeStrategy> escapeStrategies;
+
+    /**
+     * Constructor for an Explorer using the team's chosen strategies.
+     */
+    public Explorer() {
+        this(BasicFindBestNodeExplore::new, GetTopNCashWithDiversionsEscape::new);
+    }
+
+    /**
+     * Constructor for an Explorer using other strategies, e.g. to compare them with the chosen ones.
+     * A new strategy is made for every phase, so strategies may keep state in their fields.
+     * @param exploreStrategies makes the strategy for each explore phase
+     * @param escapeStrategies makes the strategy for each escape phase
+     */
+    public Explorer(Supplier<? extends ExploreStrategy> exploreStrategies,
+                    Supplier<? extends EscapeStrategy> escapeStrategies) {
+        this.exploreStrategies = exploreStrategies;
+        this.escapeStrategies = escapeStrategies;
+    }
 
     /**
      * Explore the cavern, trying to find the orb in as few steps as possible.
@@ -44,7 +74,7 @@ public class Explorer {
      * @param state the information available at the current state
      */
     public void explore(ExplorationState state) {
-        ExploreStrategy strategy = new BasicFindBestNodeExplore();
+        ExploreStrategy strategy = exploreStrategies.get();
         strategy.explore(state);
     }
 
@@ -72,7 +102,12 @@ public class Explorer {
      * @param state the information available at the current state
      */
     public void escape(EscapeState state) {
-        EscapeStrategy strategy = new GetTopNCashWithDiversionsEscape();
-        strategy.escape(state);
+        EscapeStrategy strategy = escapeStrategies.get();
+        // With a compute budget, plan within it and follow the best route found in time.
+        if (strategy instanceof AnytimeEscapeStrategy anytime && state.getPlanningMillis() > 0) {
+            state.planAndFollow(sink -> anytime.plan(state, sink));
+        } else {
+            strategy.escape(state);
+        }
     }
 }
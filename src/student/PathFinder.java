@@ -1,5 +1,8 @@
 package student;
 
+import game.FlightEvents;
+import game.Metrics;
+
 import java.util.*;
 
 /**
@@ -7,6 +10,9 @@ import java.util.*;
  * Works on both <code>ExploreNode</code>s and <code>EscapeNode</code>s.
  */
 public class PathFinder {
+    private static final Metrics.Timer SEARCH = Metrics.timer("pathFinder.findShortestPath");
+    private static final Metrics.Counter SETTLED = Metrics.counter("pathFinder.findShortestPath.settled");
+
     /**
      * Method to find the shortest path between two nodes using a modified version of Dijkstra's
      * algorithm
@@ -16,6 +22,9 @@ public class PathFinder {
      * @param <T> any subclass of StudentNode<T> (should be either EscapeNode or ExploreNode)
      */
     public static <T extends StudentNode<T>> List<T> findShortestPath(T start, T goal) {
+        long startTime = SEARCH.start();
+        ShortestPathEvent event = FlightEvents.begin(ShortestPathEvent::new);
+        int settled = 0;
         // Keep a frontier of all Nodes to which a path has been found, prioritised by how far from
         // the start that Node is
         Map<T, Integer> distanceFromStart = new HashMap<>();
@@ -47,9 +56,21 @@ public class PathFinder {
                 }
             }
             current = frontier.poll();
+            settled++;
         }
 
-        return rebuildPathTo(goal, bestPreviousNodes);
+        List<T> path = rebuildPathTo(goal, bestPreviousNodes);
+        SETTLED.add(settled);
+        SEARCH.stop(startTime);
+        if (event != null) {
+            event.end();
+            if (event.shouldCommit()) {
+                event.settled = settled;
+                event.pathNodes = path.size();
+                event.commit();
+            }
+        }
+        return path;
     }
 
     /**
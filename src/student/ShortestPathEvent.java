@@ -0,0 +1,25 @@
+package student;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Java Flight Recorder event for a call to {@code PathFinder.findShortestPath}, recorded only
+ * while a flight recording is running.
+ */
+@Name("caverns.ShortestPath")
+@Label("Shortest Path Query")
+@Description("A shortest path search between two nodes")
+@Category({"Caverns", "Strategies"})
+@StackTrace(false)
+final class ShortestPathEvent extends jdk.jfr.Event {
+    @Label("Settled Nodes")
+    @Description("Nodes taken off the frontier before the goal was reached")
+    int settled;
+
+    @Label("Path Nodes")
+    int pathNodes;
+}
@@ -0,0 +1,45 @@
+package student.escape;
+
+import game.EscapeState;
+import game.Node;
+import game.RouteSink;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * An approach to the escape() phase that plans a complete route before moving, and can be
+ * stopped part way through planning. It offers each complete route it finds to a sink, each
+ * better than the last, so that when there is a compute budget the Explorer can follow the best
+ * route found in the time allowed (see {@code EscapeState.planAndFollow}).
+ */
+public interface AnytimeEscapeStrategy extends EscapeStrategy {
+    /**
+     * Plan an escape from the cavern without moving, offering each complete route to the exit
+     * that is better than those before to sink, starting with one that is quick to find.
+     * The last route offered should be the one you would follow given all the time you need.
+     * @param state the information available at the current state
+     * @param sink takes the routes planned
+     */
+    void plan(EscapeState state, RouteSink sink);
+
+    /**
+     * Plan an escape, then follow the last route offered, picking up gold along the way.
+     * @param state the information available at the current state
+     */
+    @Override
+    default void escape(EscapeState state) {
+        AtomicReference<List<Node>> last = new AtomicReference<>();
+        plan(state, last::set);
+        List<Node> route = last.get();
+        if (route == null) {
+            throw new IllegalStateException("escape: no route to the exit was planned");
+        }
+
+        Node start = state.getCurrentNode();
+        for (Node x : route.isEmpty() || !route.get(0).equals(start) ? route : route.subList(1, route.size())) {
+            state.moveTo(x);
+            if (state.getGold(state.getCurrentNode()) > 0) state.pickUpGold();
+        }
+    }
+}
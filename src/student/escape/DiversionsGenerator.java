@@ -1,8 +1,10 @@
 package student.escape;
 
+import game.Metrics;
 import game.Node;
 
 import java.util.*;
+import java.util.function.ToIntFunction;
 
 import static student.escape.EscapeHelper.getLengthOfPath;
 import static student.escape.EscapeHelper.getValueOfPath;
@@ -13,6 +15,7 @@ import static student.escape.EscapeHelper.getValueOfPath;
  * improving the cash received by the player, while still reaching the exit in time.
  */
 public class DiversionsGenerator {
+    private static final Metrics.Timer DIVERSIONS = Metrics.timer("diversions.getPathWithDiversions");
 
     /**
      * Given a path, this method will return an updated path, which incorporates the "best"
@@ -22,21 +25,24 @@ public class DiversionsGenerator {
      * @param proposedPath the path before diversions have been added
      * @param depth        how many steps away from the path a diversion is allowed to take
      * @param time         how much total time the diversions can take
+     * @param gold         the gold still on each Node (such as <code>EscapeState::getGold</code>)
      * @return an updated path, incorporating the diversions
      */
-    public static List<Node> getPathWithDiversions(List<Node> proposedPath, int depth, int time) {
+    public static List<Node> getPathWithDiversions(List<Node> proposedPath, int depth, int time,
+                                                   ToIntFunction<Node> gold) {
+        long start = DIVERSIONS.start();
         // Get info on all Nodes reachable from the path within given depth
         Map<Node, Node> reachableFrom = getNodesReachableFrom(proposedPath, depth);
         List<Node> reachableNodesWithCash = reachableFrom.keySet().stream()
-                .filter(x -> x.getTile().getGold() > 0)
+                .filter(x -> gold.applyAsInt(x) > 0)
                 .toList();
 
         // Get the fastest paths to each of the reachable Nodes
-        List<List<Node>> diversions = getFastestPathsToAll(reachableNodesWithCash, reachableFrom);
+        List<List<Node>> diversions = getFastestPathsToAll(reachableNodesWithCash, reachableFrom, gold);
 
         // Sort the potential diversions by (Value / Length)
         List<List<Node>> sortedDiversions = diversions.stream()
-                .sorted((x, y) -> compareValueDividedByLength(x, y, proposedPath))
+                .sorted((x, y) -> compareValueDividedByLength(x, y, proposedPath, gold))
                 .toList();
 
         // Initialise the return path, using the proposedPath as its base:
@@ -47,7 +53,7 @@ public class DiversionsGenerator {
             // zero gold, insert it into the path.
             int diversionTime = getLengthOfPath(diversion);
             if (diversionTime <= time &&
-                    getValueOfPath(diversion, pathWithDiversions) > 0) {
+                    getValueOfPath(diversion, pathWithDiversions, gold) > 0) {
                 // Find where to insert the diversion, and insert it
                 int insertionIndex = pathWithDiversions.indexOf(diversion.get(0)) + 1;
                 //insert all nodes of the diversion to the path (excluding the node where diversion begins)
@@ -56,6 +62,7 @@ public class DiversionsGenerator {
             }
         }
 
+        DIVERSIONS.stop(start);
         return pathWithDiversions;
     }
 
@@ -111,11 +118,12 @@ public class DiversionsGenerator {
      * @param nodes         a List of Nodes to find paths to and from
      * @param reachableFrom a Map, indicating where each path to any given Node should start and
      *                      finish
+     * @param gold          the gold still on each Node
      * @return a List of paths - one for each Node in the provided List. Each path will start and
      * end at the relevant Node, as per the reachableFrom Map.
      */
     private static List<List<Node>> getFastestPathsToAll(
-            List<Node> nodes, Map<Node, Node> reachableFrom) {
+            List<Node> nodes, Map<Node, Node> reachableFrom, ToIntFunction<Node> gold) {
 
         List<List<Node>> fastestPaths = new ArrayList<>();
         // Go through each of the target Nodes, and get the shortest path, from the original path,
@@ -123,7 +131,7 @@ public class DiversionsGenerator {
         for (Node targetNode : nodes) {
             Node from = reachableFrom.get(targetNode);
             Queue<Node> via = new LinkedList<>(List.of(targetNode));
-            fastestPaths.add(EscapeHelper.findPathFromViaTo(from, via, from));
+            fastestPaths.add(EscapeHelper.findPathFromViaTo(from, via, from, gold));
         }
         return fastestPaths;
     }
@@ -133,11 +141,13 @@ public class DiversionsGenerator {
      * gold has already been taken.
      * @param path the path to measure
      * @param cashAlreadyTaken a list of Nodes from which all gold has been taken (may be empty)
+     * @param gold the gold still on each Node
      * @return the remaining value of the path, divided by its length
      */
-    private static double getValueDividedByLength(List<Node> path, List<Node> cashAlreadyTaken) {
+    private static double getValueDividedByLength(List<Node> path, List<Node> cashAlreadyTaken,
+                                                  ToIntFunction<Node> gold) {
         // cast getValueOfPath() to ensure double-division, not integer division
-        return (double) getValueOfPath(path, cashAlreadyTaken) / getLengthOfPath(path);
+        return (double) getValueOfPath(path, cashAlreadyTaken, gold) / getLengthOfPath(path);
     }
 
     /**
@@ -145,15 +155,17 @@ public class DiversionsGenerator {
      * @param path1 the first path to be compared
      * @param path2 the second path to be compared
      * @param cashAlreadyTaken a list of Nodes from which the cash has already been taken
+     * @param gold the gold still on each Node
      * @return a negative value if path1 is less relatively valuable than path2; a positive value if
      * path1 is more relatively valuable than path2; zero if they are equally relatively valuable.
      */
     private static int compareValueDividedByLength(List<Node> path1,
                                                    List<Node> path2,
-                                                   List<Node> cashAlreadyTaken) {
+                                                   List<Node> cashAlreadyTaken,
+                                                   ToIntFunction<Node> gold) {
 
-        double x = getValueDividedByLength(path1, cashAlreadyTaken);
-        double y = getValueDividedByLength(path2, cashAlreadyTaken);
+        double x = getValueDividedByLength(path1, cashAlreadyTaken, gold);
+        double y = getValueDividedByLength(path2, cashAlreadyTaken, gold);
         return Double.compare(x, y);
     }
 }
@@ -2,9 +2,11 @@ package student.escape;
 
 import game.Edge;
 import game.Node;
+import game.Tracer;
 import student.PathFinder;
 
 import java.util.*;
+import java.util.function.ToIntFunction;
 
 /**
  * Helper class for <code>escape()</code> phase. Contains multiple useful methods which can be used
@@ -18,34 +20,39 @@ public class EscapeHelper {
      * @param from the starting Node
      * @param viaQueue the Nodes to visit along the way
      * @param end the ending Node
+     * @param gold the gold still on each Node (such as <code>EscapeState::getGold</code>)
      * @return a <code>List<Node></code> representing the shortest path going from the first Node
      * to the end Node, visiting the specified viaQueue Nodes in order
      */
-    public static List<Node> findPathFromViaTo(Node from, Queue<Node> viaQueue, Node end) {
-        // Initialise the path with the from Node as its first element
-        List<Node> overallPath = new LinkedList<>(List.of(from));
-
-        // Starting at the start, add route to each of the Nodes in viaQueue, in order
-        Node start = from;
-        while (!viaQueue.isEmpty()) {
-            // Get the next Node to visit, and find the shortest path to it
-            Node goal = viaQueue.remove();
-            List<Node> subPath = findShortestPath(start, goal);
-
-            // check if the shortest path found has some value in it
-            // if it does, add it to the overall path excluding the starting point (current node).
-            if (getValueOfPath(subPath, overallPath) > 0) {
-                overallPath.addAll(subPath.subList(1, subPath.size()));
-                // update the starting node to the current goal node for next iteration
-                start = goal;
+    @SuppressWarnings("try") // the span is only closed
+    public static List<Node> findPathFromViaTo(Node from, Queue<Node> viaQueue, Node end,
+                                               ToIntFunction<Node> gold) {
+        try (Tracer.Span span = Tracer.span("findPathFromViaTo").arg("via", viaQueue.size())) {
+            // Initialise the path with the from Node as its first element
+            List<Node> overallPath = new LinkedList<>(List.of(from));
+
+            // Starting at the start, add route to each of the Nodes in viaQueue, in order
+            Node start = from;
+            while (!viaQueue.isEmpty()) {
+                // Get the next Node to visit, and find the shortest path to it
+                Node goal = viaQueue.remove();
+                List<Node> subPath = findShortestPath(start, goal);
+
+                // check if the shortest path found has some value in it
+                // if it does, add it to the overall path excluding the starting point (current node).
+                if (getValueOfPath(subPath, overallPath, gold) > 0) {
+                    overallPath.addAll(subPath.subList(1, subPath.size()));
+                    // update the starting node to the current goal node for next iteration
+                    start = goal;
+                }
             }
-        }
 
-        // Add the final path, to reach the end Node excluding the current node:
-        List<Node> finalPath = findShortestPath(start, end);
-        overallPath.addAll(finalPath.subList(1, finalPath.size()));
+            // Add the final path, to reach the end Node excluding the current node:
+            List<Node> finalPath = findShortestPath(start, end);
+            overallPath.addAll(finalPath.subList(1, finalPath.size()));
 
-        return overallPath;
+            return overallPath;
+        }
     }
 
     /**
@@ -73,16 +80,17 @@ public class EscapeHelper {
      * have zero cash left on them.
      * @param path the path to be checked
      * @param cashAlreadyTaken a List of Nodes which have had all their cash removed
+     * @param gold the gold still on each Node (such as <code>EscapeState::getGold</code>)
      * @return the remaining cash value of the path
      */
-    public static int getValueOfPath(List<Node> path, List<Node> cashAlreadyTaken) {
+    public static int getValueOfPath(List<Node> path, List<Node> cashAlreadyTaken, ToIntFunction<Node> gold) {
         int cash = 0;
         Set<Node> uniqueNodes = new HashSet<>(path);
 
         // Go through each of the uniqueNodes, and add any gold which hasn't been taken to the total
         for (Node node : uniqueNodes) {
             if (!cashAlreadyTaken.contains(node)) {
-                cash += node.getTile().getGold();
+                cash += gold.applyAsInt(node);
             }
         }
         return cash;
@@ -107,12 +115,13 @@ public class EscapeHelper {
      * Gets a List of the n most valuable Nodes in the provided Collection of Nodes.
      * @param allNodes the Nodes to find the most valuable in
      * @param n the number of Nodes to return
+     * @param gold the gold still on each Node (such as <code>EscapeState::getGold</code>)
      * @return a List containing the n most valuable Nodes in the given Collection of Nodes
      */
-    public static List<Node> getTopNNodes(Collection<Node> allNodes, int n) {
+    public static List<Node> getTopNNodes(Collection<Node> allNodes, int n, ToIntFunction<Node> gold) {
         return allNodes.stream()
-                .filter(x -> x.getTile().getGold() > 0) // reduces the number of Nodes to sort
-                .sorted(Comparator.comparingInt(x -> -x.getTile().getGold()))
+                .filter(x -> gold.applyAsInt(x) > 0) // reduces the number of Nodes to sort
+                .sorted(Comparator.comparingInt(x -> -gold.applyAsInt(x)))
                 .limit(n)
                 .toList();
     }
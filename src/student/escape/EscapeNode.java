@@ -3,8 +3,6 @@ package student.escape;
 import game.Node;
 import student.StudentNode;
 
-import java.util.HashMap;
-import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -20,17 +18,8 @@ public class EscapeNode extends StudentNode<EscapeNode> {
      */
     private final Node node;
 
-    /**
-     * Map of all <code>EscapeNode</code>s which have been instantiated.
-     * By keeping track of what <code>EscapeNode</code>s have been created, the class can ensure
-     * that new EscapeNodes are only created when needed.
-     */
-    private static final Map<Long, EscapeNode> escapeNodes = new HashMap<>();
-
     /**
      * Constructor for <code>EscapeNode</code>s, using the underlying Node for creating it.
-     * Should ONLY be called by the getEscapeNode() method, to ensure that only one
-     * <code>EscapeNode</code> is created per underlying <code>Node</code>.
      * @param node the underlying <code>Node</code>
      */
     private EscapeNode(Node node) {
@@ -40,18 +29,13 @@ public class EscapeNode extends StudentNode<EscapeNode> {
 
     /**
      * Gets the <code>EscapeNode</code> corresponding to the given underlying <code>Node</code>.
-     * If no such <code>EscapeNode</code> exists yet, it will be created.
+     * <code>EscapeNode</code>s are not cached, so that games can run on several threads at
+     * once; two <code>EscapeNode</code>s for the same <code>Node</code> are equal instead.
      * @param node the underlying <code>Node</code>
      * @return the corresponding <code>EscapeNode</code>
      */
     public static EscapeNode getEscapeNode(Node node) {
-        if (escapeNodes.containsKey(node.getId())) {
-            return escapeNodes.get(node.getId());
-        } else {
-            EscapeNode newNode = new EscapeNode(node);
-            escapeNodes.put(node.getId(), newNode);
-            return newNode;
-        }
+        return new EscapeNode(node);
     }
 
     /**
@@ -80,4 +64,30 @@ public class EscapeNode extends StudentNode<EscapeNode> {
     public int lengthTo(EscapeNode neighbour) {
         return this.node.getEdge(neighbour.node).length();
     }
+
+    /**
+     * Returns true if ob is an <code>EscapeNode</code> for the same underlying <code>Node</code>.
+     * @param ob the object to compare with
+     * @return whether ob represents the same <code>Node</code> as this <code>EscapeNode</code>
+     */
+    @Override
+    public boolean equals(Object ob) {
+        if (ob == this) {
+            return true;
+        }
+        if (!(ob instanceof EscapeNode)) {
+            return false;
+        }
+        return node.equals(((EscapeNode) ob).node);
+    }
+
+    /**
+     * Gets a hash code for this <code>EscapeNode</code>, based solely on its underlying
+     * <code>Node</code>.
+     * @return the hash code of the underlying <code>Node</code>
+     */
+    @Override
+    public int hashCode() {
+        return node.hashCode();
+    }
 }
\ No newline at end of file
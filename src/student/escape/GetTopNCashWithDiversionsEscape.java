@@ -1,7 +1,10 @@
 package student.escape;
 
 import game.EscapeState;
+import game.FlightEvents;
 import game.Node;
+import game.RouteSink;
+import game.Tracer;
 
 import java.util.Comparator;
 import java.util.LinkedList;
@@ -14,30 +17,37 @@ import java.util.stream.Collectors;
  * if it can reach all of them and still reach the exit. If it can, it does so. If it can't, it
  * decrements n, and tries again.
  * Also looks for diversions from this path, if any can be made without exceeding the time limit.
+ * Each better route is offered as it is found, so that planning can be cut short.
  * <br />
  * 500 headless runs on 31/3/24:
  * Average gold: 13,955
  * % of gold scores at zero: 0.6%
  */
-public class GetTopNCashWithDiversionsEscape implements EscapeStrategy {
+public class GetTopNCashWithDiversionsEscape implements AnytimeEscapeStrategy {
     /**
-     * Escape the maze while collecting as much gold as possible.
+     * Plan a route out of the maze collecting as much gold as possible, offering each better
+     * route to sink as it is found.
      * @param state the information available at the current state
+     * @param sink takes the routes planned
      */
     @Override
-    public void escape(EscapeState state) {
+    @SuppressWarnings("try") // the spans are only closed
+    public void plan(EscapeState state, RouteSink sink) {
+        // The shortest path always gets out in time, so there is something to follow at once
+        sink.offer(EscapeHelper.findPathFromViaTo(state.getCurrentNode(), new LinkedList<>(), state.getExit(),
+                state::getGold));
+
         // Get the initial path, which should hit all of the most valuable nodes in the grid
-        List<Node> proposedPath = getPathViaTopNNodes(state);
+        List<Node> proposedPath;
+        try (Tracer.Span span = Tracer.span("getPathViaTopNNodes")) {
+            proposedPath = getPathViaTopNNodes(state);
+        }
+        sink.offer(proposedPath);
 
         // Add in any diversions which might help
         int timeLeftOver = state.getTimeRemaining() - EscapeHelper.getLengthOfPath(proposedPath);
-        List<Node> bestPathWithDiversions = getPathWithBestDiversions(proposedPath, timeLeftOver);
-
-        //iterate through diverting path, excluding the starting node
-        // Move along the path, and pick up gold as you go
-        for (Node x : bestPathWithDiversions.subList(1, bestPathWithDiversions.size())) {
-            state.moveTo(x);
-            if (state.getCurrentNode().getTile().getGold() > 0) state.pickUpGold();
+        try (Tracer.Span span = Tracer.span("getPathWithBestDiversions")) {
+            getPathWithBestDiversions(proposedPath, timeLeftOver, state, sink);
         }
     }
 
@@ -47,6 +57,7 @@ public class GetTopNCashWithDiversionsEscape implements EscapeStrategy {
      * @param state the information available at the current state
      * @return the shortest path via the top n nodes - will always reach the exit on time
      */
+    @SuppressWarnings("try") // the spans are only closed
     private List<Node> getPathViaTopNNodes(EscapeState state) {
         // LinkedList to store the proposed path to take:
         List<Node> proposedPath = new LinkedList<>();
@@ -55,15 +66,31 @@ public class GetTopNCashWithDiversionsEscape implements EscapeStrategy {
         // n nodes each time. If the route exceeds the allowed time, decrement n and try again.
         final int maxN = 20; // Experiments suggest values of n over 20 are never any better
         for (int n = maxN; n >=0; n--) {
-            // Get the top n nodes, sorted by their distance from the start node:
-            Queue<Node> topNNodesSorted = getSortedTopNNodes(state, n);
+            PlanningPassEvent event = FlightEvents.begin(PlanningPassEvent::new);
+            int length;
+            try (Tracer.Span span = Tracer.span("top n").arg("n", n)) {
+                // Get the top n nodes, sorted by their distance from the start node:
+                Queue<Node> topNNodesSorted = getSortedTopNNodes(state, n);
 
-            // Find quickest path from start, via each of the n nodes, to the end
-            proposedPath = EscapeHelper.findPathFromViaTo(
-                    state.getCurrentNode(), topNNodesSorted, state.getExit());
+                // Find quickest path from start, via each of the n nodes, to the end
+                proposedPath = EscapeHelper.findPathFromViaTo(
+                        state.getCurrentNode(), topNNodesSorted, state.getExit(), state::getGold);
+                length = EscapeHelper.getLengthOfPath(proposedPath);
+            }
 
             // If this path gets to the exit in time, this is a viable path; return it
-            if (state.getTimeRemaining() - EscapeHelper.getLengthOfPath(proposedPath) >= 0)
+            boolean feasible = state.getTimeRemaining() - length >= 0;
+            if (event != null) {
+                event.end();
+                if (event.shouldCommit()) {
+                    event.kind = PlanningPassEvent.TOP_N;
+                    event.n = n;
+                    event.pathLength = length;
+                    event.feasible = feasible;
+                    event.commit();
+                }
+            }
+            if (feasible)
                 return proposedPath;
         }
         return proposedPath;
@@ -78,7 +105,7 @@ public class GetTopNCashWithDiversionsEscape implements EscapeStrategy {
      */
     private Queue<Node> getSortedTopNNodes(EscapeState state, int n) {
         // Get the top n nodes, and sort them by their distance from the start node
-        return EscapeHelper.getTopNNodes(state.getVertices(), n).stream()
+        return EscapeHelper.getTopNNodes(state.getVertices(), n, state::getGold).stream()
                 .sorted(Comparator.comparingInt(x ->
                         EscapeHelper.getManhattanDistance(x, state.getCurrentNode())))
                 .collect(Collectors.toCollection(LinkedList<Node>::new));
@@ -88,12 +115,17 @@ public class GetTopNCashWithDiversionsEscape implements EscapeStrategy {
      * Gets a path, based on proposedPath, but with diversions added. The resulting path will always
      * return to the exit on time, and will also visit as many worthwhile Nodes near to the path as
      * possible. Nodes at different levels of depth from the path are considered, but only the most
-     * valuable resulting path is returned.
+     * valuable resulting path is returned. Each path that is the most valuable so far is offered
+     * to sink.
      * @param proposedPath the initial path, without diversions
      * @param timeLeftOver the time remaining, after taking the proposedPath
+     * @param state the information available at the current state
+     * @param sink takes each more valuable path as it is found
      * @return a List of Nodes, representing the proposedPath with diversions inserted
      */
-    private List<Node> getPathWithBestDiversions(List<Node> proposedPath, int timeLeftOver) {
+    @SuppressWarnings("try") // the spans are only closed
+    private List<Node> getPathWithBestDiversions(List<Node> proposedPath, int timeLeftOver, EscapeState state,
+                                                 RouteSink sink) {
         // Initialise the best results so far
         List<Node> bestPathWithDiversions = null;
         int bestValue = 0;
@@ -103,16 +135,33 @@ public class GetTopNCashWithDiversionsEscape implements EscapeStrategy {
         // loop will find the best of the lot.
         final int maxDepth = 16; // Experiments suggest diversions over depth 16 aren't worth it
         for (int d = 1; d <= maxDepth; d++) {
-            // Find the best path with diversions up to the current depth:
-            List<Node> thisPathWithDiversions =
-                    DiversionsGenerator.getPathWithDiversions(proposedPath, d, timeLeftOver);
+            PlanningPassEvent event = FlightEvents.begin(PlanningPassEvent::new);
+            List<Node> thisPathWithDiversions;
+            int thisValue;
+            try (Tracer.Span span = Tracer.span("diversions").arg("depth", d)) {
+                // Find the best path with diversions up to the current depth:
+                thisPathWithDiversions = DiversionsGenerator.getPathWithDiversions(proposedPath, d, timeLeftOver,
+                        state::getGold);
 
-            // Check if the diversions using the current depth are actually more valuable than
-            // diversions at a lower depth - if they are, update the best path accordingly.
-            int thisValue = EscapeHelper.getValueOfPath(thisPathWithDiversions, proposedPath);
+                // Check if the diversions using the current depth are actually more valuable than
+                // diversions at a lower depth - if they are, update the best path accordingly.
+                thisValue = EscapeHelper.getValueOfPath(thisPathWithDiversions, proposedPath, state::getGold);
+            }
+            if (event != null) {
+                event.end();
+                if (event.shouldCommit()) {
+                    event.kind = PlanningPassEvent.DIVERSIONS;
+                    event.depth = d;
+                    event.pathLength = EscapeHelper.getLengthOfPath(thisPathWithDiversions);
+                    event.value = thisValue;
+                    event.feasible = event.pathLength <= EscapeHelper.getLengthOfPath(proposedPath) + timeLeftOver;
+                    event.commit();
+                }
+            }
             if (bestPathWithDiversions == null || thisValue > bestValue) {
                 bestValue = thisValue;
                 bestPathWithDiversions = thisPathWithDiversions;
+                sink.offer(bestPathWithDiversions);
             }
         }
 
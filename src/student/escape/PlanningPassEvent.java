@@ -0,0 +1,49 @@
+package student.escape;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Java Flight Recorder event for one pass of {@code GetTopNCashWithDiversionsEscape}'s planning:
+ * finding a route via the top n nodes, or adding diversions up to some depth to it. It is
+ * recorded only while a flight recording is running.
+ */
+@Name("caverns.EscapePlanningPass")
+@Label("Escape Planning Pass")
+@Description("One pass of planning an escape route")
+@Category({"Caverns", "Strategies"})
+@StackTrace(false)
+final class PlanningPassEvent extends jdk.jfr.Event {
+    /**
+     * The kinds of pass
+     */
+    static final String TOP_N = "top n";
+    static final String DIVERSIONS = "diversions";
+
+    @Label("Kind")
+    @Description("\"top n\" or \"diversions\"")
+    String kind;
+
+    @Label("N")
+    @Description("Most valuable nodes visited, in a top n pass")
+    int n;
+
+    @Label("Diversion Depth")
+    @Description("Greatest depth of the diversions, in a diversions pass")
+    int depth;
+
+    @Label("Path Length")
+    @Description("Time taken to follow the route found")
+    int pathLength;
+
+    @Label("Value")
+    @Description("Gold gained by the diversions, in a diversions pass")
+    int value;
+
+    @Label("Feasible")
+    @Description("Whether the route reaches the exit in time")
+    boolean feasible;
+}
@@ -1,7 +1,9 @@
 package student.explore;
 
 import game.ExplorationState;
+import game.FlightEvents;
 import game.NodeStatus;
+import game.Tracer;
 import student.PathFinder;
 
 import java.util.*;
@@ -27,6 +29,7 @@ public class BasicFindBestNodeExplore implements ExploreStrategy {
      * @param state what is in the current state
      */
     @Override
+    @SuppressWarnings("try") // the span is only closed
     public void explore(ExplorationState state) {
         // Set up the ExploreGraph
         exploreGraph = new ExploreGraph();
@@ -43,7 +46,21 @@ public class BasicFindBestNodeExplore implements ExploreStrategy {
             exploreGraph.addNeighbours(currNode, neighbours);
 
             // Get the path to the best unvisited node:
-            List<ExploreNode> bestPath = getPathToNextBestNode(currNode);
+            ExploreDecisionEvent event = FlightEvents.begin(ExploreDecisionEvent::new);
+            List<ExploreNode> bestPath;
+            try (Tracer.Span span = Tracer.span("getPathToNextBestNode")) {
+                bestPath = getPathToNextBestNode(currNode);
+            }
+            if (event != null) {
+                event.end();
+                if (event.shouldCommit()) {
+                    event.node = currNode.id();
+                    event.distanceToTarget = currNode.distanceToOrb();
+                    event.candidates = exploreGraph.unvisitedNodes().size();
+                    event.pathNodes = bestPath.size();
+                    event.commit();
+                }
+            }
 
             // Follow the path to the next best unvisited node.
             // Start from the second node in the path to avoid revisiting the current node.
@@ -0,0 +1,33 @@
+package student.explore;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Java Flight Recorder event for {@code BasicFindBestNodeExplore} choosing where to go next,
+ * recorded only while a flight recording is running.
+ */
+@Name("caverns.ExploreDecision")
+@Label("Explore Decision")
+@Description("An explore strategy choosing the next node to visit")
+@Category({"Caverns", "Strategies"})
+@StackTrace(false)
+final class ExploreDecisionEvent extends jdk.jfr.Event {
+    @Label("Node")
+    @Description("Id of the node the decision was made on")
+    long node;
+
+    @Label("Distance To Target")
+    int distanceToTarget;
+
+    @Label("Candidates")
+    @Description("Unvisited nodes that were considered")
+    int candidates;
+
+    @Label("Path Nodes")
+    @Description("Nodes on the path to the node chosen, including the current node")
+    int pathNodes;
+}
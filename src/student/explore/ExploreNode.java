@@ -71,4 +71,16 @@ public class ExploreNode extends StudentNode<ExploreNode> {
     public int lengthTo(ExploreNode neighbour) {
         return 1;
     }
+
+    /**
+     * Gets a hash code based solely on the id of this ExploreNode, so that Sets and Maps of
+     * ExploreNodes are iterated in the same order every time the same cavern is explored.
+     * (Each id has only one ExploreNode in an <code>ExploreGraph</code>, so this is consistent
+     * with <code>equals()</code>.)
+     * @return the hash code of this ExploreNode
+     */
+    @Override
+    public int hashCode() {
+        return Long.hashCode(id());
+    }
 }
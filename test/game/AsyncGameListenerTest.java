@@ -0,0 +1,299 @@
+package game;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.EventQueue;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for AsyncGameListener, with a listener slow enough to show each move that the
+ * game gets far ahead of it
+ */
+class AsyncGameListenerTest {
+    private static final int MOVES = 1000;
+    private static final int CAPACITY = 8;
+
+    /**
+     * A listener that records every event it is given, and takes a millisecond to show each move.
+     */
+    private static final class Recorder implements GameListener {
+        private final List<String> log = Collections.synchronizedList(new ArrayList<>());
+        private final AtomicInteger shown = new AtomicInteger();
+        private final AtomicInteger passedThrough = new AtomicInteger();
+        private final ScheduledExecutorService animator = Executors.newSingleThreadScheduledExecutor();
+        private volatile boolean offDispatchThread;
+
+        /**
+         * Record that event was delivered.
+         */
+        private void record(String event) {
+            if (!EventQueue.isDispatchThread()) {
+                offDispatchThread = true;
+            }
+            log.add(event);
+        }
+
+        @Override
+        public void cavernChanged(Cavern c, boolean lit, int timeRemaining) {
+            record("cavern " + timeRemaining);
+        }
+
+        @Override
+        public void moved(Node n, Runnable done) {
+            record("node " + n.getId());
+            shown.incrementAndGet();
+            animator.schedule(done, 1, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public void passedThrough(List<Node> path) {
+            passedThrough.incrementAndGet();
+            for (Node n : path) {
+                record("node " + n.getId());
+            }
+        }
+
+        @Override
+        public void bonusChanged(double bonus) {
+            record("bonus " + (int) bonus);
+        }
+
+        @Override
+        public void goldPickedUp(Node n) {
+            record("gold " + n.getId());
+        }
+
+        @Override
+        public void coinsChanged(int coins, int score) {
+            record("coins " + coins);
+        }
+
+        @Override
+        public void timeChanged(int timeRemaining) {
+            record("time " + timeRemaining);
+        }
+
+        @Override
+        public void error(String message) {
+            record("error " + message);
+        }
+
+        /**
+         * Return the events delivered whose description starts with one of kinds.
+         */
+        private List<String> eventsOf(String... kinds) {
+            List<String> events = new ArrayList<>();
+            synchronized (log) {
+                for (String event : log) {
+                    for (String kind : kinds) {
+                        if (event.startsWith(kind + " ")) {
+                            events.add(event);
+                        }
+                    }
+                }
+            }
+            return events;
+        }
+    }
+
+    /**
+     * Return the node with id id.
+     */
+    private static Node node(int id) {
+        return new Node(id, new Tile(0, id, 0, Tile.Type.FLOOR));
+    }
+
+    /**
+     * Publish the events of a game of MOVES moves to listener, with changes to the bonus, coins
+     * and time after each, gold picked up now and then, a new cavern half way and a few errors,
+     * close it, and return the events published in order.
+     */
+    private static List<String> play(AsyncGameListener listener) {
+        List<String> published = new ArrayList<>();
+        listener.cavernChanged(null, false, 0);
+        published.add("cavern 0");
+        for (int i = 0; i < MOVES; i++) {
+            if (i % 7 == 0) {
+                listener.movedAlong(List.of(node(i)));
+            } else {
+                listener.moved(node(i));
+            }
+            published.add("node " + i);
+            if (i % 50 == 0) {
+                listener.goldPickedUp(node(i));
+                published.add("gold " + i);
+            }
+            if (i % 250 == 0) {
+                listener.error(String.valueOf(i));
+                published.add("error " + i);
+            }
+            if (i == MOVES / 2) {
+                listener.cavernChanged(null, true, MOVES);
+                published.add("cavern " + MOVES);
+            }
+            listener.bonusChanged(i);
+            listener.coinsChanged(i, i);
+            listener.timeChanged(MOVES - i);
+            published.add("bonus " + i);
+            published.add("coins " + i);
+            published.add("time " + (MOVES - i));
+        }
+        listener.close();
+        return published;
+    }
+
+    /**
+     * Return the events of list whose description starts with one of kinds.
+     */
+    private static List<String> only(List<String> list, String... kinds) {
+        List<String> events = new ArrayList<>();
+        for (String event : list) {
+            for (String kind : kinds) {
+                if (event.startsWith(kind + " ")) {
+                    events.add(event);
+                }
+            }
+        }
+        return events;
+    }
+
+    /**
+     * Check that the events of kind delivered are some of those published, in order, ending
+     * with the last published.
+     */
+    private static void assertLatestDelivered(List<String> published, List<String> delivered, String kind) {
+        List<String> all = only(published, kind);
+        List<String> some = only(delivered, kind);
+        assertFalse(some.isEmpty(), "no " + kind + " delivered");
+        assertEquals(all.get(all.size() - 1), some.get(some.size() - 1));
+        int from = 0;
+        for (String event : some) {
+            int at = all.subList(from, all.size()).indexOf(event);
+            assertTrue(at >= 0, kind + " event " + event + " is out of order");
+            from += at + 1;
+        }
+    }
+
+    /**
+     * Play a game to a listener with policy, and check that every node moved to, every new cavern,
+     * gold and error are delivered, in the order published, on the event dispatch thread, and
+     * that the latest bonus, coins and time are delivered. Return the recorder.
+     */
+    private static Recorder checkDelivery(AsyncGameListener.Policy policy) {
+        Recorder recorder = new Recorder();
+        List<String> published = play(new AsyncGameListener(recorder, CAPACITY, policy));
+        recorder.animator.shutdown();
+
+        assertFalse(recorder.offDispatchThread, "an event was delivered off the event dispatch thread");
+        assertEquals(only(published, "cavern", "node", "gold", "error"),
+            recorder.eventsOf("cavern", "node", "gold", "error"));
+        for (String kind : List.of("bonus", "coins", "time")) {
+            assertLatestDelivered(published, recorder.log, kind);
+        }
+        return recorder;
+    }
+
+    /**
+     * With BLOCK, every event is delivered in order, and every move is shown.
+     */
+    @Test
+    void blockDeliversEverything() {
+        Recorder recorder = new Recorder();
+        List<String> published = play(new AsyncGameListener(recorder, CAPACITY, AsyncGameListener.Policy.BLOCK));
+        recorder.animator.shutdown();
+
+        assertEquals(published, recorder.log);
+        assertEquals(MOVES, recorder.shown.get());
+        assertEquals(0, recorder.passedThrough.get());
+        assertFalse(recorder.offDispatchThread);
+    }
+
+    /**
+     * With DROP, moves are skipped when the listener falls behind, but the nodes they pass
+     * through are still delivered, as is every other event that can't be superseded and the
+     * latest state.
+     */
+    @Test
+    void dropStillReportsSkippedMoves() {
+        Recorder recorder = checkDelivery(AsyncGameListener.Policy.DROP);
+
+        assertTrue(recorder.shown.get() < MOVES, "no move was skipped");
+        assertTrue(recorder.passedThrough.get() > 0);
+    }
+
+    /**
+     * With COALESCE, moves waiting are replaced by later ones, but the nodes they pass through
+     * are still delivered, as is every other event that can't be superseded and the latest state.
+     */
+    @Test
+    void coalesceStillReportsSkippedMoves() {
+        Recorder recorder = checkDelivery(AsyncGameListener.Policy.COALESCE);
+
+        assertTrue(recorder.shown.get() < MOVES, "no move was skipped");
+        assertTrue(recorder.passedThrough.get() > 0);
+    }
+
+    /**
+     * A closed listener takes no more events, and can't be closed on the event dispatch thread,
+     * which would wait for itself.
+     */
+    @Test
+    void closeEndsEventsAndIsRefusedOnTheDispatchThread() throws Exception {
+        AsyncGameListener listener = new AsyncGameListener(GameListener.NONE, CAPACITY, AsyncGameListener.Policy.BLOCK);
+        AtomicReference<Throwable> onDispatchThread = new AtomicReference<>();
+        EventQueue.invokeAndWait(() -> {
+            try {
+                listener.close();
+            } catch (Throwable t) {
+                onDispatchThread.set(t);
+            }
+        });
+        listener.close();
+
+        assertInstanceOf(IllegalStateException.class, onDispatchThread.get());
+        assertThrows(IllegalStateException.class, () -> listener.moved(node(0)));
+    }
+
+    /**
+     * If the listener throws an exception, no more events are delivered, and neither the game
+     * nor close waits for them.
+     */
+    @Test
+    void failingListenerStopsDelivery() throws InterruptedException {
+        AtomicInteger delivered = new AtomicInteger();
+        GameListener failing = new GameListener() {
+            @Override
+            public void coinsChanged(int coins, int score) {
+                delivered.incrementAndGet();
+                throw new IllegalStateException("failing listener");
+            }
+        };
+        AsyncGameListener listener = new AsyncGameListener(failing, 1, AsyncGameListener.Policy.BLOCK);
+        Thread.UncaughtExceptionHandler handler = Thread.getDefaultUncaughtExceptionHandler();
+        Thread.setDefaultUncaughtExceptionHandler((thread, e) -> { });
+        try {
+            Thread game = new Thread(() -> {
+                for (int i = 0; i < MOVES; i++) {
+                    listener.coinsChanged(i, i);
+                }
+                listener.close();
+            });
+            game.start();
+            game.join(TimeUnit.SECONDS.toMillis(10));
+
+            assertFalse(game.isAlive(), "the game waited for a listener that had failed");
+            assertEquals(1, delivered.get());
+        } finally {
+            Thread.setDefaultUncaughtExceptionHandler(handler);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package game;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for BestRoute
+ */
+class BestRouteTest {
+    private static final long SEED = 42;
+    private static final int TIME = 100_000;
+
+    private Cavern cavern;
+    private Node start;
+    /**
+     * The route to the exit with the fewest nodes, and the same route with a detour to pick up
+     * gold from a node next to it
+     */
+    private List<Node> direct;
+    private List<Node> detour;
+
+    /**
+     * Sets up the routes from where the escape phase of game SEED starts.
+     */
+    @BeforeEach
+    void setUp() {
+        CavernPair caverns = CavernPair.dig(SEED, Cavern.GenerationMode.REJECTION, null);
+        cavern = caverns.escapeCavern();
+        Tile orb = caverns.exploreCavern().getTarget().getTile();
+        start = cavern.getNodeAt(orb.getRow(), orb.getColumn());
+        direct = EscapeSimulationTest.routeTo(start, n -> n.equals(cavern.getTarget()));
+        detour = withDetour(direct);
+    }
+
+    /**
+     * Return route with a detour to a node next to it, but not on it, that has gold, and back.
+     */
+    private static List<Node> withDetour(List<Node> route) {
+        for (int i = 0; i < route.size(); i++) {
+            for (Node nb : route.get(i).getNeighbours()) {
+                if (!route.contains(nb) && nb.getTile().getOriginalGold() > 0) {
+                    List<Node> detour = new ArrayList<>(route.subList(0, i + 1));
+                    detour.add(nb);
+                    detour.addAll(route.subList(i, route.size()));
+                    return detour;
+                }
+            }
+        }
+        throw new IllegalArgumentException("withDetour: no gold next to the route");
+    }
+
+    /**
+     * Return the time it takes to follow route.
+     */
+    private static int lengthOf(List<Node> route) {
+        int length = 0;
+        for (int i = 1; i < route.size(); i++) {
+            length += route.get(i - 1).getEdge(route.get(i)).length;
+        }
+        return length;
+    }
+
+    /**
+     * Return a sink for routes starting at start with time left.
+     */
+    private BestRoute sinkWith(int time) {
+        return new BestRoute(new EscapeSimulation(cavern, start, time, 0, new GoldTaken()));
+    }
+
+    /**
+     * Of two routes that reach the exit, the one collecting more gold is kept, whichever is
+     * offered first.
+     */
+    @Test
+    void keepsTheRichestRoute() {
+        BestRoute directFirst = sinkWith(TIME);
+        directFirst.offer(direct);
+        directFirst.offer(detour);
+        assertEquals(detour, directFirst.close());
+
+        BestRoute detourFirst = sinkWith(TIME);
+        detourFirst.offer(detour);
+        detourFirst.offer(direct);
+        assertEquals(detour, detourFirst.close());
+    }
+
+    /**
+     * A richer route that doesn't reach the exit in time is not kept.
+     */
+    @Test
+    void ignoresARicherRouteThatRunsOutOfTime() {
+        BestRoute sink = sinkWith(lengthOf(direct));
+        sink.offer(direct);
+        sink.offer(detour);
+
+        assertEquals(direct, sink.close());
+    }
+
+    /**
+     * If no route offered reaches the exit, there is no best route.
+     */
+    @Test
+    void noBestRouteIfNoneReachesTheExit() {
+        BestRoute sink = sinkWith(TIME);
+        sink.offer(direct.subList(0, direct.size() - 1));
+
+        assertNull(sink.close());
+    }
+
+    /**
+     * Offering routes leaves the simulation they are followed from where it was, and no route can
+     * be offered once the sink is closed.
+     */
+    @Test
+    void startIsUnchangedAndOffersEndWithClose() {
+        EscapeSimulation simulation = new EscapeSimulation(cavern, start, TIME, 0, new GoldTaken());
+        BestRoute sink = new BestRoute(simulation);
+        sink.offer(detour);
+        sink.close();
+
+        assertEquals(start, simulation.getCurrentNode());
+        assertEquals(TIME, simulation.getTimeRemaining());
+        assertEquals(0, simulation.getGoldCollected());
+        assertThrows(IllegalStateException.class, () -> sink.offer(direct));
+    }
+}
@@ -0,0 +1,175 @@
+package game;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Random;
+import java.util.Set;
+
+import static game.Constants.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for digging caverns with each Cavern.GenerationMode and each CavernTopology
+ */
+class CavernTest {
+    /**
+     * How many caverns of each mode or topology are dug
+     */
+    private static final int CAVERNS = 300;
+
+    /**
+     * A way of digging an explore cavern of size (rows, cols) using rand.
+     */
+    @FunctionalInterface
+    private interface ExploreDigger {
+        Cavern dig(int rows, int cols, Random rand);
+    }
+
+    /**
+     * Return the nodes that can be reached from start.
+     */
+    private static Set<Node> reachableFrom(Node start) {
+        Set<Node> seen = new HashSet<>(List.of(start));
+        Queue<Node> frontier = new ArrayDeque<>(seen);
+        while (!frontier.isEmpty()) {
+            for (Node nb : frontier.remove().getNeighbours()) {
+                if (seen.add(nb)) {
+                    frontier.add(nb);
+                }
+            }
+        }
+        return seen;
+    }
+
+    /**
+     * Dig CAVERNS explore caverns of random sizes using mode, and check that each is valid:
+     * the entrance and orb are where they say, every open tile can be reached from the
+     * entrance, and the orb is at least the minimum orb distance from it.
+     */
+    private static void checkExploreCaverns(Cavern.GenerationMode mode) {
+        checkExploreCaverns(mode.toString(), (rows, cols, rand) -> Cavern.digExploreCavern(rows, cols, rand, mode));
+    }
+
+    /**
+     * Dig CAVERNS explore caverns of random sizes laid out by topology, and check that each is
+     * valid as checkExploreCaverns(Cavern.GenerationMode) does. Also check that the escape
+     * cavern dug after each can be crossed from where the orb was to its exit.
+     */
+    private static void checkExploreCaverns(CavernTopology topology) {
+        checkExploreCaverns(topology.toString(),
+            (rows, cols, rand) -> Cavern.digExploreCavern(rows, cols, rand, topology));
+        for (long seed = 1; seed <= CAVERNS; seed++) {
+            CavernPair caverns = CavernPair.dig(seed, Cavern.GenerationMode.REJECTION, topology);
+            Tile orb = caverns.exploreCavern().getTarget().getTile();
+            Cavern escape = caverns.escapeCavern();
+            String which = topology + " escape cavern " + seed;
+
+            assertEquals(Tile.Type.ENTRANCE, escape.getTarget().getTile().getType(), which);
+            assertEquals(escape.getGraph(), reachableFrom(escape.getTarget()), which);
+            assertTrue(escape.getGraph().contains(escape.getNodeAt(orb.getRow(), orb.getColumn())),
+                which + ": where the orb was is not open");
+        }
+    }
+
+    /**
+     * Dig CAVERNS explore caverns of random sizes using digger, and check that each is valid as
+     * checkExploreCaverns(Cavern.GenerationMode) does.
+     */
+    private static void checkExploreCaverns(String layout, ExploreDigger digger) {
+        for (long seed = 1; seed <= CAVERNS; seed++) {
+            Random rand = new Random(seed);
+            int rows = rand.nextInt(MAX_ROWS - MIN_ROWS + 1) + MIN_ROWS;
+            int cols = rand.nextInt(MAX_COLS - MIN_COLS + 1) + MIN_COLS;
+            Cavern cavern = digger.dig(rows, cols, rand);
+            String which = layout + " cavern " + seed;
+
+            assertEquals(Tile.Type.ENTRANCE, cavern.getEntrance().getTile().getType(), which);
+            assertEquals(Tile.Type.ORB, cavern.getTarget().getTile().getType(), which);
+            assertEquals(cavern.getGraph(), reachableFrom(cavern.getEntrance()), which);
+            assertTrue(cavern.minPathLengthToTarget(cavern.getEntrance()) >= Cavern.minOrbDistance(rows, cols),
+                which + ": the orb is too close to the entrance");
+        }
+    }
+
+    /**
+     * Caverns dug by rejection are valid, with the orb far enough from the entrance.
+     */
+    @Test
+    void rejectionCavernsAreValid() {
+        checkExploreCaverns(Cavern.GenerationMode.REJECTION);
+    }
+
+    /**
+     * Caverns dug in a single pass are valid, with the orb far enough from the entrance.
+     */
+    @Test
+    void singlePassCavernsAreValid() {
+        checkExploreCaverns(Cavern.GenerationMode.SINGLE_PASS);
+    }
+
+    /**
+     * Maze caverns are valid, with the orb far enough from the entrance.
+     */
+    @Test
+    void mazeCavernsAreValid() {
+        checkExploreCaverns(CavernTopology.MAZE);
+    }
+
+    /**
+     * Caverns of rooms are valid, with the orb far enough from the entrance.
+     */
+    @Test
+    void roomsCavernsAreValid() {
+        checkExploreCaverns(CavernTopology.ROOMS);
+    }
+
+    /**
+     * Spiral caverns are valid, with the orb far enough from the entrance.
+     */
+    @Test
+    void spiralCavernsAreValid() {
+        checkExploreCaverns(CavernTopology.SPIRAL);
+    }
+
+    /**
+     * Comb caverns are valid, with the orb far enough from the entrance.
+     */
+    @Test
+    void combCavernsAreValid() {
+        checkExploreCaverns(CavernTopology.COMB);
+    }
+
+    /**
+     * The same seed digs the same caverns with each topology.
+     */
+    @Test
+    void sameSeedDigsTheSameTopologyCaverns() {
+        for (CavernTopology topology : CavernTopology.values()) {
+            CavernPair first = CavernPair.dig(7, Cavern.GenerationMode.REJECTION, topology);
+            CavernPair second = CavernPair.dig(7, Cavern.GenerationMode.REJECTION, topology);
+
+            assertEquals(MoveLog.fingerprint(first.exploreCavern()), MoveLog.fingerprint(second.exploreCavern()),
+                topology.toString());
+            assertEquals(MoveLog.fingerprint(first.escapeCavern()), MoveLog.fingerprint(second.escapeCavern()),
+                topology.toString());
+        }
+    }
+
+    /**
+     * The same seed digs the same caverns, in either mode.
+     */
+    @Test
+    void sameSeedDigsTheSameCaverns() {
+        for (Cavern.GenerationMode mode : Cavern.GenerationMode.values()) {
+            CavernPair first = CavernPair.dig(7, mode, null);
+            CavernPair second = CavernPair.dig(7, mode, null);
+
+            assertEquals(MoveLog.fingerprint(first.exploreCavern()), MoveLog.fingerprint(second.exploreCavern()));
+            assertEquals(MoveLog.fingerprint(first.escapeCavern()), MoveLog.fingerprint(second.escapeCavern()));
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package game;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for EscapeSimulation
+ */
+class EscapeSimulationTest {
+    private static final long SEED = 42;
+    private static final int TIME = 100_000;
+
+    private Cavern cavern;
+    private Node start;
+    private EscapeSimulation simulation;
+
+    /**
+     * Sets up a simulation starting where the escape phase of game SEED starts.
+     */
+    @BeforeEach
+    void setUp() {
+        CavernPair caverns = CavernPair.dig(SEED, Cavern.GenerationMode.REJECTION, null);
+        cavern = caverns.escapeCavern();
+        Tile orb = caverns.exploreCavern().getTarget().getTile();
+        start = cavern.getNodeAt(orb.getRow(), orb.getColumn());
+        simulation = new EscapeSimulation(cavern, start, TIME, 0, new GoldTaken());
+    }
+
+    /**
+     * Return the route with the fewest nodes from start to the nearest node satisfying goal.
+     */
+    static List<Node> routeTo(Node start, Predicate<Node> goal) {
+        Map<Node, Node> previous = new HashMap<>();
+        Queue<Node> frontier = new ArrayDeque<>(List.of(start));
+        previous.put(start, start);
+        while (!frontier.isEmpty()) {
+            Node n = frontier.remove();
+            if (goal.test(n)) {
+                List<Node> route = new ArrayList<>();
+                for (Node m = n; m != start; m = previous.get(m)) {
+                    route.add(m);
+                }
+                route.add(start);
+                Collections.reverse(route);
+                return route;
+            }
+            for (Node nb : n.getNeighbours()) {
+                if (previous.putIfAbsent(nb, n) == null) {
+                    frontier.add(nb);
+                }
+            }
+        }
+        throw new IllegalArgumentException("routeTo: no node is reachable");
+    }
+
+    /**
+     * Following a route in a fork, and picking up gold, leaves the simulation it was forked from
+     * where it was.
+     */
+    @Test
+    void followingAForkLeavesTheStart() {
+        List<Node> route = routeTo(start, n -> n != start && n.getTile().getOriginalGold() > 0);
+        Node gold = route.get(route.size() - 1);
+
+        EscapeSimulation fork = simulation.fork().follow(route, true);
+
+        assertEquals(gold, fork.getCurrentNode());
+        assertEquals(0, fork.getGold(gold));
+        assertTrue(fork.getGoldCollected() > 0);
+        assertTrue(fork.getTimeRemaining() < TIME);
+        assertEquals(start, simulation.getCurrentNode());
+        assertEquals(TIME, simulation.getTimeRemaining());
+        assertEquals(0, simulation.getGoldCollected());
+        assertEquals(gold.getTile().getOriginalGold(), simulation.getGold(gold));
+    }
+
+    /**
+     * simulateAll follows each route in a fork of its own, and leaves the start where it was.
+     */
+    @Test
+    void simulateAllLeavesTheStart() {
+        List<Node> toGold = routeTo(start, n -> n != start && n.getTile().getOriginalGold() > 0);
+        List<Node> toExit = routeTo(start, n -> n.equals(cavern.getTarget()));
+
+        List<EscapeSimulation> ends = EscapeSimulation.simulateAll(simulation, List.of(toGold, toExit), true);
+
+        assertEquals(toGold.get(toGold.size() - 1), ends.get(0).getCurrentNode());
+        assertTrue(ends.get(1).isAtExit());
+        assertEquals(start, simulation.getCurrentNode());
+        assertEquals(TIME, simulation.getTimeRemaining());
+        assertEquals(0, simulation.getGoldCollected());
+    }
+
+    /**
+     * The gold picked up in one fork is still there in another.
+     */
+    @Test
+    void goldPickedUpInOneForkIsThereInAnother() {
+        List<Node> route = routeTo(start, n -> n != start && n.getTile().getOriginalGold() > 0);
+        Node gold = route.get(route.size() - 1);
+
+        EscapeSimulation first = simulation.fork().follow(route, true);
+        EscapeSimulation second = simulation.fork().follow(route, true);
+
+        assertEquals(first.getGoldCollected(), second.getGoldCollected());
+        assertEquals(0, second.getGold(gold));
+    }
+
+    /**
+     * A route is followed only as far as there is time to go.
+     */
+    @Test
+    void followStopsWhenOutOfTime() {
+        List<Node> route = routeTo(start, n -> n.equals(cavern.getTarget()));
+        int firstStep = start.getEdge(route.get(1)).length;
+        EscapeSimulation hurried = new EscapeSimulation(cavern, start, firstStep, 0, new GoldTaken());
+
+        hurried.follow(route, false);
+
+        assertEquals(route.get(1), hurried.getCurrentNode());
+        assertEquals(0, hurried.getTimeRemaining());
+    }
+}
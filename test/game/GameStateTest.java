@@ -0,0 +1,310 @@
+package game;
+
+import org.junit.jupiter.api.Test;
+import student.Explorer;
+import student.escape.GetTopNCashWithDiversionsEscape;
+import student.explore.BasicFindBestNodeExplore;
+import student.escape.EscapeStrategy;
+import student.explore.ExploreStrategy;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for GameState: its compute budget, playing the same caverns more than once, and
+ * moving along a whole route at once
+ */
+class GameStateTest {
+    private static final long SEED = 42;
+
+    private final CavernPair caverns = CavernPair.dig(SEED, Cavern.GenerationMode.REJECTION, null);
+    private final PrintStream err = new PrintStream(new ByteArrayOutputStream());
+
+    /**
+     * Return an explorer that explores with strategy and escapes as the team does.
+     */
+    private static Explorer exploringWith(ExploreStrategy strategy) {
+        return new Explorer(() -> strategy, GetTopNCashWithDiversionsEscape::new);
+    }
+
+    /**
+     * Return an explorer that explores as the team does and escapes with strategy.
+     */
+    private static Explorer escapingWith(EscapeStrategy strategy) {
+        return new Explorer(BasicFindBestNodeExplore::new, () -> strategy);
+    }
+
+    /**
+     * Return the ids of the nodes of a walk of length steps from the entrance of the explore cavern.
+     */
+    private long[] walkFromEntrance(int length) {
+        long[] ids = new long[length];
+        Node previous = null;
+        Node n = caverns.exploreCavern().getEntrance();
+        for (int i = 0; i < length; i++) {
+            Node next = null;
+            for (Node nb : n.getNeighbours()) {
+                if (next == null || next.equals(previous)) {
+                    next = nb;
+                }
+            }
+            ids[i] = next.getId();
+            previous = n;
+            n = next;
+        }
+        return ids;
+    }
+
+    /**
+     * Return the nodes of a random walk from the current node of state that is longer than the
+     * time remaining. The walk is the same each time it is made from the same state.
+     */
+    private static List<Node> walkBeyondTimeRemaining(EscapeState state) {
+        Random rand = new Random(SEED);
+        List<Node> walk = new ArrayList<>();
+        Node n = state.getCurrentNode();
+        int length = 0;
+        while (length <= state.getTimeRemaining()) {
+            List<Node> neighbours = new ArrayList<>(n.getNeighbours());
+            Node next = neighbours.get(rand.nextInt(neighbours.size()));
+            length += n.getEdge(next).length;
+            walk.add(next);
+            n = next;
+        }
+        return walk;
+    }
+
+    /**
+     * A game played well within its budget is not reported as going over.
+     */
+    @Test
+    void gameWithinBudgetIsNotOverBudget() {
+        GameResult result = GameState.playGame(caverns, new Explorer(), new ComputeBudget(60_000, 60_000, false), err);
+
+        assertTrue(result.exploreSucceeded());
+        assertFalse(result.exploreOverBudget());
+        assertFalse(result.escapeOverBudget());
+    }
+
+    /**
+     * An explore phase that never returns is stopped, recorded as over budget, and fails.
+     */
+    @Test
+    void exploreThatNeverReturnsIsOverBudget() {
+        ExploreStrategy endless = state -> {
+            while (true) {
+                state.getNeighbours();
+            }
+        };
+
+        GameResult result = GameState.playGame(caverns, exploringWith(endless), new ComputeBudget(50, 0, false), err);
+
+        assertTrue(result.exploreOverBudget());
+        assertFalse(result.exploreSucceeded());
+        assertFalse(result.escapeOverBudget());
+    }
+
+    /**
+     * A phase that goes over budget and ignores what it is told can't move once it has been
+     * stopped, so its game's result is final.
+     */
+    @Test
+    void runawayCannotMoveOnceStopped() throws InterruptedException {
+        AtomicInteger movesAfterStopped = new AtomicInteger();
+        CountDownLatch finished = new CountDownLatch(1);
+        ExploreStrategy stubborn = state -> {
+            boolean stopped = false;
+            long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(500);
+            while (System.nanoTime() < end) {
+                try {
+                    state.moveTo(state.getNeighbours().iterator().next().nodeID());
+                    if (stopped) {
+                        movesAfterStopped.incrementAndGet();
+                    }
+                } catch (RuntimeException e) {
+                    stopped = true;
+                }
+            }
+            finished.countDown();
+        };
+
+        GameResult result = GameState.playGame(caverns, exploringWith(stubborn), new ComputeBudget(50, 0, false), err);
+
+        assertTrue(finished.await(10, TimeUnit.SECONDS));
+        assertTrue(result.exploreOverBudget());
+        assertEquals(0, movesAfterStopped.get());
+    }
+
+    /**
+     * Playing a game picks up gold only in that game, so the caverns are unchanged and can be
+     * played again with the same result.
+     */
+    @Test
+    void playingLeavesTheCavernsUnchanged() {
+        long exploreBefore = MoveLog.fingerprint(caverns.exploreCavern());
+        long escapeBefore = MoveLog.fingerprint(caverns.escapeCavern());
+
+        GameResult first = GameState.playGame(caverns, new Explorer(), err);
+        GameResult second = GameState.playGame(caverns, new Explorer(), err);
+
+        assertTrue(first.goldCollected() > 0);
+        assertEquals(exploreBefore, MoveLog.fingerprint(caverns.exploreCavern()));
+        assertEquals(escapeBefore, MoveLog.fingerprint(caverns.escapeCavern()));
+        assertEquals(first.score(), second.score());
+    }
+
+    /**
+     * The explore phase of the team's explorer is the same whether or not it has a budget.
+     */
+    @Test
+    void budgetDoesNotChangeTheGame() {
+        Explorer explorer = new Explorer(BasicFindBestNodeExplore::new, GetTopNCashWithDiversionsEscape::new);
+        GameResult unlimited = GameState.playGame(caverns, explorer, err);
+        GameResult limited = GameState.playGame(caverns, explorer, new ComputeBudget(60_000, 0, false), err);
+
+        assertEquals(unlimited.stepsTaken(), limited.stepsTaken());
+    }
+
+    /**
+     * Moving along a route is the same as moving to each node of it in turn.
+     */
+    @Test
+    void moveAlongIsLikeMovingOneStepAtATime() {
+        long[] route = walkFromEntrance(6);
+        AtomicLong along = new AtomicLong();
+        AtomicLong stepByStep = new AtomicLong();
+
+        GameResult alongResult = GameState.playGame(caverns, exploringWith(state -> {
+            state.moveAlong(route);
+            along.set(state.getCurrentLocation());
+        }), err);
+        GameResult stepByStepResult = GameState.playGame(caverns, exploringWith(state -> {
+            for (long id : route) {
+                state.moveTo(id);
+            }
+            stepByStep.set(state.getCurrentLocation());
+        }), err);
+
+        assertEquals(route[route.length - 1], along.get());
+        assertEquals(stepByStep.get(), along.get());
+        assertEquals(route.length, alongResult.stepsTaken());
+        assertEquals(stepByStepResult.stepsTaken(), alongResult.stepsTaken());
+    }
+
+    /**
+     * A route with an id in the middle that is not a neighbour of the node before it is refused
+     * without moving at all.
+     */
+    @Test
+    void moveAlongWithBadIdLeavesPositionUnchanged() {
+        long[] route = walkFromEntrance(6);
+        // -1 is no node's id, and the first node of the route is two steps from the third.
+        for (long bad : new long[]{-1, route[0]}) {
+            long[] badRoute = route.clone();
+            badRoute[3] = bad;
+            AtomicLong before = new AtomicLong();
+            AtomicLong after = new AtomicLong();
+            AtomicReference<RuntimeException> thrown = new AtomicReference<>();
+
+            GameResult result = GameState.playGame(caverns, exploringWith(state -> {
+                before.set(state.getCurrentLocation());
+                try {
+                    state.moveAlong(badRoute);
+                } catch (RuntimeException e) {
+                    thrown.set(e);
+                }
+                after.set(state.getCurrentLocation());
+            }), err);
+
+            assertInstanceOf(IllegalArgumentException.class, thrown.get());
+            assertEquals(before.get(), after.get(), "moved with bad id " + bad);
+            assertEquals(0, result.stepsTaken());
+        }
+    }
+
+    /**
+     * Following a path that is longer than the time remaining, picking up gold, stops at the same
+     * node, with the same time remaining and gold, as moving to each node in turn and picking up
+     * its gold until a move can't be made in time.
+     */
+    @Test
+    void followPathOutOfTimeStopsWhereStepsWould() {
+        AtomicReference<Node> followed = new AtomicReference<>();
+        AtomicInteger followedTime = new AtomicInteger();
+        AtomicReference<Node> stepped = new AtomicReference<>();
+        AtomicInteger steppedTime = new AtomicInteger();
+
+        GameResult followResult = GameState.playGame(caverns, escapingWith(state -> {
+            try {
+                state.followPath(walkBeyondTimeRemaining(state), true);
+            } finally {
+                followed.set(state.getCurrentNode());
+                followedTime.set(state.getTimeRemaining());
+            }
+        }), err);
+        GameResult stepResult = GameState.playGame(caverns, escapingWith(state -> {
+            try {
+                for (Node n : walkBeyondTimeRemaining(state)) {
+                    state.moveTo(n);
+                    if (state.getGold(n) > 0) {
+                        state.pickUpGold();
+                    }
+                }
+            } finally {
+                stepped.set(state.getCurrentNode());
+                steppedTime.set(state.getTimeRemaining());
+            }
+        }), err);
+
+        assertFalse(followResult.escapeSucceeded());
+        assertNotNull(followed.get());
+        assertEquals(stepped.get(), followed.get());
+        assertEquals(steppedTime.get(), followedTime.get());
+        assertTrue(followResult.goldCollected() > 0);
+        assertEquals(stepResult.goldCollected(), followResult.goldCollected());
+        assertEquals(stepResult.score(), followResult.score());
+    }
+
+    /**
+     * A path with a node in the middle that is not a neighbour of the node before it is refused
+     * without moving at all or picking up any gold.
+     */
+    @Test
+    void followPathWithBadNodeLeavesPositionUnchanged() {
+        AtomicReference<Node> before = new AtomicReference<>();
+        AtomicReference<Node> after = new AtomicReference<>();
+        AtomicInteger timeBefore = new AtomicInteger();
+        AtomicInteger timeAfter = new AtomicInteger();
+        AtomicReference<RuntimeException> thrown = new AtomicReference<>();
+
+        GameResult result = GameState.playGame(caverns, escapingWith(state -> {
+            before.set(state.getCurrentNode());
+            timeBefore.set(state.getTimeRemaining());
+            List<Node> path = walkBeyondTimeRemaining(state).subList(0, 6);
+            // The start is two steps from the second node.
+            path.set(2, state.getCurrentNode());
+            try {
+                state.followPath(path, true);
+            } catch (RuntimeException e) {
+                thrown.set(e);
+            }
+            after.set(state.getCurrentNode());
+            timeAfter.set(state.getTimeRemaining());
+        }), err);
+
+        assertInstanceOf(IllegalArgumentException.class, thrown.get());
+        assertEquals(before.get(), after.get());
+        assertEquals(timeBefore.get(), timeAfter.get());
+        assertEquals(0, result.goldCollected());
+    }
+}
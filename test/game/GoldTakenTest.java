@@ -0,0 +1,76 @@
+package game;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for GoldTaken
+ */
+class GoldTakenTest {
+
+    /**
+     * A fork starts out with the gold its original had taken.
+     */
+    @Test
+    void forkStartsTheSame() {
+        GoldTaken original = new GoldTaken();
+        original.add(3);
+
+        GoldTaken fork = original.fork();
+
+        assertTrue(fork.contains(3));
+        assertFalse(fork.contains(4));
+    }
+
+    /**
+     * Taking gold in a fork leaves the original unchanged.
+     */
+    @Test
+    void addToForkLeavesOriginal() {
+        GoldTaken original = new GoldTaken();
+        original.add(3);
+
+        GoldTaken fork = original.fork();
+        fork.add(7);
+
+        assertTrue(fork.contains(7));
+        assertFalse(original.contains(7));
+        assertTrue(original.contains(3));
+    }
+
+    /**
+     * Taking gold in the original after forking leaves the fork unchanged.
+     */
+    @Test
+    void addToOriginalLeavesFork() {
+        GoldTaken original = new GoldTaken();
+        GoldTaken fork = original.fork();
+
+        original.add(5);
+
+        assertTrue(original.contains(5));
+        assertFalse(fork.contains(5));
+    }
+
+    /**
+     * Forks of forks, and several forks of one record, all change independently.
+     */
+    @Test
+    void forksChangeIndependently() {
+        GoldTaken original = new GoldTaken();
+        original.add(1);
+        GoldTaken first = original.fork();
+        GoldTaken second = original.fork();
+        GoldTaken grandchild = first.fork();
+
+        first.add(2);
+        second.add(3);
+        grandchild.add(4);
+
+        assertTrue(original.contains(1) && !original.contains(2) && !original.contains(3) && !original.contains(4));
+        assertTrue(first.contains(1) && first.contains(2) && !first.contains(3) && !first.contains(4));
+        assertTrue(second.contains(1) && !second.contains(2) && second.contains(3) && !second.contains(4));
+        assertTrue(grandchild.contains(1) && !grandchild.contains(2) && grandchild.contains(4));
+    }
+}
@@ -0,0 +1,107 @@
+package game;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static game.Constants.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for MappedCavern
+ */
+class MappedCavernTest {
+    /**
+     * How many caverns are compared with those dug by Cavern
+     */
+    private static final int CAVERNS = 100;
+
+    @TempDir
+    Path dir;
+
+    /**
+     * Check that actual is the same cavern as expected, tile by tile; which says which it is.
+     */
+    static void assertSameCavern(CavernView expected, CavernView actual, String which) {
+        assertEquals(expected.getRowCount(), actual.getRowCount(), which);
+        assertEquals(expected.getColumnCount(), actual.getColumnCount(), which);
+        assertEquals(expected.numOpenTiles(), actual.numOpenTiles(), which);
+        assertEquals(expected.getEntranceRow(), actual.getEntranceRow(), which);
+        assertEquals(expected.getEntranceColumn(), actual.getEntranceColumn(), which);
+        assertEquals(expected.getTargetRow(), actual.getTargetRow(), which);
+        assertEquals(expected.getTargetColumn(), actual.getTargetColumn(), which);
+        for (int r = 0; r < expected.getRowCount(); r++) {
+            for (int c = 0; c < expected.getColumnCount(); c++) {
+                String tile = which + " at (" + r + ", " + c + ")";
+                assertEquals(expected.getTileTypeAt(r, c), actual.getTileTypeAt(r, c), tile);
+                assertEquals(expected.getGoldAt(r, c), actual.getGoldAt(r, c), tile);
+                for (Cavern.Direction dir : Cavern.Direction.values()) {
+                    assertEquals(expected.getEdgeWeight(r, c, dir), actual.getEdgeWeight(r, c, dir),
+                        tile + " to the " + dir);
+                }
+            }
+        }
+    }
+
+    /**
+     * An unweighted mapped cavern is the explore cavern that Cavern digs from the same seed.
+     */
+    @Test
+    void sameCavernAsCavernDigs() throws IOException {
+        Path file = dir.resolve("cavern");
+        for (long seed = 1; seed <= CAVERNS; seed++) {
+            Random rand = new Random(seed);
+            int rows = rand.nextInt(MAX_ROWS - MIN_ROWS + 1) + MIN_ROWS;
+            int cols = rand.nextInt(MAX_COLS - MIN_COLS + 1) + MIN_COLS;
+            Cavern cavern = Cavern.digExploreCavern(rows, cols, new Random(seed));
+            try (MappedCavern mapped = MappedCavern.generate(file, rows, cols, new Random(seed), false)) {
+                assertSameCavern(cavern, mapped, "cavern " + seed);
+            }
+        }
+    }
+
+    /**
+     * A weighted cavern has edges of every weight an escape cavern has, the same both ways.
+     */
+    @Test
+    void weightedEdgesAreInRangeBothWays() throws IOException {
+        try (MappedCavern mapped = MappedCavern.generate(dir.resolve("cavern"), 60, 80, new Random(3), true)) {
+            boolean[] seen = new boolean[Cavern.MAX_EDGE_WEIGHT + 1];
+            for (int r = 0; r < mapped.getRowCount() - 1; r++) {
+                for (int c = 0; c < mapped.getColumnCount() - 1; c++) {
+                    int south = mapped.getEdgeWeight(r, c, Cavern.Direction.SOUTH);
+                    int east = mapped.getEdgeWeight(r, c, Cavern.Direction.EAST);
+                    assertEquals(south, mapped.getEdgeWeight(r + 1, c, Cavern.Direction.NORTH));
+                    assertEquals(east, mapped.getEdgeWeight(r, c + 1, Cavern.Direction.WEST));
+                    assertEquals(mapped.isOpen(r, c) && mapped.isOpen(r + 1, c), south > 0);
+                    seen[south] = true;
+                    seen[east] = true;
+                }
+            }
+            for (int weight = 1; weight <= Cavern.MAX_EDGE_WEIGHT; weight++) {
+                assertTrue(seen[weight], "no edge of weight " + weight);
+            }
+        }
+    }
+
+    /**
+     * A cavern opened again from its file is the cavern that was generated, and a file that is
+     * not a mapped cavern can't be opened.
+     */
+    @Test
+    void openReadsWhatGenerateWrote() throws IOException {
+        Path file = dir.resolve("cavern");
+        Path other = dir.resolve("other");
+        Files.write(other, new byte[128]);
+        try (MappedCavern generated = MappedCavern.generate(file, 40, 50, new Random(5), true);
+             MappedCavern opened = MappedCavern.open(file)) {
+            assertSameCavern(generated, opened, "opened cavern");
+        }
+
+        assertThrows(IOException.class, () -> MappedCavern.open(other));
+    }
+}
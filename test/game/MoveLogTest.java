@@ -0,0 +1,110 @@
+package game;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import student.Explorer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for MoveLog
+ */
+class MoveLogTest {
+    private static final long SEED = 42;
+
+    @TempDir
+    Path dir;
+
+    private final PrintStream err = new PrintStream(new ByteArrayOutputStream());
+    private CavernPair caverns;
+    private GameResult played;
+    private byte[] written;
+
+    /**
+     * Sets up by playing game SEED with the team's explorer, logging its moves.
+     */
+    @BeforeEach
+    void setUp() throws IOException {
+        caverns = CavernPair.dig(SEED, Cavern.GenerationMode.REJECTION, null);
+        Path file = dir.resolve(SEED + ".moves");
+        played = GameState.playGame(caverns, new Explorer(), ComputeBudget.UNLIMITED, err, file);
+        written = Files.readAllBytes(file);
+    }
+
+    /**
+     * Return the log read from bytes.
+     */
+    private static MoveLog read(byte[] bytes) throws IOException {
+        try (InputStream in = new ByteArrayInputStream(bytes)) {
+            return MoveLog.readFrom(in);
+        }
+    }
+
+    /**
+     * A log read back and written again is exactly the log written.
+     */
+    @Test
+    void writeToAndReadFromRoundTrip() throws IOException {
+        MoveLog log = read(written);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        log.writeTo(out);
+
+        assertEquals(SEED, log.seed());
+        assertTrue(log.matches(caverns));
+        assertArrayEquals(written, out.toByteArray());
+    }
+
+    /**
+     * Replaying a log, in caverns dug again from the seed, plays the same game.
+     */
+    @Test
+    void replayScoresTheSame() throws IOException {
+        MoveLog log = read(written);
+        CavernPair again = CavernPair.dig(SEED, Cavern.GenerationMode.REJECTION, null);
+
+        GameResult replayed = GameState.playGame(again, log.replayer(again), err);
+
+        assertEquals(played.score(), replayed.score());
+        assertEquals(played.stepsTaken(), replayed.stepsTaken());
+        assertEquals(played.goldCollected(), replayed.goldCollected());
+    }
+
+    /**
+     * A log can't be replayed in caverns other than those it was recorded in.
+     */
+    @Test
+    void rejectsOtherCaverns() throws IOException {
+        MoveLog log = read(written);
+        CavernPair otherSeed = CavernPair.dig(SEED + 1, Cavern.GenerationMode.REJECTION, null);
+        CavernPair otherMode = CavernPair.dig(SEED, Cavern.GenerationMode.SINGLE_PASS, null);
+
+        assertFalse(log.matches(otherSeed));
+        assertThrows(IllegalArgumentException.class, () -> log.replayer(otherSeed));
+        if (!log.matches(otherMode)) {
+            assertThrows(IllegalArgumentException.class, () -> log.replayer(otherMode));
+        }
+    }
+
+    /**
+     * Something that is not a log, or a log cut short, can't be read.
+     */
+    @Test
+    void rejectsWhatIsNotALog() {
+        byte[] notALog = Arrays.copyOf(written, written.length);
+        notALog[0] ^= 1;
+
+        assertThrows(IOException.class, () -> read(notALog));
+        assertThrows(IOException.class, () -> read(Arrays.copyOf(written, written.length / 2)));
+        assertThrows(IOException.class, () -> read(new byte[0]));
+    }
+}
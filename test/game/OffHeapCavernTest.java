@@ -0,0 +1,112 @@
+package game;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for OffHeapCavern
+ */
+class OffHeapCavernTest {
+    private static final long SEED = 42;
+
+    @TempDir
+    Path dir;
+
+    /**
+     * A copy of a game's caverns, with their gold and edge weights, is the same tile by tile.
+     */
+    @Test
+    void copyOfCavernIsTheSame() {
+        CavernPair caverns = CavernPair.dig(SEED, Cavern.GenerationMode.REJECTION, null);
+        try (OffHeapCavern explore = OffHeapCavern.copyOf(caverns.exploreCavern());
+             OffHeapCavern escape = OffHeapCavern.copyOf(caverns.escapeCavern())) {
+            MappedCavernTest.assertSameCavern(caverns.exploreCavern(), explore, "explore cavern");
+            MappedCavernTest.assertSameCavern(caverns.escapeCavern(), escape, "escape cavern");
+        }
+    }
+
+    /**
+     * A copy of a mapped cavern is the same tile by tile.
+     */
+    @Test
+    void copyOfMappedCavernIsTheSame() throws IOException {
+        try (MappedCavern mapped = MappedCavern.generate(dir.resolve("cavern"), 50, 70, new Random(SEED), true);
+             OffHeapCavern copy = OffHeapCavern.copyOf(mapped)) {
+            MappedCavernTest.assertSameCavern(mapped, copy, "mapped cavern");
+        }
+    }
+
+    /**
+     * A closed cavern can't be queried, apart from its size and where its entrance and target
+     * are, and closing it again has no effect.
+     */
+    @Test
+    void closedCavernCannotBeQueried() {
+        Cavern cavern = CavernPair.dig(SEED, Cavern.GenerationMode.REJECTION, null).escapeCavern();
+        OffHeapCavern copy = OffHeapCavern.copyOf(cavern);
+        assertFalse(copy.isClosed());
+
+        copy.close();
+        copy.close();
+
+        assertTrue(copy.isClosed());
+        assertEquals(cavern.getRowCount(), copy.getRowCount());
+        assertEquals(cavern.getTargetRow(), copy.getTargetRow());
+        assertThrows(IllegalStateException.class, () -> copy.getTileTypeAt(0, 0));
+        assertThrows(IllegalStateException.class, () -> copy.getGoldAt(1, 1));
+        assertThrows(IllegalStateException.class, () -> copy.getEdgeWeight(1, 1, Cavern.Direction.NORTH));
+    }
+
+    /**
+     * Closing a cavern while another thread is querying it only makes the queries that thread
+     * starts afterwards fail, and those fail as queries of a closed cavern do.
+     */
+    @Test
+    void closingWhileQueryingOnlyStopsLaterQueries() throws InterruptedException {
+        Cavern cavern = CavernPair.dig(SEED, Cavern.GenerationMode.REJECTION, null).escapeCavern();
+        OffHeapCavern copy = OffHeapCavern.copyOf(cavern);
+        int expected = sumOfGold(cavern);
+        CountDownLatch querying = new CountDownLatch(1);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread reader = new Thread(() -> {
+            try {
+                while (true) {
+                    assertEquals(expected, sumOfGold(copy));
+                    querying.countDown();
+                }
+            } catch (Throwable t) {
+                failure.set(t);
+            }
+        });
+        reader.start();
+
+        assertTrue(querying.await(10, TimeUnit.SECONDS));
+        copy.close();
+        reader.join(TimeUnit.SECONDS.toMillis(10));
+
+        assertFalse(reader.isAlive());
+        assertInstanceOf(IllegalStateException.class, failure.get());
+    }
+
+    /**
+     * Return the total gold on the tiles of cavern.
+     */
+    private static int sumOfGold(CavernView cavern) {
+        int gold = 0;
+        for (int r = 0; r < cavern.getRowCount(); r++) {
+            for (int c = 0; c < cavern.getColumnCount(); c++) {
+                gold += cavern.getGoldAt(r, c);
+            }
+        }
+        return gold;
+    }
+}
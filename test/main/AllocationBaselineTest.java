@@ -0,0 +1,148 @@
+package main;
+
+import game.Cavern;
+import game.CavernTopology;
+import game.GameResult;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for AllocationBaseline
+ */
+class AllocationBaselineTest {
+    private static final long MASTER_SEED = 42;
+    private static final int GAMES = 5;
+    private static final long EXPLORE_BYTES = 400_000;
+    private static final long ESCAPE_BYTES = 7_000_000;
+
+    @TempDir
+    Path dir;
+
+    /**
+     * Return the statistics of GAMES games that each allocated exploreBytes and escapeBytes in
+     * their explore and escape phases.
+     */
+    private static SweepStatistics statistics(long exploreBytes, long escapeBytes) {
+        SweepStatistics statistics = new SweepStatistics();
+        for (int i = 0; i < GAMES; i++) {
+            statistics.add(new GameResult(i, 100, 90, 1000, 1.2, 1200, true, true, 1_000_000, 2_000_000,
+                exploreBytes + escapeBytes, false, false, exploreBytes, escapeBytes));
+        }
+        return statistics;
+    }
+
+    /**
+     * Return the baseline of a sweep of REJECTION caverns from MASTER_SEED in which each game
+     * allocated exploreBytes and escapeBytes.
+     */
+    private static AllocationBaseline baseline(long exploreBytes, long escapeBytes) {
+        return AllocationBaseline.of(statistics(exploreBytes, escapeBytes), MASTER_SEED,
+            Cavern.GenerationMode.REJECTION, null);
+    }
+
+    /**
+     * A baseline written to a file is read back as the same baseline, for the same sweep, and
+     * with nothing over it.
+     */
+    @Test
+    void writtenBaselineIsReadBack() throws IOException {
+        AllocationBaseline written = baseline(EXPLORE_BYTES, ESCAPE_BYTES);
+        Path file = dir.resolve("baseline.properties");
+        written.write(file);
+
+        Optional<AllocationBaseline> read = AllocationBaseline.read(file);
+
+        assertTrue(read.isPresent());
+        assertTrue(read.get().isMeasured());
+        assertEquals(written.toString(), read.get().toString());
+        assertEquals(Optional.empty(), read.get().sweepDifference(written));
+        assertEquals(List.of(), read.get().regressions(written));
+    }
+
+    /**
+     * There is no baseline in a file that doesn't exist, and a file without a value, or with a
+     * value that is not a number, is refused.
+     */
+    @Test
+    void missingOrBrokenFileIsNoBaseline() throws IOException {
+        assertEquals(Optional.empty(), AllocationBaseline.read(dir.resolve("none.properties")));
+
+        Path file = dir.resolve("baseline.properties");
+        baseline(EXPLORE_BYTES, ESCAPE_BYTES).write(file);
+        String text = Files.readString(file);
+        Files.writeString(file, text.replaceAll("(?m)^games=.*$", ""));
+        assertThrows(IllegalArgumentException.class, () -> AllocationBaseline.read(file));
+        Files.writeString(file, text.replaceAll("(?m)^escapeBytesPerGame=.*$", "escapeBytesPerGame=lots"));
+        assertThrows(IllegalArgumentException.class, () -> AllocationBaseline.read(file));
+    }
+
+    /**
+     * A run of a different sweep (another master seed, number of games, mode or topology) is
+     * refused, with each difference described.
+     */
+    @Test
+    void differentSweepIsRefused() {
+        AllocationBaseline baseline = baseline(EXPLORE_BYTES, ESCAPE_BYTES);
+        SweepStatistics statistics = statistics(EXPLORE_BYTES, ESCAPE_BYTES);
+
+        Optional<String> seed = baseline.sweepDifference(AllocationBaseline.of(statistics, MASTER_SEED + 1,
+            Cavern.GenerationMode.REJECTION, null));
+        statistics.merge(statistics(EXPLORE_BYTES, ESCAPE_BYTES));
+        Optional<String> games = baseline.sweepDifference(AllocationBaseline.of(statistics, MASTER_SEED,
+            Cavern.GenerationMode.REJECTION, null));
+        Optional<String> all = baseline.sweepDifference(AllocationBaseline.of(statistics, MASTER_SEED + 1,
+            Cavern.GenerationMode.SINGLE_PASS, CavernTopology.MAZE));
+
+        assertEquals(Optional.of("master seed 43 instead of 42"), seed);
+        assertEquals(Optional.of("10 games instead of 5"), games);
+        assertEquals(Optional.of("master seed 43 instead of 42, 10 games instead of 5, mode SINGLE_PASS instead of "
+            + "REJECTION, topology MAZE instead of none"), all);
+    }
+
+    /**
+     * A run may allocate up to the tolerance more than the baseline in each phase, and a phase
+     * that allocates more than that is reported; a tolerance in the file replaces the default.
+     */
+    @Test
+    void runOverToleranceIsARegression() throws IOException {
+        AllocationBaseline baseline = baseline(EXPLORE_BYTES, ESCAPE_BYTES);
+        double within = 1 + AllocationBaseline.DEFAULT_TOLERANCE / 2;
+        double over = 1 + AllocationBaseline.DEFAULT_TOLERANCE * 2;
+
+        List<String> none = baseline.regressions(baseline((long) (EXPLORE_BYTES * within),
+            (long) (ESCAPE_BYTES * within)));
+        List<String> explore = baseline.regressions(baseline((long) (EXPLORE_BYTES * over), ESCAPE_BYTES / 2));
+        List<String> both = baseline.regressions(baseline((long) (EXPLORE_BYTES * over),
+            (long) (ESCAPE_BYTES * over)));
+
+        assertEquals(List.of(), none);
+        assertEquals(1, explore.size());
+        assertTrue(explore.get(0).startsWith("the explore phase"), explore.get(0));
+        assertEquals(2, both.size());
+        assertTrue(both.get(1).startsWith("the escape phase"), both.get(1));
+
+        Path file = dir.resolve("baseline.properties");
+        baseline.write(file);
+        Files.writeString(file, Files.readString(file).replaceAll("(?m)^tolerance=.*$", "tolerance=0.25"));
+        AllocationBaseline looser = AllocationBaseline.read(file).orElseThrow();
+        assertEquals(List.of(), looser.regressions(baseline((long) (EXPLORE_BYTES * over),
+            (long) (ESCAPE_BYTES * over))));
+    }
+
+    /**
+     * A sweep whose allocation couldn't be measured has no baseline to compare.
+     */
+    @Test
+    void unmeasuredSweepIsNotMeasured() {
+        assertTrue(baseline(EXPLORE_BYTES, ESCAPE_BYTES).isMeasured());
+        assertFalse(baseline(-1, -1).isMeasured());
+    }
+}
@@ -0,0 +1,149 @@
+package main;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for RunningStatistic
+ */
+class RunningStatisticTest {
+    private static final long SEED = 42;
+    private static final int VALUES = 100_000;
+    private static final double[] FRACTIONS = {0, 0.001, 0.01, 0.1, 0.25, 0.5, 0.75, 0.9, 0.99, 0.999, 1};
+
+    /**
+     * Return VALUES non-negative values, a few of them 0 and the rest spread over several powers
+     * of ten, as the times and scores of a sweep are.
+     */
+    private static double[] values(Random rand) {
+        double[] values = new double[VALUES];
+        for (int i = 0; i < VALUES; i++) {
+            values[i] = i % 1000 == 0 ? 0 : Math.exp(5 + 2 * rand.nextGaussian());
+        }
+        return values;
+    }
+
+    /**
+     * Return the exact percentile of values (sorted), as percentile(fraction) defines it.
+     */
+    private static double exactPercentile(double[] sorted, double fraction) {
+        long rank = Math.max(1, (long) Math.ceil(fraction * sorted.length));
+        return sorted[(int) rank - 1];
+    }
+
+    /**
+     * Every bucket's midpoint is in that bucket, the buckets are in the order of the values they
+     * hold, and every value is within 1% of the midpoint of its bucket.
+     */
+    @Test
+    void bucketsAreOrderedAndNarrow() {
+        assertEquals(0, RunningStatistic.bucketOf(0));
+        assertEquals(0, RunningStatistic.midpointOf(0));
+        int last = RunningStatistic.bucketOf(Double.MAX_VALUE) - 1;
+        for (int b = 1; b <= last; b++) {
+            assertEquals(b, RunningStatistic.bucketOf(RunningStatistic.midpointOf(b)), "midpoint of bucket " + b);
+            assertTrue(RunningStatistic.midpointOf(b - 1) < RunningStatistic.midpointOf(b));
+        }
+
+        Random rand = new Random(SEED);
+        for (int i = 0; i < VALUES; i++) {
+            double value = Math.scalb(1 + rand.nextDouble(), rand.nextInt(80) - 20);
+            double midpoint = RunningStatistic.midpointOf(RunningStatistic.bucketOf(value));
+            assertEquals(value, midpoint, value * 0.01, "midpoint of the bucket of " + value);
+            double larger = value * (1 + rand.nextDouble());
+            assertTrue(RunningStatistic.bucketOf(value) <= RunningStatistic.bucketOf(larger));
+        }
+    }
+
+    /**
+     * Values too small or too large for the buckets are counted in the lowest or highest bucket.
+     */
+    @Test
+    void outOfRangeValuesAreInTheEndBuckets() {
+        assertEquals(0, RunningStatistic.bucketOf(Double.MIN_VALUE));
+        assertEquals(0, RunningStatistic.bucketOf(1e-9));
+        assertTrue(RunningStatistic.bucketOf(1e-6) > 0);
+        assertEquals(RunningStatistic.bucketOf(Double.MAX_VALUE), RunningStatistic.bucketOf(1e30));
+        assertTrue(RunningStatistic.bucketOf(1e18) < RunningStatistic.bucketOf(1e30));
+    }
+
+    /**
+     * The count, mean, standard deviation, minimum and maximum are those of the values, and every
+     * percentile is within 1% of the exact one.
+     */
+    @Test
+    void statisticsMatchExactOnes() {
+        double[] values = values(new Random(SEED));
+        RunningStatistic statistic = new RunningStatistic();
+        for (double value : values) {
+            statistic.add(value);
+        }
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        double mean = Arrays.stream(values).sum() / VALUES;
+        double squares = Arrays.stream(values).map(v -> (v - mean) * (v - mean)).sum();
+
+        assertEquals(VALUES, statistic.count());
+        assertEquals(mean, statistic.mean(), mean * 1e-9);
+        assertEquals(Math.sqrt(squares / (VALUES - 1)), statistic.standardDeviation(), mean * 1e-9);
+        assertEquals(sorted[0], statistic.min());
+        assertEquals(sorted[VALUES - 1], statistic.max());
+        for (double fraction : FRACTIONS) {
+            double exact = exactPercentile(sorted, fraction);
+            assertEquals(exact, statistic.percentile(fraction), exact * 0.01, "percentile " + fraction);
+        }
+    }
+
+    /**
+     * Merging instances summarising two parts of a stream gives the same statistics as one
+     * instance summarising all of it, and merging an empty instance has no effect.
+     */
+    @Test
+    void mergeIsAsIfAllWereAddedToOne() {
+        double[] values = values(new Random(SEED));
+        RunningStatistic all = new RunningStatistic();
+        RunningStatistic first = new RunningStatistic();
+        RunningStatistic second = new RunningStatistic();
+        for (int i = 0; i < VALUES; i++) {
+            all.add(values[i]);
+            (i < VALUES / 3 ? first : second).add(values[i]);
+        }
+        RunningStatistic merged = new RunningStatistic();
+        merged.merge(first);
+        merged.merge(new RunningStatistic());
+        merged.merge(second);
+
+        assertEquals(all.count(), merged.count());
+        assertEquals(all.mean(), merged.mean(), all.mean() * 1e-9);
+        assertEquals(all.standardDeviation(), merged.standardDeviation(), all.standardDeviation() * 1e-9);
+        assertEquals(all.min(), merged.min());
+        assertEquals(all.max(), merged.max());
+        for (double fraction : FRACTIONS) {
+            assertEquals(all.percentile(fraction), merged.percentile(fraction), "percentile " + fraction);
+        }
+        assertEquals(VALUES / 3, first.count());
+    }
+
+    /**
+     * An instance with no values has no mean, minimum, maximum or percentiles, and one with a
+     * single value has no standard deviation.
+     */
+    @Test
+    void tooFewValues() {
+        RunningStatistic statistic = new RunningStatistic();
+        assertEquals(0, statistic.count());
+        assertTrue(Double.isNaN(statistic.mean()));
+        assertTrue(Double.isNaN(statistic.min()));
+        assertTrue(Double.isNaN(statistic.max()));
+        assertTrue(Double.isNaN(statistic.percentile(0.5)));
+
+        statistic.add(3);
+        assertEquals(3, statistic.mean());
+        assertEquals(3, statistic.percentile(0.5));
+        assertTrue(Double.isNaN(statistic.standardDeviation()));
+    }
+}
@@ -42,10 +42,10 @@ public class DiversionsGeneratorTest {
         when(endNode.getTile()).thenReturn(endTile);
         when(diversionNode.getTile()).thenReturn(diversionTile);
 
-        when(startTile.getGold()).thenReturn(0);
-        when(midTile.getGold()).thenReturn(0);
-        when(endTile.getGold()).thenReturn(0);
-        when(diversionTile.getGold()).thenReturn(100);
+        when(startTile.getOriginalGold()).thenReturn(0);
+        when(midTile.getOriginalGold()).thenReturn(0);
+        when(endTile.getOriginalGold()).thenReturn(0);
+        when(diversionTile.getOriginalGold()).thenReturn(100);
 
         when(startNode.getNeighbours()).thenReturn(new HashSet<>(Arrays.asList(midNode)));
         when(midNode.getNeighbours()).thenReturn(new HashSet<>(Arrays.asList(startNode, diversionNode, endNode)));
@@ -74,7 +74,8 @@ public class DiversionsGeneratorTest {
         int depth = 1;
         int time = 1;
 
-        List<Node> pathWithDiversions = DiversionsGenerator.getPathWithDiversions(proposedPath, depth, time);
+        List<Node> pathWithDiversions = DiversionsGenerator.getPathWithDiversions(proposedPath, depth, time,
+                n -> n.getTile().getOriginalGold());
 
         assertEquals(proposedPath, pathWithDiversions, "Expected path to match the proposed path.");
     }
@@ -88,7 +89,8 @@ public class DiversionsGeneratorTest {
         int depth = 1;
         int time = 5;
 
-        List<Node> pathWithDiversions = DiversionsGenerator.getPathWithDiversions(proposedPath, depth, time);
+        List<Node> pathWithDiversions = DiversionsGenerator.getPathWithDiversions(proposedPath, depth, time,
+                n -> n.getTile().getOriginalGold());
         System.out.println(pathWithDiversions);
 
 
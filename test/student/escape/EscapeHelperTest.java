@@ -35,7 +35,7 @@ public class EscapeHelperTest {
         Tile mockTile = mock(Tile.class);
 
 
-        when(mockTile.getGold()).thenReturn(10);
+        when(mockTile.getOriginalGold()).thenReturn(10);
 
 
         when(mockNode.getTile()).thenReturn(mockTile);
@@ -76,7 +76,7 @@ public class EscapeHelperTest {
 
     private void setupNodeWithTileAndGold(Node node, int goldValue) {
         Tile mockTile = mock(Tile.class);
-        when(mockTile.getGold()).thenReturn(goldValue);
+        when(mockTile.getOriginalGold()).thenReturn(goldValue);
         when(node.getTile()).thenReturn(mockTile);
     }
 
@@ -91,7 +91,8 @@ public class EscapeHelperTest {
 
         System.out.println("Calling escapeHelper.findPathFromViaTo(start, viaNodes, end)");
         System.out.println("Start " + start + " via " + viaNodes + " end " + end);
-        List<Node> actualPath = EscapeHelper.findPathFromViaTo(start, viaNodes, end);
+        List<Node> actualPath = EscapeHelper.findPathFromViaTo(start, viaNodes, end,
+                n -> n.getTile().getOriginalGold());
 
 
         List<Node> expectedPath = Arrays.asList(start, viaNode1, viaNode2, end);
@@ -189,28 +190,28 @@ public class EscapeHelperTest {
         Node node1 = mock(Node.class);
         Tile tile1 = mock(Tile.class);
         when(node1.getTile()).thenReturn(tile1);
-        when(tile1.getGold()).thenReturn(5);  // Gold value 5
+        when(tile1.getOriginalGold()).thenReturn(5);  // Gold value 5
 
         Node node2 = mock(Node.class);
         Tile tile2 = mock(Tile.class);
         when(node2.getTile()).thenReturn(tile2);
-        when(tile2.getGold()).thenReturn(10);   // Gold value 10
+        when(tile2.getOriginalGold()).thenReturn(10);   // Gold value 10
 
         Node node3 = mock(Node.class);
         Tile tile3 = mock(Tile.class);
         when(node3.getTile()).thenReturn(tile3);
-        when(tile3.getGold()).thenReturn(15);  // Gold value 15
+        when(tile3.getOriginalGold()).thenReturn(15);  // Gold value 15
 
         Node node4 = mock(Node.class);
         Tile tile4 = mock(Tile.class);
         when(node4.getTile()).thenReturn(tile4);
-        when(tile4.getGold()).thenReturn(0);  // Gold value 0
+        when(tile4.getOriginalGold()).thenReturn(0);  // Gold value 0
 
         // Create a collection of mock nodes
         Collection<Node> allNodes = Arrays.asList(node1, node2, node3, node4);
 
         // Call the method under test
-        List<Node> topNodes = EscapeHelper.getTopNNodes(allNodes, 3);  // Get top 2 nodes
+        List<Node> topNodes = EscapeHelper.getTopNNodes(allNodes, 3, n -> n.getTile().getOriginalGold());  // Get top 2 nodes
 
         // Verify the result returning nodes in ascending order based on gold value
         assertEquals(3, topNodes.size());  // Ensure correct number of nodes
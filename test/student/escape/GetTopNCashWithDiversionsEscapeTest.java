@@ -153,8 +153,8 @@ public class GetTopNCashWithDiversionsEscapeTest {
         when(mockState.getCurrentNode()).thenReturn(na);
         when(mockState.getExit()).thenReturn(nc);
         when(mockState.getTimeRemaining()).thenReturn(250);
-        when(tf.getGold()).thenReturn(10);
-        when(tj.getGold()).thenReturn(20);
+        when(mockState.getGold(nf)).thenReturn(10);
+        when(mockState.getGold(nj)).thenReturn(20);
         strategy.escape(mockState);
 
         // Should move twice - once to nb, and once to nc
@@ -180,8 +180,8 @@ public class GetTopNCashWithDiversionsEscapeTest {
         when(mockState.getCurrentNode()).thenReturn(na);
         when(mockState.getExit()).thenReturn(nc);
         when(mockState.getTimeRemaining()).thenReturn(2500);
-        when(tf.getGold()).thenReturn(30);
-        when(tj.getGold()).thenReturn(20);
+        when(mockState.getGold(nf)).thenReturn(30);
+        when(mockState.getGold(nj)).thenReturn(20);
         strategy.escape(mockState);
 
         // Should move ten times - a-d-f-h-i-j-i-h-e-c
@@ -215,8 +215,8 @@ public class GetTopNCashWithDiversionsEscapeTest {
         when(mockState.getCurrentNode()).thenReturn(na);
         when(mockState.getExit()).thenReturn(nc);
         when(mockState.getTimeRemaining()).thenReturn(350);
-        when(tf.getGold()).thenReturn(30);
-        when(tj.getGold()).thenReturn(60);
+        when(mockState.getGold(nf)).thenReturn(30);
+        when(mockState.getGold(nj)).thenReturn(60);
         strategy.escape(mockState);
 
         // Should move six times - a-d-f-d-a-b-c